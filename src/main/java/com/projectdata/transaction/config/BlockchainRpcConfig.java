@@ -0,0 +1,113 @@
+package com.projectdata.transaction.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.EndpointDetails;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.projectdata.transaction.service.blockchain.rpc.RpcTransportMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/*
+ * HTTP clients used to talk to blockchain JSON-RPC providers.
+ * The JDK client backs the non-blocking lookups: it multiplexes requests over
+ * HTTP/2 where the provider supports it and never parks a thread per call.
+ * The RestTemplate used by blocking lookups runs on a pooled Apache client that
+ * keeps connections to each provider host alive between calls.
+ */
+@Configuration
+public class BlockchainRpcConfig {
+
+    @Bean
+    public HttpClient blockchainHttpClient(
+            @Value("${blockchain.rpc.connect-timeout:5000}") long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /*
+     * Connections are pooled per route (scheme, host and port), so every provider
+     * gets its own bounded share of the pool.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager blockchainConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${blockchain.rpc.connect-timeout:5000}") long connectTimeoutMs,
+            @Value("${blockchain.rpc.read-timeout:10000}") long readTimeoutMs,
+            @Value("${blockchain.rpc.pool.max-total:200}") int maxTotal,
+            @Value("${blockchain.rpc.pool.max-per-host:50}") int maxPerHost,
+            @Value("${blockchain.rpc.pool.time-to-live:300000}") long timeToLiveMs,
+            @Value("${blockchain.rpc.pool.validate-after-inactivity:2000}") long validateAfterInactivityMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .build())
+                .build();
+
+        // Leased, available and pending connections against the pool maximums
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "blockchain-rpc")
+                .bindTo(meterRegistry);
+
+        return connectionManager;
+    }
+
+    /*
+     * Compression is negotiated by BlockchainRpcClient itself, so that received
+     * bytes are counted as they arrive on the wire for both transports.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient blockchainApacheHttpClient(
+            PoolingHttpClientConnectionManager blockchainConnectionManager,
+            RpcTransportMetrics transportMetrics,
+            @Value("${blockchain.rpc.read-timeout:10000}") long readTimeoutMs,
+            @Value("${blockchain.rpc.pool.acquire-timeout:5000}") long acquireTimeoutMs,
+            @Value("${blockchain.rpc.pool.keep-alive:60000}") long keepAliveMs,
+            @Value("${blockchain.rpc.pool.idle-timeout:30000}") long idleTimeoutMs) {
+        return HttpClients.custom()
+                .setConnectionManager(blockchainConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAliveMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .disableContentCompression()
+                .addResponseInterceptorLast((response, entity, context) -> {
+                    // The connection has carried more than this request if it came from the pool
+                    EndpointDetails endpoint = HttpCoreContext.adapt(context).getEndpointDetails();
+                    if (endpoint != null) {
+                        transportMetrics.recordExchange(RpcTransportMetrics.BLOCKING, endpoint.getRequestCount() > 1);
+                    }
+                })
+                .build();
+    }
+
+    @Bean
+    public RestTemplate blockchainRestTemplate(CloseableHttpClient blockchainApacheHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(blockchainApacheHttpClient));
+    }
+}
@@ -0,0 +1,32 @@
+package com.projectdata.transaction.config;
+
+import com.projectdata.transaction.model.WalletChain;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/*
+ * Resolves blockchain settings that can be overridden per chain.
+ * A key such as "rpc.async.max-in-flight" is looked up as
+ * blockchain.chains.<chain>.rpc.async.max-in-flight first, then as the
+ * shared blockchain.rpc.async.max-in-flight, then falls back to the default.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChainProperties {
+
+    private final Environment environment;
+
+    public <T> T get(WalletChain chain, String key, Class<T> type, T defaultValue) {
+        T chainValue = environment.getProperty(
+                "blockchain.chains." + chain.name().toLowerCase() + "." + key, type);
+        if (chainValue != null) {
+            return chainValue;
+        }
+        return environment.getProperty("blockchain." + key, type, defaultValue);
+    }
+
+    public int getInt(WalletChain chain, String key, int defaultValue) {
+        return get(chain, key, Integer.class, defaultValue);
+    }
+}
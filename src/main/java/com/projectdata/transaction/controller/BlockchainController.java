@@ -8,6 +8,7 @@ import com.projectdata.transaction.service.blockchain.WalletTrackingService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -15,8 +16,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/blockchain")
@@ -95,19 +98,42 @@ public class BlockchainController {
      */
     @PostMapping("/transaction/{chain}/{txHash}/process")
     @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
-    public ResponseEntity<ApiResponse<TransactionDTO>> fetchAndProcessTransaction(
+    public CompletableFuture<ResponseEntity<ApiResponse<TransactionDTO>>> fetchAndProcessTransaction(
             @PathVariable WalletChain chain,
             @PathVariable @NotBlank String txHash,
             HttpServletRequest httpRequest) {
         
         log.info("Manually fetching and processing transaction {} on {} blockchain", txHash, chain);
         
-        TransactionDTO transaction = walletTrackingService.fetchAndProcessTransaction(chain, txHash);
+        String requestUri = httpRequest.getRequestURI();
         
-        return ResponseEntity.ok(ApiResponse.success(
-                transaction,
-                httpRequest.getRequestURI(),
-                "Transaction processed successfully",
-                HttpStatus.OK));
+        return walletTrackingService.fetchAndProcessTransactionAsync(chain, txHash)
+                .thenApply(transaction -> ResponseEntity.ok(ApiResponse.success(
+                        transaction,
+                        requestUri,
+                        "Transaction processed successfully",
+                        HttpStatus.OK)));
+    }
+    
+    /**
+     * Manually fetch and process a list of transactions concurrently
+     */
+    @PostMapping("/transactions/{chain}/process")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    public CompletableFuture<ResponseEntity<ApiResponse<List<TransactionDTO>>>> fetchAndProcessTransactions(
+            @PathVariable WalletChain chain,
+            @RequestBody @NotEmpty List<@NotBlank String> txHashes,
+            HttpServletRequest httpRequest) {
+        
+        log.info("Manually fetching and processing {} transactions on {} blockchain", txHashes.size(), chain);
+        
+        String requestUri = httpRequest.getRequestURI();
+        
+        return walletTrackingService.fetchAndProcessTransactionsAsync(chain, txHashes)
+                .thenApply(transactions -> ResponseEntity.ok(ApiResponse.success(
+                        transactions,
+                        requestUri,
+                        "Transactions processed successfully",
+                        HttpStatus.OK)));
     }
 }
@@ -1,5 +1,5 @@
 package com.projectdata.transaction.model;
 
 public enum AssetType {
-    BTC, ETH, USDT, SOL
+    BTC, ETH, USDT, SOL, SUI
 }
@@ -0,0 +1,5 @@
+package com.projectdata.transaction.model;
+
+public enum ConfirmationStatus {
+    PROVISIONAL, CONFIRMED, ORPHANED
+}
@@ -0,0 +1,21 @@
+package com.projectdata.transaction.model.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cluster_nodes")
+public class ClusterNode {
+    @Id
+    private String id;
+    private Instant heartbeatAt;
+    private Instant expiresAt;      // The node counts as gone once this passes
+}
@@ -0,0 +1,24 @@
+package com.projectdata.transaction.model.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.projectdata.transaction.model.WalletChain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "processed_transactions")
+public class ProcessedTransaction {
+    @Id
+    private String id;              // <chain>:<txHash>[:<logIndex>], EVM hashes lowercase
+    private WalletChain blockChain;
+    private String txHash;
+    private Instant processedAt;
+}
@@ -0,0 +1,24 @@
+package com.projectdata.transaction.model.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.projectdata.transaction.model.WalletChain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "scan_cursors")
+public class ScanCursor {
+    @Id
+    private String id;              // <chain>
+    private WalletChain blockChain;
+    private long confirmedThrough;  // Last block whose tracked-wallet transactions are all stored
+    private Instant updatedAt;
+}
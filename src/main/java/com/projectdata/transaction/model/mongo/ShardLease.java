@@ -0,0 +1,25 @@
+package com.projectdata.transaction.model.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.projectdata.transaction.model.WalletChain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "shard_leases")
+public class ShardLease {
+    @Id
+    private String id;              // <chain>:<shard>
+    private WalletChain blockChain;
+    private int shard;
+    private String owner;           // Id of the cluster node polling the shard
+    private Instant expiresAt;      // Free for another node to take once this passes
+}
@@ -0,0 +1,28 @@
+package com.projectdata.transaction.model.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.projectdata.transaction.model.WalletChain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "tracked_wallets")
+public class TrackedWallet {
+    @Id
+    private String id;              // <chain>:<walletAddress>
+    private WalletChain blockChain;
+    private String walletAddress;
+    private String cursor;          // Polling cursor, empty until the first poll
+    private Instant registeredAt;
+    private Instant updatedAt;
+}
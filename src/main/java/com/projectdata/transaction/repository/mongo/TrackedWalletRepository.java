@@ -0,0 +1,9 @@
+package com.projectdata.transaction.repository.mongo;
+
+import com.projectdata.transaction.model.mongo.TrackedWallet;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrackedWalletRepository extends MongoRepository<TrackedWallet, String> {
+}
@@ -3,6 +3,7 @@ package com.projectdata.transaction.service;
 import com.projectdata.transaction.dto.common.AlertDTO;
 import com.projectdata.transaction.dto.common.TransactionDTO;
 import com.projectdata.transaction.model.AssetType;
+import com.projectdata.transaction.model.ConfirmationStatus;
 import com.projectdata.transaction.model.WalletChain;
 import com.projectdata.transaction.model.mongo.RawTransaction;
 import com.projectdata.transaction.repository.mongo.RawTransactionRepository;
@@ -55,13 +56,38 @@ public class OnChainTransactionService {
         
         // Check if this transaction should trigger an alert
         if (shouldGenerateAlert(transactionDTO)) {
-            generateAndSendAlert(transactionDTO);
+            generateAndSendAlert(transactionDTO, ConfirmationStatus.CONFIRMED);
         }
         
         // Convert entity back to DTO and return
         return TransactionDTO.fromEntity(savedTransaction);
     }
     
+    /**
+     * Sends an early alert for a transaction that is not final yet, without storing
+     * it. The transaction is later either tracked, which alerts again as confirmed,
+     * or withdrawn.
+     * 
+     * @param transactionDTO The transaction DTO seen in a recent block
+     */
+    public void sendProvisionalAlert(TransactionDTO transactionDTO) {
+        if (shouldGenerateAlert(transactionDTO)) {
+            generateAndSendAlert(transactionDTO, ConfirmationStatus.PROVISIONAL);
+        }
+    }
+    
+    /**
+     * Withdraws the provisional alert of a transaction whose block was dropped by a
+     * chain reorganization
+     * 
+     * @param transactionDTO The transaction DTO that is no longer on the chain
+     */
+    public void withdrawProvisionalAlert(TransactionDTO transactionDTO) {
+        if (shouldGenerateAlert(transactionDTO)) {
+            generateAndSendAlert(transactionDTO, ConfirmationStatus.ORPHANED);
+        }
+    }
+    
     /**
      * Determines if a transaction should generate an alert
      * This is a simple implementation - in a real system, you would have more complex rules
@@ -91,9 +117,10 @@ public class OnChainTransactionService {
      * Generates and sends an alert for a transaction
      * 
      * @param transactionDTO The transaction DTO to generate an alert for
+     * @param status Whether the transaction is final, not yet, or no longer on the chain
      */
-    private void generateAndSendAlert(TransactionDTO transactionDTO) {
-        log.info("Generating alert for transaction: {}", transactionDTO.getTxHash());
+    private void generateAndSendAlert(TransactionDTO transactionDTO, ConfirmationStatus status) {
+        log.info("Generating {} alert for transaction: {}", status, transactionDTO.getTxHash());
         
         AlertDTO alertDTO = new AlertDTO();
         alertDTO.setWalletAddress(transactionDTO.getWalletAddress());
@@ -103,8 +130,19 @@ public class OnChainTransactionService {
         alertDTO.setTimestamp(Instant.now());
         
         // Create a human-readable message
+        String format;
+        switch (status) {
+            case PROVISIONAL:
+                format = "Unconfirmed transaction alert: %s %s detected on %s blockchain for wallet %s";
+                break;
+            case ORPHANED:
+                format = "Transaction alert withdrawn: %s %s on %s blockchain for wallet %s was dropped by a chain reorganization";
+                break;
+            default:
+                format = "Transaction alert: %s %s detected on %s blockchain for wallet %s";
+        }
         String message = String.format(
-            "Transaction alert: %s %s detected on %s blockchain for wallet %s",
+            format,
             transactionDTO.getAmount(),
             transactionDTO.getAsset(),
             transactionDTO.getBlockChain(),
@@ -117,6 +155,7 @@ public class OnChainTransactionService {
         metadata.put("fromAddress", transactionDTO.getFromAddress());
         metadata.put("toAddress", transactionDTO.getToAddress());
         metadata.put("blockChain", transactionDTO.getBlockChain().name());
+        metadata.put("confirmation", status.name());
         alertDTO.setMetadata(metadata);
         
         // Convert DTO to entity and send the alert to Kafka
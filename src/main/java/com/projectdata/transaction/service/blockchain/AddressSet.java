@@ -0,0 +1,281 @@
+package com.projectdata.transaction.service.blockchain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.LongPredicate;
+
+/**
+ * A set of hex addresses of a fixed length, each with a {@code long} attached,
+ * kept as decoded bytes in primitive arrays: a 20-byte EVM address takes 33 bytes
+ * of table slot instead of a {@code String} and a map entry. Lookups take the
+ * address as text, decode it on the fly and allocate nothing; the case of the hex
+ * digits and a {@code 0x} prefix do not matter, and shorter hex values are read
+ * as left-padded with zeros.
+ *
+ * <p>An open-addressing table with linear probing. Reads take no lock: a slot's
+ * key is written before its state is published, and the slot of a removed address
+ * is only marked removed, never reused, so a reader never sees a key change under
+ * it. Writes are serialized, and a table whose removed and used slots fill up, or
+ * that removals have left mostly empty, is rebuilt and swapped in whole; a pass
+ * over the values therefore stays proportional to the size.
+ */
+final class AddressSet {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 28;
+    private static final double LOAD_FACTOR = 0.7;
+
+    private final int keyBytes;
+    private final int words;
+
+    private volatile Table table;
+    // Written under the set's lock
+    private volatile int size;
+
+    private static final class Table {
+        private final int mask;
+        private final int threshold;
+        private final long[] keys;
+        private final long[] values;
+        private final byte[] states;
+        // Full and removed slots, guarded by the set
+        private int used;
+
+        private Table(int capacity, int words) {
+            this.mask = capacity - 1;
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+            this.keys = new long[capacity * words];
+            this.values = new long[capacity];
+            this.states = new byte[capacity];
+        }
+    }
+
+    /**
+     * @param keyBytes Length of an address in bytes, at most 32
+     */
+    AddressSet(int keyBytes) {
+        if (keyBytes < 1 || keyBytes > 32) {
+            throw new IllegalArgumentException("Addresses of " + keyBytes + " bytes are not supported");
+        }
+        this.keyBytes = keyBytes;
+        this.words = (keyBytes + 7) / 8;
+        this.table = new Table(INITIAL_CAPACITY, words);
+    }
+
+    boolean contains(CharSequence address) {
+        return indexOf(table, address) >= 0;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds an address, or replaces the value of one already in the set
+     *
+     * @return false if the address is not a hex address of this set's length
+     */
+    synchronized boolean add(CharSequence address, long value) {
+        long[] key = decode(address);
+        if (key == null) {
+            return false;
+        }
+        Table current = table;
+        int index = find(current, key);
+        if (index >= 0) {
+            current.values[index] = value;
+            return true;
+        }
+        if (current.used + 1 > current.threshold) {
+            current = rebuild(current, size + 1);
+        }
+        insert(current, key, value);
+        size++;
+        return true;
+    }
+
+    synchronized void remove(CharSequence address) {
+        long[] key = decode(address);
+        if (key == null) {
+            return;
+        }
+        Table current = table;
+        int index = find(current, key);
+        if (index >= 0) {
+            STATES.setRelease(current.states, index, REMOVED);
+            size--;
+            if (current.mask + 1 > INITIAL_CAPACITY && size < current.threshold / 8) {
+                rebuild(current, size);
+            }
+        }
+    }
+
+    /**
+     * @return true if the value of any address in the set passes the test
+     */
+    boolean anyValueMatches(LongPredicate test) {
+        Table current = table;
+        for (int i = 0; i <= current.mask; i++) {
+            if ((byte) STATES.getAcquire(current.states, i) == FULL && test.test(current.values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(Table current, CharSequence address) {
+        int length = address.length();
+        int start = length >= 2 && address.charAt(0) == '0' && (address.charAt(1) == 'x' || address.charAt(1) == 'X') ? 2 : 0;
+        int digits = length - start;
+        if (digits < 1 || digits > 2 * keyBytes) {
+            return -1;
+        }
+        // The address as a 256-bit number, most significant word first
+        long w0 = 0;
+        long w1 = 0;
+        long w2 = 0;
+        long w3 = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = Character.digit(address.charAt(length - 1 - i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            long bits = (long) digit << ((i & 15) << 2);
+            switch (i >>> 4) {
+                case 0:
+                    w3 |= bits;
+                    break;
+                case 1:
+                    w2 |= bits;
+                    break;
+                case 2:
+                    w1 |= bits;
+                    break;
+                default:
+                    w0 |= bits;
+                    break;
+            }
+        }
+
+        int first = 4 - words;
+        long[] keys = current.keys;
+        for (int index = hash(w0, w1, w2, w3) & current.mask; ; index = (index + 1) & current.mask) {
+            byte state = (byte) STATES.getAcquire(current.states, index);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == FULL) {
+                int offset = index * words - first;
+                if ((first > 0 || keys[offset] == w0)
+                        && (first > 1 || keys[offset + 1] == w1)
+                        && (first > 2 || keys[offset + 2] == w2)
+                        && keys[offset + 3] == w3) {
+                    return index;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The address as 4 words, most significant first, or null if it is not one
+     */
+    private long[] decode(CharSequence address) {
+        int length = address.length();
+        int start = length >= 2 && address.charAt(0) == '0' && (address.charAt(1) == 'x' || address.charAt(1) == 'X') ? 2 : 0;
+        int digits = length - start;
+        if (digits < 1 || digits > 2 * keyBytes) {
+            return null;
+        }
+        long[] key = new long[4];
+        for (int i = 0; i < digits; i++) {
+            int digit = Character.digit(address.charAt(length - 1 - i), 16);
+            if (digit < 0) {
+                return null;
+            }
+            key[3 - (i >>> 4)] |= (long) digit << ((i & 15) << 2);
+        }
+        return key;
+    }
+
+    private int find(Table current, long[] key) {
+        int first = 4 - words;
+        for (int index = hash(key[0], key[1], key[2], key[3]) & current.mask; ; index = (index + 1) & current.mask) {
+            byte state = current.states[index];
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == FULL && matches(current, index, key, first)) {
+                return index;
+            }
+        }
+    }
+
+    private boolean matches(Table current, int index, long[] key, int first) {
+        int offset = index * words - first;
+        for (int word = first; word < 4; word++) {
+            if (current.keys[offset + word] != key[word]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the key and value into the first empty slot, then publishes the slot
+     */
+    private void insert(Table current, long[] key, long value) {
+        int first = 4 - words;
+        int index = hash(key[0], key[1], key[2], key[3]) & current.mask;
+        while (current.states[index] != EMPTY) {
+            index = (index + 1) & current.mask;
+        }
+        System.arraycopy(key, first, current.keys, index * words, words);
+        current.values[index] = value;
+        current.used++;
+        STATES.setRelease(current.states, index, FULL);
+    }
+
+    /**
+     * Copies the addresses into a new table with room for at least twice the given
+     * size, leaving the removed ones behind, and swaps it in; the new table may be
+     * smaller than the current one
+     */
+    private Table rebuild(Table current, int newSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < MAX_CAPACITY && capacity * LOAD_FACTOR < 2L * newSize) {
+            capacity <<= 1;
+        }
+        Table rebuilt = new Table(capacity, words);
+        int first = 4 - words;
+        long[] key = new long[4];
+        for (int i = 0; i <= current.mask; i++) {
+            if (current.states[i] == FULL) {
+                System.arraycopy(current.keys, i * words, key, first, words);
+                insert(rebuilt, key, current.values[i]);
+            }
+        }
+        table = rebuilt;
+        return rebuilt;
+    }
+
+    private static int hash(long w0, long w1, long w2, long w3) {
+        long hash = w0;
+        hash = hash * 0x9e3779b97f4a7c15L + w1;
+        hash = hash * 0x9e3779b97f4a7c15L + w2;
+        hash = hash * 0x9e3779b97f4a7c15L + w3;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
@@ -0,0 +1,19 @@
+package com.projectdata.transaction.service.blockchain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The parts of an EVM block header the tracker needs
+ */
+@Getter
+@AllArgsConstructor
+public class BlockHeader {
+
+    private final long number;
+    private final String hash;
+    private final String parentHash;
+    private final Instant timestamp;
+}
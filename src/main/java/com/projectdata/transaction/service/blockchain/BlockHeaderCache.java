@@ -0,0 +1,96 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projectdata.transaction.config.ChainProperties;
+import com.projectdata.transaction.model.WalletChain;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared cache of EVM block headers keyed by chain and block number. Many
+ * transactions land in the same block, so one header fetch serves all of them.
+ *
+ * <p>A reorg can replace the block at a number near the head, so only headers
+ * {@code confirmation.depth} deep below the highest block seen are kept until
+ * evicted. Newer headers, and every header while the head is not known yet, go to
+ * a smaller cache with a short TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class BlockHeaderCache {
+
+    private final MeterRegistry meterRegistry;
+    private final ChainProperties chainProperties;
+
+    @Value("${blockchain.cache.block-headers.max-size:10000}")
+    private long maxSize;
+
+    @Value("${blockchain.cache.block-headers.recent-max-size:1000}")
+    private long recentMaxSize;
+
+    @Value("${blockchain.cache.block-headers.recent-ttl:15000}")
+    private long recentTtlMs;
+
+    // Highest block number seen per chain
+    private final Map<WalletChain, Long> heads = new ConcurrentHashMap<>();
+
+    private Cache<Key, BlockHeader> headers;
+    private Cache<Key, BlockHeader> recentHeaders;
+
+    @PostConstruct
+    void initCache() {
+        headers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        recentHeaders = Caffeine.newBuilder()
+                .maximumSize(recentMaxSize)
+                .expireAfterWrite(Duration.ofMillis(recentTtlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, headers, "blockchain_block_headers");
+        CaffeineCacheMetrics.monitor(meterRegistry, recentHeaders, "blockchain_block_headers_recent");
+    }
+
+    /**
+     * @return The cached header, or null if it has to be fetched
+     */
+    public BlockHeader get(WalletChain chain, long blockNumber) {
+        Key key = new Key(chain, blockNumber);
+        BlockHeader header = headers.getIfPresent(key);
+        return header != null ? header : recentHeaders.getIfPresent(key);
+    }
+
+    public void put(WalletChain chain, BlockHeader header) {
+        Key key = new Key(chain, header.getNumber());
+        heads.merge(chain, header.getNumber(), Math::max);
+        if (isFinal(chain, header.getNumber())) {
+            headers.put(key, header);
+            recentHeaders.invalidate(key);
+        } else {
+            recentHeaders.put(key, header);
+        }
+    }
+
+    /**
+     * @return true if the block is at least {@code confirmation.depth} deep, counting
+     *         its own, below the highest block seen on the chain
+     */
+    public boolean isFinal(WalletChain chain, long blockNumber) {
+        Long head = heads.get(chain);
+        return head != null && head - blockNumber + 1 >= chainProperties.getInt(chain, "confirmation.depth", 12);
+    }
+
+    private record Key(WalletChain chain, long blockNumber) {
+    }
+}
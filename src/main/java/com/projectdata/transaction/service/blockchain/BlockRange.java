@@ -0,0 +1,7 @@
+package com.projectdata.transaction.service.blockchain;
+
+/**
+ * An inclusive range of block numbers
+ */
+public record BlockRange(long from, long to) {
+}
@@ -1,28 +1,66 @@
 package com.projectdata.transaction.service.blockchain;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.projectdata.transaction.dto.common.TransactionDTO;
-import com.projectdata.transaction.model.AssetType;
 import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.adapter.ChainAdapter;
+import com.projectdata.transaction.service.blockchain.adapter.EvmChainAdapter;
+import com.projectdata.transaction.service.blockchain.adapter.HexQuantity;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaChainAdapter;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaChainAdapter.SignatureListing;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaChainAdapter.SignatureQuery;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaSignature;
+import com.projectdata.transaction.service.blockchain.adapter.SuiChainAdapter;
+import com.projectdata.transaction.service.blockchain.adapter.SuiChainAdapter.TransactionBlockPage;
+import com.projectdata.transaction.service.blockchain.adapter.SuiChainAdapter.TransactionBlockQuery;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcReader;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcReply;
+import com.projectdata.transaction.service.blockchain.rpc.JsonValueDecoder;
+import com.projectdata.transaction.service.blockchain.rpc.ResponseReader;
+import com.projectdata.transaction.service.blockchain.rpc.RpcDispatcher;
+import com.projectdata.transaction.service.blockchain.rpc.RpcException;
+import com.projectdata.transaction.service.blockchain.rpc.RpcTransportMetrics;
+import com.projectdata.transaction.service.blockchain.rpc.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.time.Instant;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
 
 /**
- * Client for making JSON-RPC requests to different blockchains
+ * Client for making JSON-RPC requests to different blockchains. Responses are
+ * decoded straight off the HTTP body stream, reading only the fields a
+ * {@link TransactionDTO} needs and skipping the rest without building a tree.
+ * What to send and how to decode it for each chain comes from its {@link ChainAdapter}.
  */
 @Service
 @RequiredArgsConstructor
@@ -31,18 +69,48 @@ public class BlockchainRpcClient {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
-    
-    @Value("${blockchain.rpc.ethereum}")
-    private String ethereumRpcUrl;
-    
-    @Value("${blockchain.rpc.solana}")
-    private String solanaRpcUrl;
-    
-    @Value("${blockchain.rpc.bsc}")
-    private String bscRpcUrl;
-    
-    @Value("${blockchain.rpc.sui}")
-    private String suiRpcUrl;
+    private final HttpClient blockchainHttpClient;
+    private final RpcDispatcher rpcDispatcher;
+    private final TransactionCache transactionCache;
+    private final BlockHeaderCache blockHeaderCache;
+    private final MeterRegistry meterRegistry;
+    private final RpcTransportMetrics transportMetrics;
+    private final List<ChainAdapter> chainAdapters;
+
+    private final Map<WalletChain, ChainAdapter> adapters = new EnumMap<>(WalletChain.class);
+
+    // Concurrent lookups of the same transaction, blocking or not, share one RPC call
+    private final SingleFlight<TransactionKey, TransactionDTO> transactionLookups = new SingleFlight<>();
+
+    // Maximum number of calls packed into a single JSON-RPC batch array
+    @Value("${blockchain.rpc.batch-size:100}")
+    private int batchSize;
+
+    @Value("${blockchain.polling.solana.max-pages:10}")
+    private int maxSignaturePages;
+
+    @Value("${blockchain.rpc.async.request-timeout:10000}")
+    private long asyncRequestTimeoutMs;
+
+    @PostConstruct
+    void initAdapters() {
+        for (ChainAdapter adapter : chainAdapters) {
+            ChainAdapter previous = adapters.putIfAbsent(adapter.getChain(), adapter);
+            if (previous != null) {
+                throw new IllegalStateException("Two chain adapters for " + adapter.getChain() + ": "
+                        + previous.getClass().getSimpleName() + " and " + adapter.getClass().getSimpleName());
+            }
+        }
+        log.info("Loaded chain adapters for {}", adapters.keySet());
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        FunctionCounter.builder("blockchain_rpc_coalesced_lookups_total", transactionLookups,
+                        SingleFlight::getCoalescedCount)
+                .description("Transaction lookups that joined an identical lookup already in flight")
+                .register(meterRegistry);
+    }
     
     /**
      * Fetches a transaction from the blockchain by its hash
@@ -54,284 +122,686 @@ public class BlockchainRpcClient {
     public TransactionDTO getTransaction(WalletChain chain, String txHash) {
         log.info("Fetching transaction {} from {} blockchain", txHash, chain);
         
-        switch (chain) {
-            case ETH:
-                return getEthereumTransaction(txHash);
-            case SOL:
-                return getSolanaTransaction(txHash);
-            case BSC:
-                return getBscTransaction(txHash);
-            case SUI:
-                return getSuiTransaction(txHash);
-            default:
-                throw new IllegalArgumentException("Unsupported blockchain: " + chain);
+        ChainAdapter adapter = adapter(chain);
+        return transactionLookups.executeBlocking(TransactionKey.of(chain, txHash), () -> {
+            try {
+                return fetchTransaction(adapter, txHash);
+            } catch (Exception e) {
+                log.error("Error fetching {} transaction: {}", chain, txHash, e);
+                throw new RuntimeException("Failed to fetch " + chain + " transaction: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Fetches a transaction without blocking the calling thread. Lookups beyond the
+     * chain's concurrency limit are queued until an earlier lookup completes.
+     *
+     * @param chain The blockchain to query
+     * @param txHash The transaction hash
+     * @return A future completed with the transaction data
+     */
+    public CompletableFuture<TransactionDTO> getTransactionAsync(WalletChain chain, String txHash) {
+        log.info("Fetching transaction {} from {} blockchain asynchronously", txHash, chain);
+
+        ChainAdapter adapter = adapter(chain);
+        return transactionLookups.execute(TransactionKey.of(chain, txHash),
+                () -> fetchTransactionAsync(adapter, txHash, adapter.getTransactionDecoder(), true));
+    }
+
+    /**
+     * Fetches a transaction without blocking the calling thread, recorded from the
+     * side of the tracked wallet it touches, as polling records it. Not cached, since
+     * the same transaction reads differently from another wallet's side.
+     *
+     * @param chain The blockchain to query
+     * @param txHash The transaction hash
+     * @param isTracked Tells whether an address belongs to a tracked wallet
+     * @return A future completed with the transaction data
+     */
+    public CompletableFuture<TransactionDTO> getTrackedTransactionAsync(WalletChain chain, String txHash,
+            Predicate<String> isTracked) {
+        ChainAdapter adapter = adapter(chain);
+        return fetchTransactionAsync(adapter, txHash, adapter.getTransactionDecoder(isTracked), false);
+    }
+
+    private CompletableFuture<TransactionDTO> fetchTransactionAsync(ChainAdapter adapter, String txHash,
+            JsonValueDecoder<TransactionDTO> decoder, boolean cacheable) {
+        WalletChain chain = adapter.getChain();
+        TransactionLookup cached = cacheable ? transactionCache.get(chain, txHash) : null;
+        if (cached != null) {
+            return cached.isSuccess()
+                    ? CompletableFuture.completedFuture(cached.getTransaction())
+                    : CompletableFuture.failedFuture(
+                            new RuntimeException("Failed to fetch " + chain + " transaction: " + cached.getError()));
         }
+
+        byte[] requestBody = adapter.getTransactionRequest().render(txHash, 1);
+
+        return rpcDispatcher.executeAsync(chain, endpoint -> postAsync(endpoint.getUrl(), requestBody,
+                        body -> JsonRpcReader.readSingle(objectMapper.getFactory(), body, decoder)))
+                .thenCompose(reply -> {
+                    TransactionLookup lookup = toLookup(txHash, reply);
+                    if (!lookup.isSuccess()) {
+                        if (cacheable) {
+                            cacheLookup(chain, lookup);
+                        }
+                        throw new RuntimeException("Failed to fetch " + chain + " transaction: " + lookup.getError());
+                    }
+                    return resolveBlockTimestampAsync(chain, lookup.getTransaction())
+                            .thenApply(ignored -> {
+                                if (cacheable) {
+                                    cacheLookup(chain, lookup);
+                                }
+                                return lookup.getTransaction();
+                            });
+                });
     }
-    
+
+    /**
+     * Fetches many transactions using JSON-RPC batch requests, so that a whole chunk
+     * of hashes costs a single HTTP round trip. Responses are matched back to their
+     * hash by the request id, and a failure for one hash does not fail the others.
+     * Hashes answered by the transaction cache are not sent at all.
+     *
+     * @param chain The blockchain to query
+     * @param txHashes The transaction hashes
+     * @return The lookup result per hash, in the order the hashes were given
+     */
+    public Map<String, TransactionLookup> getTransactions(WalletChain chain, List<String> txHashes) {
+        ChainAdapter adapter = adapter(chain);
+        List<String> uniqueHashes = new ArrayList<>(new LinkedHashSet<>(txHashes));
+
+        Map<String, TransactionLookup> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String txHash : uniqueHashes) {
+            TransactionLookup cached = transactionCache.get(chain, txHash);
+            if (cached != null) {
+                found.put(txHash, cached);
+            } else {
+                missing.add(txHash);
+            }
+        }
+        log.info("Fetching {} transactions from {} blockchain in batches of {} ({} served from cache)",
+                missing.size(), chain, batchSize, found.size());
+
+        Map<String, TransactionLookup> fetched = new HashMap<>();
+        for (int start = 0; start < missing.size(); start += batchSize) {
+            List<String> chunk = missing.subList(start, Math.min(start + batchSize, missing.size()));
+            fetched.putAll(fetchBatch(adapter, chunk, adapter.getTransactionDecoder()));
+        }
+
+        // One header lookup per distinct block across every fetched transaction
+        resolveBlockTimestamps(chain, fetched.values().stream()
+                .filter(TransactionLookup::isSuccess)
+                .map(TransactionLookup::getTransaction)
+                .toList());
+        fetched.values().forEach(lookup -> cacheLookup(chain, lookup));
+        found.putAll(fetched);
+
+        Map<String, TransactionLookup> results = new LinkedHashMap<>();
+        uniqueHashes.forEach(txHash -> results.put(txHash, found.get(txHash)));
+        return results;
+    }
+
     /**
-     * Fetches an Ethereum transaction by its hash
+     * Sends one JSON-RPC batch array for the given hashes; the request id of each call
+     * is the index of its hash in the list
      */
-    private TransactionDTO getEthereumTransaction(String txHash) {
+    private Map<String, TransactionLookup> fetchBatch(ChainAdapter adapter, List<String> txHashes,
+            JsonValueDecoder<TransactionDTO> decoder) {
+        WalletChain chain = adapter.getChain();
+        byte[] requestBody = adapter.getTransactionRequest().renderBatch(txHashes);
+
+        Map<String, TransactionLookup> byHash = new HashMap<>();
         try {
-            // Create JSON-RPC request body
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("jsonrpc", "2.0");
-            requestBody.put("method", "eth_getTransactionByHash");
-            requestBody.put("id", 1);
-            requestBody.putArray("params").add(txHash);
-            
-            // Make the request
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> request = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-            
-            String response = restTemplate.postForObject(ethereumRpcUrl, request, String.class);
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            // Extract transaction data
-            JsonNode result = jsonResponse.get("result");
-            if (result == null || result.isNull()) {
-                throw new RuntimeException("Transaction not found: " + txHash);
+            List<JsonRpcReply<TransactionDTO>> replies = rpcDispatcher.execute(chain,
+                    endpoint -> post(endpoint.getUrl(), requestBody,
+                            body -> JsonRpcReader.readBatch(objectMapper.getFactory(), body, decoder)));
+
+            for (JsonRpcReply<TransactionDTO> reply : replies) {
+                if (reply.getId() == JsonRpcReply.UNKNOWN_ID && reply.isError()) {
+                    // Some providers answer a rejected batch with a single error object
+                    log.error("Batch request rejected by {} blockchain: {}", chain, reply.getError());
+                    txHashes.forEach(txHash -> byHash.putIfAbsent(txHash,
+                            TransactionLookup.failure(txHash, reply.getError())));
+                    continue;
+                }
+                if (reply.getId() < 0 || reply.getId() >= txHashes.size()) {
+                    log.warn("Ignoring batch response item with unknown id: {}", reply.getId());
+                    continue;
+                }
+                String txHash = txHashes.get(reply.getId());
+                byHash.put(txHash, toLookup(txHash, reply));
             }
-            
-            // Parse transaction data
-            String from = result.get("from").asText();
-            String to = result.get("to").asText();
-            
-            // Convert hex value to decimal
-            String valueHex = result.get("value").asText();
-            BigInteger valueWei = new BigInteger(valueHex.substring(2), 16);
-            BigDecimal valueEth = new BigDecimal(valueWei).divide(new BigDecimal("1000000000000000000"));
-            
-            // Build the DTO
-            TransactionDTO dto = new TransactionDTO();
-            dto.setBlockChain(WalletChain.ETH);
-            dto.setTxHash(txHash);
-            dto.setFromAddress(from);
-            dto.setToAddress(to);
-            dto.setWalletAddress(to); // Assuming recipient is the wallet we're tracking
-            dto.setAmount(valueEth.doubleValue());
-            dto.setAsset(AssetType.ETH);
-            dto.setTimestamp(Instant.now()); // Ethereum doesn't include timestamp in tx, would need block data
-            
-            // Store raw data for reference
-            Map<String, Object> rawData = new HashMap<>();
-            rawData.put("gasPrice", result.get("gasPrice").asText());
-            rawData.put("gasUsed", result.get("gas").asText());
-            rawData.put("nonce", result.get("nonce").asText());
-            dto.setRawData(rawData);
-            
-            return dto;
-            
         } catch (Exception e) {
-            log.error("Error fetching Ethereum transaction: {}", txHash, e);
-            throw new RuntimeException("Failed to fetch Ethereum transaction: " + e.getMessage(), e);
+            log.error("Error fetching batch of {} transactions from {} blockchain", txHashes.size(), chain, e);
+            txHashes.forEach(txHash -> byHash.put(txHash,
+                    TransactionLookup.failure(txHash, "Batch request failed: " + e.getMessage())));
+        }
+
+        // Preserve the caller's order and report hashes the provider silently dropped
+        Map<String, TransactionLookup> results = new LinkedHashMap<>();
+        for (String txHash : txHashes) {
+            results.put(txHash, byHash.getOrDefault(txHash,
+                    TransactionLookup.failure(txHash, "No response received for transaction: " + txHash)));
         }
+        return results;
     }
-    
+
     /**
-     * Fetches a Solana transaction by its hash
+     * Lists the Solana signatures in each of the given ranges of a wallet's history,
+     * paging with {@code before} while pages come back full. The first page of every
+     * range goes out in one JSON-RPC batch, and so does each further round of pages.
+     * A range without a lower end only gets its newest signature, to start from.
+     *
+     * <p>A range with more than {@code polling.solana.max-pages} pages is listed only
+     * down to there and reported as incomplete; the rest is left for the caller to
+     * read later. A range whose lookup failed has no listing.
+     *
+     * @param ranges Signatures newer than {@code until} and older than {@code before},
+     *        the limit being the page size
+     * @return The listing per range, in range order; null for a range that failed
      */
-    private TransactionDTO getSolanaTransaction(String txHash) {
-        try {
-            // Create JSON-RPC request body
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("jsonrpc", "2.0");
-            requestBody.put("method", "getTransaction");
-            requestBody.put("id", 1);
-            ObjectNode params = requestBody.putObject("params");
-            params.put("signature", txHash);
-            params.put("encoding", "json");
-            
-            // Make the request
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> request = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-            
-            String response = restTemplate.postForObject(solanaRpcUrl, request, String.class);
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            // Extract transaction data
-            JsonNode result = jsonResponse.get("result");
-            if (result == null || result.isNull()) {
-                throw new RuntimeException("Transaction not found: " + txHash);
+    public List<SignatureListing> getSignatures(List<SignatureQuery> ranges) {
+        SolanaChainAdapter adapter = solanaAdapter();
+        List<List<SolanaSignature>> found = new ArrayList<>();
+        List<Boolean> failed = new ArrayList<>();
+        List<RangePage> pages = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            found.add(new ArrayList<>());
+            failed.add(false);
+            pages.add(new RangePage(i, ranges.get(i)));
+        }
+
+        for (int page = 0; !pages.isEmpty() && page < maxSignaturePages; page++) {
+            List<RangePage> nextPages = new ArrayList<>();
+            for (int start = 0; start < pages.size(); start += batchSize) {
+                List<RangePage> chunk = pages.subList(start, Math.min(start + batchSize, pages.size()));
+                byte[] requestBody = adapter.renderSignaturesBatch(chunk.stream().map(RangePage::query).toList());
+                List<JsonRpcReply<List<SolanaSignature>>> replies = rpcDispatcher.execute(WalletChain.SOL,
+                        endpoint -> post(endpoint.getUrl(), requestBody, body -> JsonRpcReader.readBatch(
+                                objectMapper.getFactory(), body, adapter.getSignaturesDecoder())));
+                nextPages.addAll(collectSignatures(chunk, replies, found, failed));
+            }
+            pages = nextPages;
+        }
+        if (!pages.isEmpty()) {
+            log.info("{} Solana signature ranges have more than {} pages, reading the rest next poll",
+                    pages.size(), maxSignaturePages);
+        }
+
+        Set<Integer> incomplete = new HashSet<>();
+        pages.forEach(page -> incomplete.add(page.range()));
+        List<SignatureListing> listings = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            List<SolanaSignature> signatures = found.get(i);
+            Collections.reverse(signatures);
+            listings.add(failed.get(i) ? null : new SignatureListing(signatures, !incomplete.contains(i)));
+        }
+        return listings;
+    }
+
+    /**
+     * Adds one round of signature pages to what was found
+     *
+     * @return The next page of the ranges whose page came back full
+     */
+    private List<RangePage> collectSignatures(List<RangePage> pages, List<JsonRpcReply<List<SolanaSignature>>> replies,
+            List<List<SolanaSignature>> found, List<Boolean> failed) {
+        Set<Integer> answered = new HashSet<>();
+        List<RangePage> nextPages = new ArrayList<>();
+        for (JsonRpcReply<List<SolanaSignature>> reply : replies) {
+            if (reply.getId() < 0 || reply.getId() >= pages.size()) {
+                log.warn("Signature lookup failed on SOL blockchain: {}", reply.getError());
+                continue;
+            }
+            RangePage page = pages.get(reply.getId());
+            SignatureQuery query = page.query();
+            if (reply.isError()) {
+                log.warn("Signature lookup failed for wallet {} on SOL blockchain: {}",
+                        query.address(), reply.getError());
+                continue;
+            }
+            answered.add(reply.getId());
+            List<SolanaSignature> signatures = reply.getResult() != null ? reply.getResult() : List.of();
+            found.get(page.range()).addAll(signatures);
+            if (query.until() != null && signatures.size() == query.limit()) {
+                nextPages.add(new RangePage(page.range(), new SignatureQuery(query.address(), query.until(),
+                        signatures.get(signatures.size() - 1).signature(), query.limit())));
+            }
+        }
+        // A range missing a page would have a hole, so it waits for the next poll
+        for (int i = 0; i < pages.size(); i++) {
+            if (!answered.contains(i)) {
+                failed.set(pages.get(i).range(), true);
+            }
+        }
+        nextPages.removeIf(page -> failed.get(page.range()));
+        return nextPages;
+    }
+
+    /**
+     * The next page to read of the range at the given index
+     */
+    private record RangePage(int range, SignatureQuery query) {
+    }
+
+    /**
+     * Fetches Solana transactions in JSON-RPC batches, each recorded as the balance
+     * change of the given wallet. These are not cached, since the same transaction
+     * reads differently from another wallet's side.
+     *
+     * @param wallet The wallet whose side of the transactions is recorded
+     * @param signatures The transaction signatures
+     * @return The lookup result per signature, in the order the signatures were given
+     */
+    public Map<String, TransactionLookup> getWalletTransactions(String wallet, List<String> signatures) {
+        SolanaChainAdapter adapter = solanaAdapter();
+        Map<String, TransactionLookup> results = new LinkedHashMap<>();
+        for (int start = 0; start < signatures.size(); start += batchSize) {
+            results.putAll(fetchBatch(adapter, signatures.subList(start, Math.min(start + batchSize,
+                    signatures.size())), adapter.getTransactionDecoder(wallet::equals)));
+        }
+        return results;
+    }
+
+    /**
+     * Runs one round of {@code suix_queryTransactionBlocks} queries in JSON-RPC
+     * batches. Each page already holds its transactions with their balance changes,
+     * so no transaction is looked up on its own.
+     *
+     * @param queries One query per page to read
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return The page per query, in query order; null for a query that failed
+     */
+    public List<TransactionBlockPage> getTransactionBlockPages(List<TransactionBlockQuery> queries,
+            Predicate<String> isTracked) {
+        SuiChainAdapter adapter = suiAdapter();
+        List<TransactionBlockPage> pages = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        for (int start = 0; start < queries.size(); start += batchSize) {
+            List<TransactionBlockQuery> chunk = queries.subList(start, Math.min(start + batchSize, queries.size()));
+            byte[] requestBody = adapter.renderTransactionBlocksBatch(chunk);
+            try {
+                List<JsonRpcReply<TransactionBlockPage>> replies = rpcDispatcher.execute(WalletChain.SUI,
+                        endpoint -> post(endpoint.getUrl(), requestBody, body -> JsonRpcReader.readBatch(
+                                objectMapper.getFactory(), body, adapter.getTransactionBlocksDecoder(isTracked))));
+                for (JsonRpcReply<TransactionBlockPage> reply : replies) {
+                    if (reply.isError() || reply.getId() < 0 || reply.getId() >= chunk.size()) {
+                        log.warn("Transaction block query failed on SUI blockchain: {}", reply.getError());
+                    } else {
+                        pages.set(start + reply.getId(), reply.getResult());
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error querying {} transaction block pages on SUI blockchain", chunk.size(), e);
             }
-            
-            // Parse transaction data - this is simplified, real Solana tx parsing is more complex
-            JsonNode meta = result.get("meta");
-            JsonNode transaction = result.get("transaction");
-            JsonNode message = transaction.get("message");
-            
-            // In a real implementation, you would need to decode the instruction data
-            // and match account indices to actual addresses
-            String from = message.get("accountKeys").get(0).asText();
-            String to = message.get("accountKeys").get(1).asText();
-            
-            // For simplicity, we're using a placeholder amount
-            // In a real implementation, you would parse the token transfer amount
-            double amount = 1.0; // Placeholder
-            
-            // Build the DTO
-            TransactionDTO dto = new TransactionDTO();
-            dto.setBlockChain(WalletChain.SOL);
-            dto.setTxHash(txHash);
-            dto.setFromAddress(from);
-            dto.setToAddress(to);
-            dto.setWalletAddress(to); // Assuming recipient is the wallet we're tracking
-            dto.setAmount(amount);
-            dto.setAsset(AssetType.SOL);
-            
-            // Get timestamp if available
-            if (result.has("blockTime")) {
-                long blockTime = result.get("blockTime").asLong();
-                dto.setTimestamp(Instant.ofEpochSecond(blockTime));
+        }
+        return pages;
+    }
+
+    /**
+     * Converts a single decoded JSON-RPC reply into a lookup result
+     */
+    private TransactionLookup toLookup(String txHash, JsonRpcReply<TransactionDTO> reply) {
+        if (reply.isError()) {
+            return TransactionLookup.failure(txHash, reply.getError());
+        }
+        if (reply.getResult() == null) {
+            return TransactionLookup.notFound(txHash);
+        }
+
+        TransactionDTO transaction = reply.getResult();
+        transaction.setTxHash(txHash);
+        return TransactionLookup.success(txHash, transaction);
+    }
+
+    /**
+     * Caches a lookup. An EVM transaction without a block timestamp is either pending
+     * or its block header could not be fetched, and is not cached; one in a block
+     * less than {@code confirmation.depth} deep is cached only for a short while.
+     */
+    private void cacheLookup(WalletChain chain, TransactionLookup lookup) {
+        if (!lookup.isSuccess() || !isEvm(chain)) {
+            transactionCache.put(chain, lookup, true);
+            return;
+        }
+        TransactionDTO transaction = lookup.getTransaction();
+        Long blockNumber = EvmChainAdapter.blockNumberOf(transaction);
+        if (transaction.getTimestamp() == null || blockNumber == null) {
+            return;
+        }
+        transactionCache.put(chain, lookup, blockHeaderCache.isFinal(chain, blockNumber));
+    }
+
+    /**
+     * Fetches EVM block headers, from the shared header cache where possible and in
+     * JSON-RPC batches otherwise. Blocks the provider does not know are left out.
+     *
+     * @param chain An EVM blockchain
+     * @param blockNumbers The block numbers
+     * @return The headers by block number
+     */
+    public Map<Long, BlockHeader> getBlockHeaders(WalletChain chain, Collection<Long> blockNumbers) {
+        EvmChainAdapter adapter = evmAdapter(chain);
+        Map<Long, BlockHeader> headers = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long blockNumber : new LinkedHashSet<>(blockNumbers)) {
+            BlockHeader cached = blockHeaderCache.get(chain, blockNumber);
+            if (cached != null) {
+                headers.put(blockNumber, cached);
             } else {
-                dto.setTimestamp(Instant.now());
+                missing.add(blockNumber);
             }
-            
-            // Store raw data for reference
-            Map<String, Object> rawData = new HashMap<>();
-            rawData.put("fee", meta.get("fee").asText());
-            rawData.put("slot", result.get("slot").asText());
-            dto.setRawData(rawData);
-            
-            return dto;
-            
-        } catch (Exception e) {
-            log.error("Error fetching Solana transaction: {}", txHash, e);
-            throw new RuntimeException("Failed to fetch Solana transaction: " + e.getMessage(), e);
         }
+
+        for (int start = 0; start < missing.size(); start += batchSize) {
+            byte[] requestBody = adapter.getBlockHeaderRequest().renderBatch(missing.subList(start,
+                    Math.min(start + batchSize, missing.size())).stream().map(HexQuantity::toHex).toList());
+            List<JsonRpcReply<BlockHeader>> replies = rpcDispatcher.execute(chain,
+                    endpoint -> post(endpoint.getUrl(), requestBody, body -> JsonRpcReader.readBatch(
+                            objectMapper.getFactory(), body, adapter.getBlockHeaderDecoder())));
+            collectHeaders(chain, replies, headers);
+        }
+
+        return headers;
     }
-    
+
     /**
-     * Fetches a BSC transaction by its hash
-     * BSC uses the same format as Ethereum
+     * @param chain An EVM blockchain
+     * @return The number of the chain's latest block
      */
-    private TransactionDTO getBscTransaction(String txHash) {
-        try {
-            // Create JSON-RPC request body
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("jsonrpc", "2.0");
-            requestBody.put("method", "eth_getTransactionByHash");
-            requestBody.put("id", 1);
-            requestBody.putArray("params").add(txHash);
-            
-            // Make the request
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> request = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-            
-            String response = restTemplate.postForObject(bscRpcUrl, request, String.class);
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            // Extract transaction data
-            JsonNode result = jsonResponse.get("result");
-            if (result == null || result.isNull()) {
-                throw new RuntimeException("Transaction not found: " + txHash);
+    public long getLatestBlockNumber(WalletChain chain) {
+        EvmChainAdapter adapter = evmAdapter(chain);
+        byte[] requestBody = adapter.getBlockHeaderRequest().render("latest", 1);
+        JsonRpcReply<BlockHeader> reply = rpcDispatcher.execute(chain, endpoint -> post(endpoint.getUrl(), requestBody,
+                body -> JsonRpcReader.readSingle(objectMapper.getFactory(), body, adapter.getBlockHeaderDecoder())));
+        if (reply.isError() || reply.getResult() == null) {
+            throw new RpcException("Latest block lookup failed on " + chain + " blockchain: " + reply.getError());
+        }
+
+        blockHeaderCache.put(chain, reply.getResult());
+        return reply.getResult().getNumber();
+    }
+
+    /**
+     * Fetches full EVM blocks in one JSON-RPC batch and keeps only the transactions
+     * from or to a tracked wallet. The headers go to the shared header cache.
+     *
+     * @param chain An EVM blockchain
+     * @param blockNumbers The block numbers, sent as a single batch
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return The blocks by number; blocks the provider does not have yet are left out
+     */
+    public Map<Long, EvmBlock> getBlocks(WalletChain chain, List<Long> blockNumbers, Predicate<String> isTracked) {
+        EvmChainAdapter adapter = evmAdapter(chain);
+        byte[] requestBody = adapter.getBlockRequest().renderBatch(
+                blockNumbers.stream().map(HexQuantity::toHex).toList());
+        List<JsonRpcReply<EvmBlock>> replies = rpcDispatcher.execute(chain, endpoint -> post(endpoint.getUrl(),
+                requestBody, body -> JsonRpcReader.readBatch(objectMapper.getFactory(), body,
+                        adapter.getBlockDecoder(isTracked))));
+
+        Map<Long, EvmBlock> blocks = new HashMap<>();
+        for (JsonRpcReply<EvmBlock> reply : replies) {
+            if (reply.isError()) {
+                log.warn("Block lookup failed on {} blockchain: {}", chain, reply.getError());
+            } else if (reply.getResult() != null) {
+                EvmBlock block = reply.getResult();
+                blockHeaderCache.put(chain, block.getHeader());
+                blocks.put(block.getHeader().getNumber(), block);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return The logs bloom bits of each token contract known on the EVM chain
+     */
+    public long[] getTokenBloomBits(WalletChain chain) {
+        return evmAdapter(chain).getTokenBloomBits();
+    }
+
+    /**
+     * Fetches the ERC-20 transfers of known tokens from or to tracked wallets, with
+     * one {@code eth_getLogs} call per block range, all in one JSON-RPC batch. A
+     * failed range fails the whole call, so that no block's transfers are skipped.
+     *
+     * @param chain An EVM blockchain
+     * @param ranges The block ranges to search
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return The transfers, without timestamps
+     */
+    public List<TransactionDTO> getTransferLogs(WalletChain chain, List<BlockRange> ranges,
+            Predicate<String> isTracked) {
+        EvmChainAdapter adapter = evmAdapter(chain);
+        byte[] requestBody = adapter.renderTransferLogsBatch(ranges);
+        List<JsonRpcReply<List<TransactionDTO>>> replies = rpcDispatcher.execute(chain,
+                endpoint -> post(endpoint.getUrl(), requestBody, body -> JsonRpcReader.readBatch(
+                        objectMapper.getFactory(), body, adapter.getTransferLogDecoder(isTracked))));
+
+        List<TransactionDTO> transfers = new ArrayList<>();
+        for (JsonRpcReply<List<TransactionDTO>> reply : replies) {
+            if (reply.isError()) {
+                throw new RpcException("Log lookup failed on " + chain + " blockchain: " + reply.getError());
+            }
+            if (reply.getResult() != null) {
+                transfers.addAll(reply.getResult());
             }
-            
-            // Parse transaction data
-            String from = result.get("from").asText();
-            String to = result.get("to").asText();
-            
-            // Convert hex value to decimal
-            String valueHex = result.get("value").asText();
-            BigInteger valueWei = new BigInteger(valueHex.substring(2), 16);
-            BigDecimal valueBnb = new BigDecimal(valueWei).divide(new BigDecimal("1000000000000000000"));
-            
-            // Build the DTO
-            TransactionDTO dto = new TransactionDTO();
-            dto.setBlockChain(WalletChain.BSC);
-            dto.setTxHash(txHash);
-            dto.setFromAddress(from);
-            dto.setToAddress(to);
-            dto.setWalletAddress(to); // Assuming recipient is the wallet we're tracking
-            dto.setAmount(valueBnb.doubleValue());
-            dto.setAsset(AssetType.BTC); // Using BTC as a placeholder, would need proper token detection
-            dto.setTimestamp(Instant.now()); // BSC doesn't include timestamp in tx, would need block data
-            
-            // Store raw data for reference
-            Map<String, Object> rawData = new HashMap<>();
-            rawData.put("gasPrice", result.get("gasPrice").asText());
-            rawData.put("gasUsed", result.get("gas").asText());
-            rawData.put("nonce", result.get("nonce").asText());
-            dto.setRawData(rawData);
-            
-            return dto;
-            
+        }
+        if (replies.size() < ranges.size()) {
+            throw new RpcException("Log lookup on " + chain + " blockchain answered " + replies.size()
+                    + " of " + ranges.size() + " block ranges");
+        }
+        return transfers;
+    }
+
+    /**
+     * Sets the block time of EVM transactions from their block headers; transactions
+     * that are still pending keep a null timestamp
+     */
+    private void resolveBlockTimestamps(WalletChain chain, List<TransactionDTO> transactions) {
+        if (!isEvm(chain) || transactions.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<TransactionDTO>> byBlock = groupByBlock(transactions);
+        if (byBlock.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, BlockHeader> headers = getBlockHeaders(chain, byBlock.keySet());
+            byBlock.forEach((blockNumber, blockTransactions) -> applyHeader(headers.get(blockNumber), blockTransactions));
         } catch (Exception e) {
-            log.error("Error fetching BSC transaction: {}", txHash, e);
-            throw new RuntimeException("Failed to fetch BSC transaction: " + e.getMessage(), e);
+            log.warn("Could not resolve block timestamps for {} transactions on {} blockchain: {}",
+                    transactions.size(), chain, e.getMessage());
         }
     }
     
     /**
-     * Fetches a SUI transaction by its hash
+     * Non-blocking variant of {@link #resolveBlockTimestamps} for a single transaction
      */
-    private TransactionDTO getSuiTransaction(String txHash) {
-        try {
-            // Create JSON-RPC request body
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("jsonrpc", "2.0");
-            requestBody.put("method", "sui_getTransaction");
-            requestBody.put("id", 1);
-            requestBody.putArray("params").add(txHash);
-            
-            // Make the request
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> request = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-            
-            String response = restTemplate.postForObject(suiRpcUrl, request, String.class);
-            JsonNode jsonResponse = objectMapper.readTree(response);
-            
-            // Extract transaction data
-            JsonNode result = jsonResponse.get("result");
-            if (result == null || result.isNull()) {
-                throw new RuntimeException("Transaction not found: " + txHash);
+    private CompletableFuture<Void> resolveBlockTimestampAsync(WalletChain chain, TransactionDTO transaction) {
+        if (!isEvm(chain)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Long blockNumber = EvmChainAdapter.blockNumberOf(transaction);
+        if (blockNumber == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        BlockHeader cached = blockHeaderCache.get(chain, blockNumber);
+        if (cached != null) {
+            applyHeader(cached, List.of(transaction));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        EvmChainAdapter adapter = evmAdapter(chain);
+        byte[] requestBody = adapter.getBlockHeaderRequest().render(HexQuantity.toHex(blockNumber), 1);
+        return rpcDispatcher.executeAsync(chain, endpoint -> postAsync(endpoint.getUrl(), requestBody,
+                        body -> JsonRpcReader.readSingle(objectMapper.getFactory(), body, adapter.getBlockHeaderDecoder())))
+                .thenAccept(reply -> {
+                    Map<Long, BlockHeader> headers = new HashMap<>();
+                    collectHeaders(chain, List.of(reply), headers);
+                    applyHeader(headers.get(blockNumber), List.of(transaction));
+                })
+                .exceptionally(e -> {
+                    log.warn("Could not resolve block timestamp for transaction {} on {} blockchain: {}",
+                            transaction.getTxHash(), chain, e.getMessage());
+                    return null;
+                });
+    }
+
+    private void collectHeaders(WalletChain chain, List<JsonRpcReply<BlockHeader>> replies,
+            Map<Long, BlockHeader> headers) {
+        for (JsonRpcReply<BlockHeader> reply : replies) {
+            if (reply.isError()) {
+                log.warn("Block header lookup failed on {} blockchain: {}", chain, reply.getError());
+            } else if (reply.getResult() != null) {
+                BlockHeader header = reply.getResult();
+                blockHeaderCache.put(chain, header);
+                headers.put(header.getNumber(), header);
             }
-            
-            // Parse transaction data - this is simplified, real SUI tx parsing is more complex
-            JsonNode transaction = result.get("transaction");
-            JsonNode data = transaction.get("data");
-            
-            // In a real implementation, you would need to decode the transaction data
-            // and extract the sender, recipient, and amount
-            String from = data.get("sender").asText();
-            String to = "unknown"; // Placeholder, would need to extract from tx data
-            
-            // For simplicity, we're using a placeholder amount
-            double amount = 1.0; // Placeholder
-            
-            // Build the DTO
-            TransactionDTO dto = new TransactionDTO();
-            dto.setBlockChain(WalletChain.SUI);
-            dto.setTxHash(txHash);
-            dto.setFromAddress(from);
-            dto.setToAddress(to);
-            dto.setWalletAddress(to); // Assuming recipient is the wallet we're tracking
-            dto.setAmount(amount);
-            dto.setAsset(AssetType.BTC); // Using BTC as a placeholder, would need proper token detection
-            
-            // Get timestamp if available
-            if (result.has("timestampMs")) {
-                long timestampMs = result.get("timestampMs").asLong();
-                dto.setTimestamp(Instant.ofEpochMilli(timestampMs));
-            } else {
-                dto.setTimestamp(Instant.now());
+        }
+    }
+
+    private static Map<Long, List<TransactionDTO>> groupByBlock(List<TransactionDTO> transactions) {
+        Map<Long, List<TransactionDTO>> byBlock = new HashMap<>();
+        for (TransactionDTO transaction : transactions) {
+            Long blockNumber = EvmChainAdapter.blockNumberOf(transaction);
+            if (blockNumber != null) {
+                byBlock.computeIfAbsent(blockNumber, k -> new ArrayList<>()).add(transaction);
             }
-            
-            // Store raw data for reference
-            Map<String, Object> rawData = new HashMap<>();
-            rawData.put("digest", transaction.get("digest").asText());
-            rawData.put("effects", result.get("effects").toString());
-            dto.setRawData(rawData);
-            
-            return dto;
-            
-        } catch (Exception e) {
-            log.error("Error fetching SUI transaction: {}", txHash, e);
-            throw new RuntimeException("Failed to fetch SUI transaction: " + e.getMessage(), e);
         }
+        return byBlock;
+    }
+
+    private static void applyHeader(BlockHeader header, List<TransactionDTO> transactions) {
+        if (header != null) {
+            transactions.forEach(transaction -> transaction.setTimestamp(header.getTimestamp()));
+        }
+    }
+
+    private ChainAdapter adapter(WalletChain chain) {
+        ChainAdapter adapter = adapters.get(chain);
+        if (adapter == null) {
+            throw new IllegalArgumentException("Unsupported blockchain: " + chain);
+        }
+        return adapter;
+    }
+
+    private EvmChainAdapter evmAdapter(WalletChain chain) {
+        if (!(adapter(chain) instanceof EvmChainAdapter evmAdapter)) {
+            throw new IllegalArgumentException("Not an EVM blockchain: " + chain);
+        }
+        return evmAdapter;
+    }
+
+    private SolanaChainAdapter solanaAdapter() {
+        if (!(adapter(WalletChain.SOL) instanceof SolanaChainAdapter solanaAdapter)) {
+            throw new IllegalArgumentException("No Solana chain adapter");
+        }
+        return solanaAdapter;
+    }
+
+    private SuiChainAdapter suiAdapter() {
+        if (!(adapter(WalletChain.SUI) instanceof SuiChainAdapter suiAdapter)) {
+            throw new IllegalArgumentException("No Sui chain adapter");
+        }
+        return suiAdapter;
+    }
+
+    /**
+     * @return true if the chain speaks the Ethereum JSON-RPC API
+     */
+    public boolean isEvm(WalletChain chain) {
+        return adapters.get(chain) instanceof EvmChainAdapter;
+    }
+
+    /**
+     * Looks a transaction up in the cache, or posts a single lookup to the chain's best
+     * endpoint and decodes its {@code result}
+     */
+    private TransactionDTO fetchTransaction(ChainAdapter adapter, String txHash) {
+        WalletChain chain = adapter.getChain();
+        TransactionLookup cached = transactionCache.get(chain, txHash);
+        if (cached != null) {
+            log.debug("Transaction {} on {} blockchain served from cache", txHash, chain);
+            return unwrap(cached);
+        }
+
+        byte[] requestBody = adapter.getTransactionRequest().render(txHash, 1);
+        JsonValueDecoder<TransactionDTO> decoder = adapter.getTransactionDecoder();
+
+        JsonRpcReply<TransactionDTO> reply = rpcDispatcher.execute(chain, endpoint -> post(endpoint.getUrl(),
+                requestBody, body -> JsonRpcReader.readSingle(objectMapper.getFactory(), body, decoder)));
+
+        TransactionLookup lookup = toLookup(txHash, reply);
+        if (lookup.isSuccess()) {
+            resolveBlockTimestamps(chain, List.of(lookup.getTransaction()));
+        }
+        cacheLookup(chain, lookup);
+        return unwrap(lookup);
+    }
+
+    private static TransactionDTO unwrap(TransactionLookup lookup) {
+        if (!lookup.isSuccess()) {
+            throw new RuntimeException(lookup.getError());
+        }
+        return lookup.getTransaction();
+    }
+
+    /**
+     * Posts a JSON-RPC request body (single call or batch array) and hands the response
+     * stream to the reader
+     */
+    private <T> T post(String url, byte[] requestBody, ResponseReader<T> reader) {
+        try {
+            return restTemplate.execute(url, HttpMethod.POST,
+                    request -> {
+                        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                        request.getBody().write(requestBody);
+                        transportMetrics.recordSent(RpcTransportMetrics.BLOCKING, requestBody.length);
+                    },
+                    response -> {
+                        try (InputStream body = transportMetrics.wrapResponse(RpcTransportMetrics.BLOCKING,
+                                response.getBody(), response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                            return reader.read(body);
+                        }
+                    });
+        } catch (HttpStatusCodeException e) {
+            throw new RpcException("RPC request failed with HTTP status " + e.getStatusCode().value(),
+                    e.getStatusCode().value(), e);
+        }
+    }
+    
+    /**
+     * Posts a JSON-RPC request body on the non-blocking HTTP client and hands the
+     * response stream to the reader once the headers arrive
+     */
+    private <T> CompletableFuture<T> postAsync(String url, byte[] requestBody, ResponseReader<T> reader) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(asyncRequestTimeoutMs))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
+                .build();
+        transportMetrics.recordSent(RpcTransportMetrics.ASYNC, requestBody.length);
+
+        return blockchainHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    // Closing the stream releases the connection even when the body is not read
+                    try (InputStream raw = response.body()) {
+                        if (response.statusCode() / 100 != 2) {
+                            throw new RpcException("RPC request failed with HTTP status " + response.statusCode(),
+                                    response.statusCode());
+                        }
+                        try (InputStream body = transportMetrics.wrapResponse(RpcTransportMetrics.ASYNC, raw,
+                                response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null))) {
+                            return reader.read(body);
+                        }
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
     }
 }
@@ -0,0 +1,136 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.WalletChain;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Holds scanned EVM blocks, with the tracked-wallet transactions found in them,
+ * until they are deep enough to be final. Each block added must extend the one
+ * buffered below it; one that does not means the chain reorganized, and the
+ * buffered blocks from the fork on are dropped so they can be read again.
+ *
+ * <p>Confirmed transactions that could not be stored are handed back and released
+ * again, ahead of the others, by the next {@link #confirm}.
+ *
+ * <p>Callers serialize access per chain; the block scanner does so with its scan lock.
+ * Handing transactions back may happen outside it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConfirmationBuffer {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<WalletChain, NavigableMap<Long, PendingBlock>> pending = new ConcurrentHashMap<>();
+    // Built on a chain's first reorg rather than looked up on every one
+    private final Map<WalletChain, Counter> reorgCounters = new ConcurrentHashMap<>();
+    // Released transactions handed back because they could not be stored
+    private final Map<WalletChain, Queue<TransactionDTO>> unstored = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a block unless it does not extend the buffered block below it. A block
+     * with nothing buffered below it, e.g. the first one scanned, is always added.
+     *
+     * @return false if the block's parent hash does not match; nothing is added then
+     */
+    public boolean append(WalletChain chain, BlockHeader header, List<TransactionDTO> transactions) {
+        NavigableMap<Long, PendingBlock> blocks = blocks(chain);
+        PendingBlock parent = blocks.get(header.getNumber() - 1);
+        if (parent != null && !parent.header.getHash().equalsIgnoreCase(header.getParentHash())) {
+            return false;
+        }
+        blocks.put(header.getNumber(), new PendingBlock(header, transactions));
+        return true;
+    }
+
+    /**
+     * Drops the buffered blocks from the given one up, after a reorganization
+     *
+     * @return Their transactions, which are no longer on the chain
+     */
+    public List<TransactionDTO> rollBack(WalletChain chain, long fromBlock) {
+        NavigableMap<Long, PendingBlock> dropped = blocks(chain).tailMap(fromBlock, true);
+        List<TransactionDTO> orphaned = new ArrayList<>();
+        dropped.values().forEach(block -> orphaned.addAll(block.transactions));
+        reorgCounters.computeIfAbsent(chain, k -> Counter.builder("blockchain_reorg_blocks_total")
+                        .tag("chain", chain.name())
+                        .description("Buffered blocks dropped because the chain reorganized")
+                        .register(meterRegistry))
+                .increment(dropped.size());
+        dropped.clear();
+        return orphaned;
+    }
+
+    /**
+     * Releases the blocks up to the given one, which are now final
+     *
+     * @return The transactions handed back since the last call, then those of the
+     *         released blocks, oldest block first
+     */
+    public List<TransactionDTO> confirm(WalletChain chain, long upToBlock) {
+        NavigableMap<Long, PendingBlock> confirmed = blocks(chain).headMap(upToBlock, true);
+        List<TransactionDTO> transactions = new ArrayList<>();
+        Queue<TransactionDTO> retries = unstored.get(chain);
+        for (TransactionDTO retry; retries != null && (retry = retries.poll()) != null; ) {
+            transactions.add(retry);
+        }
+        confirmed.values().forEach(block -> transactions.addAll(block.transactions));
+        confirmed.clear();
+        return transactions;
+    }
+
+    /**
+     * Hands back released transactions that could not be stored, so the next
+     * {@link #confirm} releases them again
+     */
+    public void requeue(WalletChain chain, List<TransactionDTO> transactions) {
+        unstored.computeIfAbsent(chain, k -> new ConcurrentLinkedQueue<>()).addAll(transactions);
+    }
+
+    /**
+     * Forgets the chain's pending blocks and handed-back transactions, e.g. once no
+     * wallet on it is tracked. Whoever scans the chain next reads them again from
+     * the stored cursor, which stays before them.
+     */
+    public void clear(WalletChain chain) {
+        Queue<TransactionDTO> retries = unstored.get(chain);
+        if (retries != null) {
+            retries.clear();
+        }
+        NavigableMap<Long, PendingBlock> blocks = pending.get(chain);
+        if (blocks != null && !blocks.isEmpty()) {
+            log.info("Dropping {} unconfirmed {} blocks", blocks.size(), chain);
+            blocks.clear();
+        }
+    }
+
+    private NavigableMap<Long, PendingBlock> blocks(WalletChain chain) {
+        return pending.computeIfAbsent(chain, k -> {
+            NavigableMap<Long, PendingBlock> blocks = new ConcurrentSkipListMap<>();
+            Gauge.builder("blockchain_confirmation_pending_blocks", blocks, Map::size)
+                    .tag("chain", chain.name())
+                    .description("Scanned blocks waiting for enough confirmations")
+                    .register(meterRegistry);
+            return blocks;
+        });
+    }
+
+    private record PendingBlock(BlockHeader header, List<TransactionDTO> transactions) {
+    }
+}
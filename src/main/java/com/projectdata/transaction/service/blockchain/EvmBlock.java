@@ -0,0 +1,21 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A scanned EVM block: its header, its logs bloom and those of its transactions
+ * that touch a tracked wallet. The other transactions are skipped while decoding.
+ */
+@Getter
+@AllArgsConstructor
+public class EvmBlock {
+
+    private final BlockHeader header;
+    // Null if the provider did not send a well-formed bloom
+    private final byte[] logsBloom;
+    private final List<TransactionDTO> matchedTransactions;
+}
@@ -0,0 +1,332 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.config.ChainProperties;
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.adapter.EvmChainAdapter;
+import com.projectdata.transaction.service.blockchain.adapter.LogsBloom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Finds tracked-wallet transactions on EVM chains by reading every new block once,
+ * with full transactions, and matching each {@code from}/{@code to} against the
+ * tracked addresses in memory. The RPC cost follows the chain's block rate, not
+ * the number of wallets. The addresses are kept decoded in an {@link AddressSet},
+ * so matching a transaction allocates nothing and millions of wallets fit in a
+ * small heap.
+ *
+ * <p>ERC-20 transfers only show up in logs. A block's {@code logsBloom} is checked
+ * for the Transfer topic, any known token contract and the topic of any tracked
+ * address first, and {@code eth_getLogs} is only called, for the known token
+ * contracts, on the ranges of blocks that pass. Past
+ * {@code scanner.bloom-address-limit} tracked addresses on a chain, nearly every
+ * block with a Transfer would pass anyway, so the addresses are not checked.
+ *
+ * <p>Each chain keeps a cursor on the next block to read. Scanning starts at the
+ * head when the first wallet of a chain is tracked. A scanner that falls behind
+ * catches up {@code scanner.max-blocks-per-scan} blocks at a time and never skips
+ * any; past {@code scanner.max-lag} blocks behind it logs a warning, and the lag is
+ * exported as a gauge to alert on. After a restart it resumes after the last block confirmed before it, stored in the
+ * {@link TrackedWalletRegistry}, so the blocks that were still unconfirmed are read
+ * again rather than skipped. With several replicas only the one leading the chain
+ * in the {@link ShardLeaseManager} scans it; another that takes over resumes from
+ * the stored cursor the same way.
+ *
+ * <p>Blocks wait in the {@link ConfirmationBuffer} until {@code confirmation.depth}
+ * blocks are on top of them. A block whose parent hash does not match the buffered
+ * block below it means the chain reorganized: the buffered block is dropped and the
+ * cursor moves back onto it, one block at a time until the chains meet again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EvmBlockScanner {
+
+    private final BlockchainRpcClient rpcClient;
+    private final ChainProperties chainProperties;
+    private final ConfirmationBuffer confirmationBuffer;
+    private final TrackedWalletRegistry walletRegistry;
+    private final ShardLeaseManager shardLeases;
+    private final MeterRegistry meterRegistry;
+
+    private static final long TRANSFER_BLOOM_BITS = LogsBloom.bitsOfTopic(EvmChainAdapter.TRANSFER_TOPIC);
+
+    private static final int ADDRESS_BYTES = 20;
+
+    // Tracked addresses, each with the bloom bits of its topic. Matched in any case,
+    // since nodes return addresses lowercase and wallets may be registered checksummed.
+    private final Map<WalletChain, AddressSet> trackedAddresses = new ConcurrentHashMap<>();
+    private final Map<WalletChain, ScanState> states = new ConcurrentHashMap<>();
+
+    public void track(WalletChain chain, String address) {
+        if (!EvmChainAdapter.isAddress(address)) {
+            log.warn("Cannot match {} on {} blockchain, it is not a 0x-prefixed {}-byte hex address",
+                    address, chain, ADDRESS_BYTES);
+            return;
+        }
+        trackedAddresses.computeIfAbsent(chain, k -> new AddressSet(ADDRESS_BYTES))
+                .add(address, LogsBloom.bitsOfTopic(EvmChainAdapter.addressTopic(address)));
+    }
+
+    public void untrack(WalletChain chain, String address) {
+        AddressSet addresses = trackedAddresses.get(chain);
+        if (addresses != null) {
+            addresses.remove(address);
+        }
+    }
+
+    /**
+     * Reads the blocks added since the last scan, up to {@code scanner.max-blocks-per-scan}
+     * of them, and releases the buffered blocks that are now deep enough. A scan of a
+     * chain that is already being scanned, or led by another node, finds nothing. If a call fails midway, the
+     * cursor stays after the last block fully read and what was found up to there
+     * is returned.
+     *
+     * @param chain An EVM blockchain
+     * @return The transactions from or to a tracked wallet, each list in block order
+     */
+    public ScanResult scan(WalletChain chain) {
+        AddressSet addresses = trackedAddresses.computeIfAbsent(chain, k -> new AddressSet(ADDRESS_BYTES));
+        ScanState state = states.computeIfAbsent(chain, this::newState);
+        if (!state.lock.tryLock()) {
+            return ScanResult.EMPTY;
+        }
+
+        try {
+            if (!shardLeases.leads(chain)) {
+                // Resumes from the stored cursor if the lead comes back
+                state.nextBlock = null;
+                confirmationBuffer.clear(chain);
+                return ScanResult.EMPTY;
+            }
+            if (addresses.isEmpty()) {
+                // Nothing to match; start again from the head once a wallet is tracked
+                state.nextBlock = null;
+                confirmationBuffer.clear(chain);
+                return ScanResult.EMPTY;
+            }
+
+            long head = rpcClient.getLatestBlockNumber(chain);
+            state.head = head;
+            int maxLag = chainProperties.getInt(chain, "scanner.max-lag", 1000);
+            if (state.nextBlock == null) {
+                Long confirmedThrough = walletRegistry.scanCursor(chain);
+                state.nextBlock = confirmedThrough != null ? confirmedThrough + 1 : head;
+                log.info("Starting {} block scan at block {}", chain, state.nextBlock);
+            }
+            boolean lagging = head - state.nextBlock >= maxLag;
+            if (lagging != state.lagging) {
+                state.lagging = lagging;
+                if (lagging) {
+                    log.warn("{} block scanner is {} blocks behind at block {}, catching up",
+                            chain, head - state.nextBlock + 1, state.nextBlock);
+                } else {
+                    log.info("{} block scanner caught up to within {} blocks of the head", chain, maxLag);
+                }
+            }
+
+            ScanResult result = new ScanResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), null);
+            try {
+                readNewBlocks(chain, state, head, addresses, result);
+            } catch (RuntimeException e) {
+                if (result.isEmpty()) {
+                    throw e;
+                }
+                log.warn("{} block scan stopped at block {}: {}", chain, state.nextBlock, e.getMessage());
+            }
+
+            // A block is final once it and depth - 1 blocks on top of it are on the chain
+            int depth = chainProperties.getInt(chain, "confirmation.depth", 12);
+            long confirmedThrough = Math.min(state.nextBlock - 1, head - depth + 1);
+            result.confirmed().addAll(confirmationBuffer.confirm(chain, confirmedThrough));
+            return new ScanResult(result.provisional(), result.confirmed(), result.orphaned(), confirmedThrough);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private void readNewBlocks(WalletChain chain, ScanState state, long head, AddressSet addresses,
+            ScanResult result) {
+        int maxBlocks = chainProperties.getInt(chain, "scanner.max-blocks-per-scan", 50);
+        int batchSize = chainProperties.getInt(chain, "scanner.batch-size", 10);
+        long last = Math.min(head, state.nextBlock + maxBlocks - 1);
+
+        batches:
+        while (state.nextBlock <= last) {
+            List<Long> blockNumbers = new ArrayList<>();
+            for (long n = state.nextBlock; n <= last && blockNumbers.size() < batchSize; n++) {
+                blockNumbers.add(n);
+            }
+
+            List<EvmBlock> blocks = readBlocks(chain, blockNumbers, addresses);
+            Map<Long, List<TransactionDTO>> transfers = readTransfers(chain, state, blocks, addresses).stream()
+                    .filter(transfer -> EvmChainAdapter.blockNumberOf(transfer) != null)
+                    .collect(Collectors.groupingBy(EvmChainAdapter::blockNumberOf));
+
+            for (EvmBlock block : blocks) {
+                BlockHeader header = block.getHeader();
+                List<TransactionDTO> transactions = new ArrayList<>(block.getMatchedTransactions());
+                transactions.addAll(transfers.getOrDefault(header.getNumber(), List.of()));
+
+                if (!confirmationBuffer.append(chain, header, transactions)) {
+                    long forkCheck = header.getNumber() - 1;
+                    log.warn("{} block {} does not extend the buffered block {}, re-reading it",
+                            chain, header.getNumber(), forkCheck);
+                    for (TransactionDTO orphaned : confirmationBuffer.rollBack(chain, forkCheck)) {
+                        // Blocks read earlier in this scan were never reported, so they need no retraction
+                        if (!result.provisional().remove(orphaned)) {
+                            result.orphaned().add(orphaned);
+                        }
+                    }
+                    state.nextBlock = forkCheck;
+                    continue batches;
+                }
+                result.provisional().addAll(transactions);
+                state.nextBlock = header.getNumber() + 1;
+                state.blocks.increment();
+                state.matches.increment(transactions.size());
+            }
+            if (blocks.size() < blockNumbers.size()) {
+                // Not served yet, e.g. by a lagging node; try again next scan
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The leading blocks the provider returned, in order, up to the first one missing
+     */
+    private List<EvmBlock> readBlocks(WalletChain chain, List<Long> blockNumbers, AddressSet addresses) {
+        Map<Long, EvmBlock> blocks = rpcClient.getBlocks(chain, blockNumbers, addresses::contains);
+        List<EvmBlock> available = new ArrayList<>();
+        for (Long blockNumber : blockNumbers) {
+            EvmBlock block = blocks.get(blockNumber);
+            if (block == null) {
+                break;
+            }
+            available.add(block);
+        }
+        return available;
+    }
+
+    /**
+     * Reads the Transfer logs of the blocks whose bloom may hold one from or to a
+     * tracked address, merging consecutive candidate blocks into a single range
+     */
+    private List<TransactionDTO> readTransfers(WalletChain chain, ScanState state, List<EvmBlock> blocks,
+            AddressSet addresses) {
+        List<BlockRange> ranges = new ArrayList<>();
+        Map<Long, Instant> timestamps = new HashMap<>();
+        long[] tokenBits = rpcClient.getTokenBloomBits(chain);
+        int bloomAddressLimit = chainProperties.getInt(chain, "scanner.bloom-address-limit", 1000);
+        int skipped = 0;
+        for (EvmBlock block : blocks) {
+            long number = block.getHeader().getNumber();
+            if (!mightHoldTransfers(block.getLogsBloom(), tokenBits, addresses, bloomAddressLimit)) {
+                skipped++;
+                continue;
+            }
+            timestamps.put(number, block.getHeader().getTimestamp());
+            BlockRange previous = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (previous != null && previous.to() == number - 1) {
+                ranges.set(ranges.size() - 1, new BlockRange(previous.from(), number));
+            } else {
+                ranges.add(new BlockRange(number, number));
+            }
+        }
+        state.bloomSkipped.increment(skipped);
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+
+        List<TransactionDTO> transfers = rpcClient.getTransferLogs(chain, ranges, addresses::contains);
+        transfers.forEach(transfer -> transfer.setTimestamp(timestamps.get(EvmChainAdapter.blockNumberOf(transfer))));
+        return transfers;
+    }
+
+    /**
+     * Checking each tracked address costs a pass over the set per block, so past the
+     * limit the Transfer topic and the token contracts alone decide. Without known
+     * tokens there are no transfers to read.
+     */
+    private static boolean mightHoldTransfers(byte[] logsBloom, long[] tokenBits, AddressSet addresses,
+            int addressLimit) {
+        if (tokenBits.length == 0) {
+            return false;
+        }
+        if (logsBloom == null) {
+            return true;
+        }
+        if (!LogsBloom.mightContain(logsBloom, TRANSFER_BLOOM_BITS) || !mightContainAny(logsBloom, tokenBits)) {
+            return false;
+        }
+        return addresses.size() > addressLimit
+                || addresses.anyValueMatches(bits -> LogsBloom.mightContain(logsBloom, bits));
+    }
+
+    private static boolean mightContainAny(byte[] logsBloom, long[] bits) {
+        for (long itemBits : bits) {
+            if (LogsBloom.mightContain(logsBloom, itemBits)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ScanState newState(WalletChain chain) {
+        ScanState state = new ScanState(
+                Counter.builder("blockchain_scanner_blocks_total")
+                        .tag("chain", chain.name())
+                        .description("EVM blocks read by the block scanner")
+                        .register(meterRegistry),
+                Counter.builder("blockchain_scanner_matches_total")
+                        .tag("chain", chain.name())
+                        .description("Transactions of scanned blocks that touch a tracked wallet")
+                        .register(meterRegistry),
+                Counter.builder("blockchain_scanner_bloom_skipped_blocks_total")
+                        .tag("chain", chain.name())
+                        .description("Scanned blocks whose logs bloom ruled out transfers of tracked wallets")
+                        .register(meterRegistry));
+        Gauge.builder("blockchain_scanner_lag_blocks", state, ScanState::lag)
+                .tag("chain", chain.name())
+                .description("Blocks between the chain head and the block scanner's cursor")
+                .register(meterRegistry);
+        return state;
+    }
+
+    private static final class ScanState {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Built with the state, so each chain's counters are looked up once
+        private final Counter blocks;
+        private final Counter matches;
+        private final Counter bloomSkipped;
+        private volatile Long nextBlock;
+        private volatile long head;
+        private boolean lagging;
+
+        private ScanState(Counter blocks, Counter matches, Counter bloomSkipped) {
+            this.blocks = blocks;
+            this.matches = matches;
+            this.bloomSkipped = bloomSkipped;
+        }
+
+        private double lag() {
+            Long next = nextBlock;
+            return next == null ? 0 : Math.max(0, head - next + 1);
+        }
+    }
+}
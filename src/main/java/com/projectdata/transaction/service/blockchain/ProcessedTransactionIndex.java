@@ -0,0 +1,194 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.model.mongo.ProcessedTransaction;
+import com.projectdata.transaction.model.mongo.ProvisionalAlert;
+import com.projectdata.transaction.model.mongo.RawTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Tells whether the pipeline has processed a transaction already, across restarts
+ * and replicas, in memory that does not grow.
+ *
+ * <p>Each processed transaction, or token transfer, is claimed in
+ * {@code processed_transactions} under its key before it is stored, so a second
+ * claim fails whichever node attempts it. EVM hashes are keyed lowercase, see
+ * {@link TransactionKey}, so the same hash in a different case is caught too. The
+ * claims are kept apart from {@code raw_transactions}, which also holds the records
+ * users submit themselves: several wallets may record the same transaction there,
+ * and a record of theirs does not stop the pipeline from processing it.
+ *
+ * <p>A {@link RotatingBloomFilter} of recently claimed transactions sits in front of
+ * it, so that most new transactions are known to be new without asking Mongo;
+ * only the ones the filter may have seen are looked up.
+ *
+ * <p>Provisional alerts, sent before a transaction is confirmed, are claimed the
+ * same way in {@code provisional_alerts}, so that a block read again after a
+ * restart or by a node taking over the chain does not alert twice.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedTransactionIndex {
+
+    // Unique index on raw_transactions created by earlier versions, which rejected user records
+    private static final String LEGACY_UNIQUE_INDEX = "blockChain_txHash_logIndex_unique";
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Transactions per filter generation; two generations are kept
+    @Value("${blockchain.dedup.bloom.capacity:1000000}")
+    private int bloomCapacity;
+
+    @Value("${blockchain.dedup.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    // Newest claimed transactions loaded into the filter at startup
+    @Value("${blockchain.dedup.warm-up:100000}")
+    private int warmUp;
+
+    // How long a provisional alert is remembered; well past the time to confirm its block
+    @Value("${blockchain.dedup.provisional-alert-ttl:86400000}")
+    private long provisionalAlertTtlMs;
+
+    private RotatingBloomFilter recent;
+
+    // Checks by how they were answered
+    private Counter filteredChecks;
+    private Counter storedChecks;
+    private Counter falsePositiveChecks;
+
+    @PostConstruct
+    void init() {
+        recent = new RotatingBloomFilter(bloomCapacity, bloomFalsePositiveRate);
+        filteredChecks = checkCounter("filtered");
+        storedChecks = checkCounter("stored");
+        falsePositiveChecks = checkCounter("false_positive");
+        try {
+            dropLegacyIndex();
+            mongoTemplate.indexOps(ProvisionalAlert.class).ensureIndex(new Index()
+                    .on("alertedAt", Sort.Direction.ASC).expire(Duration.ofMillis(provisionalAlertTtlMs)));
+            warmUp();
+        } catch (DataAccessException e) {
+            log.warn("Could not load processed transactions into the dedup filter: {}", e.getMessage());
+        }
+    }
+
+    private void dropLegacyIndex() {
+        IndexOperations rawIndexes = mongoTemplate.indexOps(RawTransaction.class);
+        if (rawIndexes.getIndexInfo().stream().anyMatch(index -> LEGACY_UNIQUE_INDEX.equals(index.getName()))) {
+            rawIndexes.dropIndex(LEGACY_UNIQUE_INDEX);
+            log.info("Dropped unique index {} of raw transactions, processed transactions are claimed apart",
+                    LEGACY_UNIQUE_INDEX);
+        }
+    }
+
+    private void warmUp() {
+        mongoTemplate.indexOps(ProcessedTransaction.class)
+                .ensureIndex(new Index().on("processedAt", Sort.Direction.DESC));
+        Query newest = new Query().with(Sort.by(Sort.Direction.DESC, "processedAt")).limit(warmUp);
+        newest.fields().include("_id");
+        int loaded = 0;
+        for (ProcessedTransaction transaction : mongoTemplate.find(newest, ProcessedTransaction.class)) {
+            recent.add(transaction.getId());
+            loaded++;
+        }
+        log.info("Loaded {} processed transactions into the dedup filter", loaded);
+    }
+
+    /**
+     * @param chain The blockchain
+     * @param txHash The transaction hash
+     * @param logIndex The log index of a token transfer, or null for the transaction itself
+     * @return true if the transaction is claimed already
+     */
+    public boolean isProcessed(WalletChain chain, String txHash, Object logIndex) {
+        String key = key(chain, txHash, logIndex);
+        if (!recent.mightContain(key)) {
+            filteredChecks.increment();
+            return false;
+        }
+        boolean processed = mongoTemplate.exists(Query.query(Criteria.where("_id").is(key)), ProcessedTransaction.class);
+        (processed ? storedChecks : falsePositiveChecks).increment();
+        return processed;
+    }
+
+    /**
+     * Claims a transaction before it is stored
+     *
+     * @return false if it was claimed already, here or by another node
+     */
+    public boolean claim(WalletChain chain, String txHash, Object logIndex) {
+        String key = key(chain, txHash, logIndex);
+        recent.add(key);
+        try {
+            mongoTemplate.insert(new ProcessedTransaction(key, chain, TransactionKey.of(chain, txHash).txHash(),
+                    Instant.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives up the claim of a transaction that could not be stored, so it is processed again
+     */
+    public void release(WalletChain chain, String txHash, Object logIndex) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(key(chain, txHash, logIndex))),
+                ProcessedTransaction.class);
+    }
+
+    /**
+     * Claims the provisional alert of a transaction before it is sent
+     *
+     * @return false if it was claimed already, here or by another node
+     */
+    public boolean claimProvisionalAlert(WalletChain chain, String txHash, Object logIndex) {
+        try {
+            mongoTemplate.insert(new ProvisionalAlert(key(chain, txHash, logIndex), chain,
+                    TransactionKey.of(chain, txHash).txHash(), Instant.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives up the claim of a provisional alert once it is withdrawn, so the
+     * transaction is alerted again if a later block holds it
+     */
+    public void releaseProvisionalAlert(WalletChain chain, String txHash, Object logIndex) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(key(chain, txHash, logIndex))),
+                ProvisionalAlert.class);
+    }
+
+    private static String key(WalletChain chain, String txHash, Object logIndex) {
+        String key = TransactionKey.of(chain, txHash).txHash();
+        return logIndex != null ? chain + ":" + key + ":" + logIndex : chain + ":" + key;
+    }
+
+    private Counter checkCounter(String outcome) {
+        return Counter.builder("blockchain_dedup_checks_total")
+                .tag("outcome", outcome)
+                .description("Processed-transaction checks by how they were answered")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,92 @@
+package com.projectdata.transaction.service.blockchain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A Bloom filter of fixed size that forgets its oldest entries. Entries go into
+ * the current generation; once it holds {@code capacity} of them it becomes the
+ * previous generation and the one before is dropped. Lookups check both, so an
+ * entry is remembered for at least {@code capacity} further additions and memory
+ * never grows.
+ */
+final class RotatingBloomFilter {
+
+    private final int capacity;
+    private final int bits;
+    private final int hashes;
+
+    private long[] current;
+    private long[] previous;
+    private int added;
+
+    /**
+     * @param capacity Entries per generation
+     * @param falsePositiveRate Target rate of false positives of one full generation
+     */
+    RotatingBloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = capacity;
+        // Optimal sizes: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hashes
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        this.current = new long[(bits + 63) / 64];
+        this.previous = new long[current.length];
+    }
+
+    synchronized boolean mightContain(String key) {
+        long hash = hash(key);
+        return contains(current, hash) || contains(previous, hash);
+    }
+
+    synchronized void add(String key) {
+        long hash = hash(key);
+        if (contains(current, hash)) {
+            return;
+        }
+        if (added >= capacity) {
+            long[] cleared = previous;
+            Arrays.fill(cleared, 0L);
+            previous = current;
+            current = cleared;
+            added = 0;
+        }
+        // Double hashing: bit i is h1 + i * h2
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        added++;
+    }
+
+    private boolean contains(long[] filter, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a with a final mix, so both halves are usable as hashes
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
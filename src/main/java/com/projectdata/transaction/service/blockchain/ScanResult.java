@@ -0,0 +1,24 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+
+import java.util.List;
+
+/**
+ * What a block scan found for tracked wallets
+ *
+ * @param provisional Transactions in blocks seen for the first time, not final yet
+ * @param confirmed Transactions whose blocks are now deep enough to be final
+ * @param orphaned Earlier provisional transactions whose blocks left the chain in a reorganization
+ * @param confirmedThrough The last block that is final and fully read, once the confirmed
+ *        transactions are stored; null if the scan did not get that far
+ */
+public record ScanResult(List<TransactionDTO> provisional, List<TransactionDTO> confirmed,
+        List<TransactionDTO> orphaned, Long confirmedThrough) {
+
+    public static final ScanResult EMPTY = new ScanResult(List.of(), List.of(), List.of(), null);
+
+    public boolean isEmpty() {
+        return provisional.isEmpty() && confirmed.isEmpty() && orphaned.isEmpty();
+    }
+}
@@ -0,0 +1,288 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.model.mongo.ClusterNode;
+import com.projectdata.transaction.model.mongo.ShardLease;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which replica polls which wallet shard, so that every shard is polled by
+ * exactly one of them.
+ *
+ * <p>Each replica keeps a heartbeat in {@code cluster_nodes}. The live nodes are
+ * placed on a consistent-hash ring with {@code cluster.virtual-nodes} points each,
+ * and a shard belongs to the node that follows it on the ring; a node joining or
+ * leaving only moves the shards next to its points. Ownership is backed by a lease
+ * in {@code shard_leases}: a node only polls a shard while it holds the shard's
+ * lease, and takes a lease only once it is free or expired. A shard that moves
+ * away is released as soon as its pass in progress ends, and the leases of a node
+ * that died expire after {@code cluster.lease-ttl}.
+ *
+ * <p>Work that covers a whole chain, the EVM block scan and the subscriptions, is
+ * leased the same way as one more shard per chain, so one replica leads each chain.
+ *
+ * <p>With {@code cluster.enabled} off, this node owns every shard and leads every chain.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardLeaseManager {
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blockchain.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${blockchain.cluster.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${blockchain.cluster.lease-ttl:30000}")
+    private long leaseTtlMs;
+
+    @Value("${blockchain.cluster.virtual-nodes:64}")
+    private int virtualNodes;
+
+    private String nodeId;
+
+    // Shard number stored in the lease of a whole chain
+    private static final int CHAIN_LEASE = -1;
+
+    // Chain -> number of shards, as last seen by the poller
+    private final Map<WalletChain, Integer> shardCounts = new ConcurrentHashMap<>();
+    // Chains whose lead has been asked about
+    private final Set<WalletChain> chains = ConcurrentHashMap.newKeySet();
+    // Ids of the shards whose lease this node holds
+    private final Set<String> owned = ConcurrentHashMap.newKeySet();
+    // Ids of the owned shards with a pass in progress, which are not given up until it ends
+    private final Set<String> inPass = ConcurrentHashMap.newKeySet();
+    // Every owned lease runs at least until then, as of the last complete renewal
+    private volatile long leasesValidUntil;
+
+    @PostConstruct
+    void init() {
+        nodeId = configuredNodeId.isBlank() ? defaultNodeId() : configuredNodeId;
+        if (enabled) {
+            log.info("Polling shards are leased across the cluster as node {}", nodeId);
+            Gauge.builder("blockchain_cluster_owned_shards", owned, Set::size)
+                    .description("Wallet shards and chains whose lease this node holds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return true if work is split between several replicas
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return false if another node polls the shard
+     */
+    public boolean owns(WalletChain chain, int shard, int shardCount) {
+        shardCounts.put(chain, shardCount);
+        return !enabled || holds(id(chain, shard));
+    }
+
+    /**
+     * @return false if another node scans the chain's blocks and holds its subscriptions
+     */
+    public boolean leads(WalletChain chain) {
+        chains.add(chain);
+        return !enabled || holds(chainId(chain));
+    }
+
+    /**
+     * Marks a pass over an owned shard as started, so the shard is kept until
+     * {@link #endPass} even if it moves to another node meanwhile
+     *
+     * @return false if the shard is not owned (anymore)
+     */
+    public boolean beginPass(WalletChain chain, int shard) {
+        if (!enabled) {
+            return true;
+        }
+        String id = id(chain, shard);
+        inPass.add(id);
+        if (!holds(id)) {
+            inPass.remove(id);
+            return false;
+        }
+        return true;
+    }
+
+    public void endPass(WalletChain chain, int shard) {
+        inPass.remove(id(chain, shard));
+    }
+
+    private boolean holds(String id) {
+        return owned.contains(id) && System.currentTimeMillis() < leasesValidUntil;
+    }
+
+    /**
+     * Renews this node's heartbeat and leases, takes the shards the ring now gives
+     * it and releases the ones it gave away
+     */
+    @Scheduled(fixedDelayString = "${blockchain.cluster.heartbeat-interval:5000}")
+    public void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            Instant expiresAt = now.plusMillis(leaseTtlMs);
+            mongoTemplate.save(new ClusterNode(nodeId, now, expiresAt));
+            List<String> liveNodes = mongoTemplate.find(
+                    Query.query(Criteria.where("expiresAt").gt(now)), ClusterNode.class).stream()
+                    .map(ClusterNode::getId)
+                    .toList();
+            TreeMap<Long, String> ring = ring(liveNodes);
+
+            shardCounts.forEach((chain, shardCount) -> {
+                for (int shard = 0; shard < shardCount; shard++) {
+                    String id = id(chain, shard);
+                    boolean assigned = nodeId.equals(ownerOf(ring, id));
+                    if (assigned || (owned.contains(id) && inPass.contains(id))) {
+                        if (acquire(chain, shard, id, now, expiresAt)) {
+                            owned.add(id);
+                        } else if (owned.remove(id)) {
+                            log.warn("Lost the lease of {} shard {} to another node", chain, shard);
+                        }
+                    } else if (owned.remove(id)) {
+                        release(id);
+                    }
+                }
+            });
+            chains.forEach(chain -> {
+                String id = chainId(chain);
+                if (nodeId.equals(ownerOf(ring, id))) {
+                    if (acquire(chain, CHAIN_LEASE, id, now, expiresAt)) {
+                        owned.add(id);
+                    } else if (owned.remove(id)) {
+                        log.warn("Lost the lead of {} blockchain to another node", chain);
+                    }
+                } else if (owned.remove(id)) {
+                    release(id);
+                }
+            });
+            leasesValidUntil = expiresAt.toEpochMilli();
+        } catch (DataAccessException e) {
+            // Leases not renewed run out on their own; until then this node keeps polling them
+            log.error("Could not renew polling shard leases: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Takes or renews a lease, which only succeeds if it is free, expired or already ours
+     */
+    private boolean acquire(WalletChain chain, int shard, String id, Instant now, Instant expiresAt) {
+        Query takeable = Query.query(Criteria.where("_id").is(id)
+                .orOperator(Criteria.where("owner").is(nodeId), Criteria.where("expiresAt").lt(now)));
+        Update lease = new Update()
+                .set("blockChain", chain)
+                .set("shard", shard)
+                .set("owner", nodeId)
+                .set("expiresAt", expiresAt);
+        try {
+            return mongoTemplate.findAndModify(takeable, lease,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), ShardLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            // The lease exists and is held by another node, so the upsert tried to insert it again
+            return false;
+        }
+    }
+
+    private void release(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("owner").is(nodeId)), ShardLease.class);
+    }
+
+    /**
+     * Hands this node's shards over right away instead of after the lease TTL
+     */
+    @PreDestroy
+    void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("owner").is(nodeId)), ShardLease.class);
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId)), ClusterNode.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not release polling shard leases, they expire in {}: {}",
+                    Duration.ofMillis(leaseTtlMs), e.getMessage());
+        }
+        owned.clear();
+    }
+
+    private TreeMap<Long, String> ring(List<String> nodes) {
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        return ring;
+    }
+
+    private static String ownerOf(TreeMap<Long, String> ring, String shardId) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> next = ring.ceilingEntry(hash(shardId));
+        return next != null ? next.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Spreads evenly over the ring and gives the same point on every node
+     */
+    private static long hash(String value) {
+        return UUID.nameUUIDFromBytes(value.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+    }
+
+    private static String id(WalletChain chain, int shard) {
+        return chain.name() + ":" + shard;
+    }
+
+    private static String chainId(WalletChain chain) {
+        return chain.name() + ":chain";
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        // Suffixed so that a restarted node does not inherit leases it can no longer vouch for
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
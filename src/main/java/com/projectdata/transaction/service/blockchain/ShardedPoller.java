@@ -0,0 +1,183 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.config.ChainProperties;
+import com.projectdata.transaction.model.WalletChain;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Polls the wallets of a chain in shards, off the scheduler thread. A wallet's
+ * shard follows from its address, so it stays in the same shard from one pass
+ * to the next and the shard's lag means something.
+ *
+ * <p>Each chain has its own pool of {@code polling.max-concurrent-shards} threads,
+ * so a slow provider only holds up its own chain. A shard whose previous pass is
+ * still queued or running is skipped rather than queued again; its next pass reads
+ * from the wallets' cursors and picks up whatever the skipped one would have.
+ *
+ * <p>With several replicas, each only polls the shards it holds the lease of in
+ * the {@link ShardLeaseManager}, so a shard count well above the number of replicas
+ * spreads the wallets evenly.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedPoller {
+
+    private final ChainProperties chainProperties;
+    private final MeterRegistry meterRegistry;
+    private final ShardLeaseManager shardLeases;
+
+    private final Map<WalletChain, ExecutorService> executors = new ConcurrentHashMap<>();
+    private final Map<ShardKey, ShardState> shards = new ConcurrentHashMap<>();
+    // Built once per chain rather than looked up on every pass
+    private final Map<WalletChain, PassMeters> passMeters = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a pass over every shard of the chain that is not busy and returns
+     * without waiting for it
+     *
+     * @param chain The blockchain
+     * @param wallets The wallet addresses to poll
+     * @param pollShard Polls the wallets of one shard; runs on the chain's pool
+     * @return The wallets left out, since their shard was busy or is polled by another node
+     */
+    public Set<String> poll(WalletChain chain, Collection<String> wallets, Consumer<Set<String>> pollShard) {
+        int shardCount = Math.max(1, chainProperties.getInt(chain, "polling.shards", 64));
+        Map<Integer, Set<String>> assigned = new HashMap<>();
+        for (String walletAddress : wallets) {
+            assigned.computeIfAbsent(shardOf(walletAddress, shardCount), k -> new HashSet<>()).add(walletAddress);
+        }
+
+        Set<String> notPolled = new HashSet<>();
+        ExecutorService executor = executors.computeIfAbsent(chain, this::newExecutor);
+        for (int shard = 0; shard < shardCount; shard++) {
+            ShardKey key = new ShardKey(chain, shard);
+            Set<String> shardWallets = assigned.get(shard);
+            if (shardWallets == null || !shardLeases.owns(chain, shard, shardCount)) {
+                // Nothing to poll, here at least, is nothing to fall behind on
+                ShardState idle = shards.get(key);
+                if (idle != null && !idle.busy.get()) {
+                    idle.lastPassStartedAt = System.currentTimeMillis();
+                }
+                if (shardWallets != null) {
+                    notPolled.addAll(shardWallets);
+                }
+                continue;
+            }
+
+            ShardState state = shards.computeIfAbsent(key, this::newState);
+            if (!state.busy.compareAndSet(false, true)) {
+                log.debug("Skipping poll of {} shard {}, its previous pass has not finished", chain, shard);
+                passMeters(chain).skipped().increment();
+                notPolled.addAll(shardWallets);
+                continue;
+            }
+            if (!shardLeases.beginPass(chain, shard)) {
+                // Moved to another node since the ownership check
+                state.busy.set(false);
+                notPolled.addAll(shardWallets);
+                continue;
+            }
+            try {
+                executor.execute(() -> runPass(key, state, shardWallets, pollShard));
+            } catch (RejectedExecutionException e) {
+                shardLeases.endPass(chain, shard);
+                state.busy.set(false);
+                log.warn("Could not start poll of {} shard {}: {}", chain, shard, e.getMessage());
+                notPolled.addAll(shardWallets);
+            }
+        }
+        return notPolled;
+    }
+
+    private void runPass(ShardKey key, ShardState state, Set<String> wallets, Consumer<Set<String>> pollShard) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            pollShard.accept(wallets);
+            state.lastPassStartedAt = startedAt;
+        } catch (Exception e) {
+            log.error("Error polling {} wallets of {} shard {}", wallets.size(), key.chain(), key.shard(), e);
+        } finally {
+            passMeters(key.chain()).duration().record(System.currentTimeMillis() - startedAt, TimeUnit.MILLISECONDS);
+            shardLeases.endPass(key.chain(), key.shard());
+            state.busy.set(false);
+        }
+    }
+
+    private PassMeters passMeters(WalletChain chain) {
+        return passMeters.computeIfAbsent(chain, k -> new PassMeters(
+                Counter.builder("blockchain_polling_skipped_passes_total")
+                        .tag("chain", chain.name())
+                        .description("Shard polls skipped because the shard's previous pass was still running")
+                        .register(meterRegistry),
+                Timer.builder("blockchain_polling_shard_duration")
+                        .tag("chain", chain.name())
+                        .description("Time taken by one poll of a wallet shard")
+                        .register(meterRegistry)));
+    }
+
+    private static int shardOf(String walletAddress, int shardCount) {
+        return Math.floorMod(walletAddress.toLowerCase().hashCode(), shardCount);
+    }
+
+    private ExecutorService newExecutor(WalletChain chain) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+                "poll-" + chain.name().toLowerCase() + "-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(
+                Math.max(1, chainProperties.getInt(chain, "polling.max-concurrent-shards", 4)), threadFactory);
+    }
+
+    private ShardState newState(ShardKey key) {
+        ShardState state = new ShardState();
+        Gauge.builder("blockchain_polling_shard_lag_seconds", state, ShardState::lagSeconds)
+                .tag("chain", key.chain().name())
+                .tag("shard", String.valueOf(key.shard()))
+                .description("Seconds since the start of the shard's last completed poll")
+                .register(meterRegistry);
+        return state;
+    }
+
+    @PreDestroy
+    void shutdownExecutors() {
+        executors.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    private record ShardKey(WalletChain chain, int shard) {
+    }
+
+    private record PassMeters(Counter skipped, Timer duration) {
+    }
+
+    private static final class ShardState {
+        // Set from when a pass is handed to the pool until it ends
+        private final AtomicBoolean busy = new AtomicBoolean();
+        // A shard that never completed a pass counts from when it was first seen
+        private volatile long lastPassStartedAt = System.currentTimeMillis();
+
+        private double lagSeconds() {
+            return (System.currentTimeMillis() - lastPassStartedAt) / 1000.0;
+        }
+    }
+}
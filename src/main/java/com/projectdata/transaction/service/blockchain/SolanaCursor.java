@@ -0,0 +1,40 @@
+package com.projectdata.transaction.service.blockchain;
+
+/**
+ * How far polling of a Solana wallet has read: the newest signature stored, and at
+ * most one older range still to read, left behind when more new signatures came in
+ * than one poll lists. It is kept in the wallet's last-processed slot as
+ * {@code newest}, or {@code newest:gapBefore:gapUntil} while a range is left.
+ *
+ * @param newest The newest signature read
+ * @param gapBefore The oldest signature read above the range left, or null if there is none
+ * @param gapUntil The newest signature read below the range left, or null if there is none
+ */
+record SolanaCursor(String newest, String gapBefore, String gapUntil) {
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * @return The cursor, or null if the wallet has not been polled yet
+     */
+    static SolanaCursor parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int first = value.indexOf(SEPARATOR);
+        int second = first >= 0 ? value.indexOf(SEPARATOR, first + 1) : -1;
+        if (second < 0) {
+            return new SolanaCursor(value, null, null);
+        }
+        return new SolanaCursor(value.substring(0, first), value.substring(first + 1, second),
+                value.substring(second + 1));
+    }
+
+    boolean hasGap() {
+        return gapBefore != null;
+    }
+
+    String format() {
+        return hasGap() ? newest + SEPARATOR + gapBefore + SEPARATOR + gapUntil : newest;
+    }
+}
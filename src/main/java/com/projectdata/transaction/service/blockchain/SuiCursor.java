@@ -0,0 +1,38 @@
+package com.projectdata.transaction.service.blockchain;
+
+/**
+ * How far polling of a Sui wallet has read: the digest that each of its two query
+ * streams, sent and received, continues after. It is kept in the wallet's
+ * last-processed slot as {@code sent:received}, where an empty side reads from the
+ * wallet's first transaction. A single digest, as given at registration, is used
+ * for both sides.
+ *
+ * @param sent The digest to continue after, or null to start at the first transaction
+ * @param received The digest to continue after, or null to start at the first transaction
+ */
+record SuiCursor(String sent, String received) {
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * @return The cursor, or null if the wallet has not been polled yet
+     */
+    static SuiCursor parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return new SuiCursor(value, value);
+        }
+        return new SuiCursor(emptyToNull(value.substring(0, separator)), emptyToNull(value.substring(separator + 1)));
+    }
+
+    String format() {
+        return (sent != null ? sent : "") + SEPARATOR + (received != null ? received : "");
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
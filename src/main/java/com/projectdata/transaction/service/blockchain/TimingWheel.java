@@ -0,0 +1,152 @@
+package com.projectdata.transaction.service.blockchain;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel: timers are kept in {@value #LEVELS} wheels of
+ * {@value #SLOTS} slots, where a slot of level {@code n} spans {@code 64^n} ticks.
+ * A timer goes into the slot of the lowest level that tells its tick apart from the
+ * current one, and moves down a level each time the wheel reaches its slot, so
+ * scheduling and cancelling are O(1) and a tick only touches the timers that are
+ * due or move down.
+ *
+ * <p>Timers are the nodes of intrusive linked lists, so a timer costs no more than
+ * the object that extends {@link Node}. Not thread-safe.
+ *
+ * @param <N> The timer type
+ */
+final class TimingWheel<N extends TimingWheel.Node> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 5;
+    // Timers further out than this are due at this point instead
+    private static final long MAX_TICKS = (1L << (BITS * LEVELS)) - 1;
+
+    private final long tickMs;
+    private final long startMs;
+    private final Node[][] heads = new Node[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+
+    /**
+     * A timer. Subclasses hold what is scheduled.
+     */
+    static class Node {
+        private Node prev;
+        private Node next;
+        private Node[] slots;
+        private int slot;
+        private long deadline;
+
+        boolean isScheduled() {
+            return slots != null;
+        }
+    }
+
+    TimingWheel(long tickMs, long nowMs) {
+        this.tickMs = tickMs;
+        this.startMs = nowMs;
+    }
+
+    /**
+     * Schedules a timer, moving it if it was scheduled already
+     *
+     * @param delayMs Time until it is due; it is due on the next tick at the earliest
+     */
+    void schedule(N timer, long delayMs) {
+        cancel(timer);
+        long ticks = Math.max(1, Math.min(MAX_TICKS, (delayMs + tickMs - 1) / tickMs));
+        Node node = timer;
+        node.deadline = currentTick + ticks;
+        insert(node);
+        size++;
+    }
+
+    /**
+     * @return false if the timer was not scheduled
+     */
+    boolean cancel(N timer) {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and hands over, in deadline order,
+     * the timers that are due. They are no longer scheduled when handed over.
+     */
+    @SuppressWarnings("unchecked")
+    void advance(long nowMs, Consumer<N> due) {
+        long targetTick = (nowMs - startMs) / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher levels first, since what they cascade may land in the slot cascaded next
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (BITS * level)) & (SLOTS - 1)));
+                }
+            }
+            Node[] slots = heads[0];
+            int slot = (int) (currentTick & (SLOTS - 1));
+            Node timer;
+            while ((timer = slots[slot]) != null) {
+                unlink(timer);
+                size--;
+                due.accept((N) timer);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level, int slot) {
+        Node timer = heads[level][slot];
+        heads[level][slot] = null;
+        while (timer != null) {
+            Node next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            timer.slots = null;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    private void insert(Node timer) {
+        // The lowest level above which the deadline and the current tick agree
+        int level = 0;
+        while (level < LEVELS - 1 && (timer.deadline >>> (BITS * (level + 1))) != (currentTick >>> (BITS * (level + 1)))) {
+            level++;
+        }
+        Node[] slots = heads[level];
+        int slot = (int) ((timer.deadline >>> (BITS * level)) & (SLOTS - 1));
+        timer.slots = slots;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[slot] = timer;
+    }
+
+    private void unlink(Node timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            timer.slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.slots = null;
+    }
+}
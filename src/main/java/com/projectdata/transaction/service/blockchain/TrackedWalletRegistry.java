@@ -0,0 +1,327 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.mongodb.MongoException;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.model.mongo.ScanCursor;
+import com.projectdata.transaction.model.mongo.TrackedWallet;
+import com.projectdata.transaction.repository.mongo.TrackedWalletRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tracked wallets of every chain and their polling cursors, kept in memory and
+ * stored in the {@code tracked_wallets} collection.
+ *
+ * <p>Registrations are written through, since they are rare and must not be lost.
+ * Cursors move on every poll, so they are written behind: the newest cursor of each
+ * wallet waits in memory and {@code registry.flush-interval} later all pending ones
+ * go out in unordered bulk updates. A crash loses at most that window, and the
+ * wallets concerned re-read a few transactions that the dedup index then skips.
+ *
+ * <p>At startup the collection is read in one pass with only the fields needed,
+ * straight into the in-memory maps. With several replicas it is read again every
+ * {@code registry.sync-interval}, since a wallet can be registered or unregistered
+ * on any of them.
+ *
+ * <p>The EVM block scanner's cursor of each chain, the last block whose transactions
+ * are stored, is written behind the same way to {@code scan_cursors}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackedWalletRegistry {
+
+    private final TrackedWalletRepository trackedWalletRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blockchain.registry.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    @Value("${blockchain.registry.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    // Map of blockchain -> (wallet address -> polling cursor). The cursor is the last
+    // processed transaction hash, a SuiCursor on SUI; an empty one means polling starts
+    // at the wallet's newest transaction.
+    private final Map<WalletChain, Map<String, String>> wallets = new ConcurrentHashMap<>();
+
+    // Document id -> newest cursor not stored yet
+    private final Map<String, String> pendingCursors = new ConcurrentHashMap<>();
+
+    // Chain -> last block read by the block scanner whose transactions are stored
+    private final Map<WalletChain, Long> scanCursors = new ConcurrentHashMap<>();
+    private final Map<WalletChain, Long> pendingScanCursors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        Gauge.builder("blockchain_registry_pending_cursors", pendingCursors, Map::size)
+                .description("Wallet cursors waiting to be stored")
+                .register(meterRegistry);
+
+        long start = System.currentTimeMillis();
+        Map<WalletChain, Map<String, String>> loaded = new EnumMap<>(WalletChain.class);
+        try {
+            readWallets((chain, walletAddress, cursor) ->
+                    loaded.computeIfAbsent(chain, k -> new HashMap<>()).put(walletAddress, cursor));
+        } catch (DataAccessException | MongoException e) {
+            log.error("Could not load tracked wallets, starting with none: {}", e.getMessage());
+            return;
+        }
+        loaded.forEach((chain, chainWallets) -> wallets.put(chain, new ConcurrentHashMap<>(chainWallets)));
+        wallets.keySet().forEach(this::registerGauge);
+        log.info("Loaded {} tracked wallets in {} ms",
+                loaded.values().stream().mapToInt(Map::size).sum(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Reads the collection again to pick up what other replicas changed: wallets they
+     * registered or unregistered, and the cursors of the wallets they poll. A cursor
+     * of this node that is not stored yet is kept.
+     *
+     * @return The wallets that were registered or unregistered elsewhere, by chain
+     */
+    public Map<WalletChain, WalletChanges> reload() {
+        // Whatever is left in here once the collection is read was unregistered. Taken
+        // before reading, so a wallet registered here meanwhile is not mistaken for one.
+        Map<WalletChain, Set<String>> unseen = new EnumMap<>(WalletChain.class);
+        wallets.forEach((chain, chainWallets) -> unseen.put(chain, new HashSet<>(chainWallets.keySet())));
+        Map<WalletChain, WalletChanges> changes = new EnumMap<>(WalletChain.class);
+        try {
+            readWallets((chain, walletAddress, cursor) -> {
+                Set<String> chainUnseen = unseen.get(chain);
+                if (chainUnseen != null && chainUnseen.remove(walletAddress)) {
+                    if (!pendingCursors.containsKey(id(chain, walletAddress))) {
+                        wallets.get(chain).replace(walletAddress, cursor);
+                    }
+                } else if (wallets.computeIfAbsent(chain, this::newChain).putIfAbsent(walletAddress, cursor) == null) {
+                    changesOf(changes, chain).added().add(walletAddress);
+                }
+            });
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not reload tracked wallets: {}", e.getMessage());
+            return Map.of();
+        }
+        unseen.forEach((chain, removed) -> removed.forEach(walletAddress -> {
+            if (wallets.get(chain).remove(walletAddress) != null) {
+                pendingCursors.remove(id(chain, walletAddress));
+                changesOf(changes, chain).removed().add(walletAddress);
+            }
+        }));
+        return changes;
+    }
+
+    private static WalletChanges changesOf(Map<WalletChain, WalletChanges> changes, WalletChain chain) {
+        return changes.computeIfAbsent(chain, k -> new WalletChanges(new ArrayList<>(), new ArrayList<>()));
+    }
+
+    /**
+     * Reads every wallet with only the fields needed
+     */
+    private void readWallets(WalletConsumer consumer) {
+        Document fields = new Document("blockChain", 1).append("walletAddress", 1).append("cursor", 1);
+        for (Document wallet : mongoTemplate.getCollection(mongoTemplate.getCollectionName(TrackedWallet.class))
+                .find().projection(fields).batchSize(loadBatchSize)) {
+            String cursor = wallet.getString("cursor");
+            // The empty cursor of wallets not polled yet is shared rather than one string each
+            consumer.accept(WalletChain.valueOf(wallet.getString("blockChain")), wallet.getString("walletAddress"),
+                    cursor == null || cursor.isEmpty() ? "" : cursor);
+        }
+    }
+
+    /**
+     * Tracks a wallet, or restarts tracking it from the given cursor
+     */
+    public void register(WalletChain chain, String walletAddress, String cursor) {
+        String id = id(chain, walletAddress);
+        Instant now = Instant.now();
+        trackedWalletRepository.save(new TrackedWallet(id, chain, walletAddress, cursor, now, now));
+        pendingCursors.remove(id);
+        wallets.computeIfAbsent(chain, this::newChain).put(walletAddress, cursor);
+    }
+
+    /**
+     * @return false if the wallet was not tracked
+     */
+    public boolean unregister(WalletChain chain, String walletAddress) {
+        Map<String, String> chainWallets = wallets.get(chain);
+        if (chainWallets == null || !chainWallets.containsKey(walletAddress)) {
+            return false;
+        }
+        String id = id(chain, walletAddress);
+        trackedWalletRepository.deleteById(id);
+        pendingCursors.remove(id);
+        chainWallets.remove(walletAddress);
+        return true;
+    }
+
+    /**
+     * @return The chains that have had tracked wallets since startup
+     */
+    public Set<WalletChain> chains() {
+        return Collections.unmodifiableSet(wallets.keySet());
+    }
+
+    /**
+     * @return A live, read-only view of the chain's wallets and their cursors
+     */
+    public Map<String, String> wallets(WalletChain chain) {
+        Map<String, String> chainWallets = wallets.get(chain);
+        return chainWallets != null ? Collections.unmodifiableMap(chainWallets) : Map.of();
+    }
+
+    /**
+     * Moves a wallet's cursor and queues it to be stored
+     *
+     * @param expected The cursor the new one was computed from
+     * @return false, leaving the cursor alone, if the wallet was unregistered or
+     *         re-registered since the expected cursor was read
+     */
+    public boolean updateCursor(WalletChain chain, String walletAddress, String expected, String cursor) {
+        Map<String, String> chainWallets = wallets.get(chain);
+        if (chainWallets == null || !chainWallets.replace(walletAddress, expected, cursor)) {
+            return false;
+        }
+        if (!cursor.equals(expected)) {
+            pendingCursors.put(id(chain, walletAddress), cursor);
+        }
+        return true;
+    }
+
+    /**
+     * @return The last block of the chain whose tracked-wallet transactions were
+     *         stored, here or by the node that scanned it last; null if it was never scanned
+     */
+    public Long scanCursor(WalletChain chain) {
+        Long local = scanCursors.get(chain);
+        try {
+            ScanCursor stored = mongoTemplate.findById(chain.name(), ScanCursor.class);
+            if (stored != null && (local == null || stored.getConfirmedThrough() > local)) {
+                return stored.getConfirmedThrough();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not read the stored {} block scan cursor: {}", chain, e.getMessage());
+        }
+        return local;
+    }
+
+    /**
+     * Moves the block scanner's cursor of a chain and queues it to be stored
+     */
+    public void updateScanCursor(WalletChain chain, long confirmedThrough) {
+        Long previous = scanCursors.put(chain, confirmedThrough);
+        if (previous == null || previous != confirmedThrough) {
+            pendingScanCursors.put(chain, confirmedThrough);
+        }
+    }
+
+    /**
+     * Stores the pending cursors. A batch that fails is queued again unless a newer
+     * cursor came in for the wallet meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${blockchain.registry.flush-interval:5000}")
+    @PreDestroy
+    public void flushCursors() {
+        List<Map.Entry<String, String>> batch = new ArrayList<>();
+        for (Map.Entry<String, String> pending : pendingCursors.entrySet()) {
+            String id = pending.getKey();
+            String cursor = pending.getValue();
+            // A cursor replaced meanwhile stays pending with its newer value
+            if (pendingCursors.remove(id, cursor)) {
+                batch.add(Map.entry(id, cursor));
+            }
+            if (batch.size() >= flushBatchSize) {
+                writeCursors(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeCursors(batch);
+        }
+        pendingScanCursors.forEach((chain, confirmedThrough) -> {
+            if (pendingScanCursors.remove(chain, confirmedThrough)) {
+                writeScanCursor(chain, confirmedThrough);
+            }
+        });
+    }
+
+    private void writeScanCursor(WalletChain chain, long confirmedThrough) {
+        try {
+            // Never moved back, e.g. by a node that has just handed the chain over
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(chain.name())), new Update()
+                    .set("blockChain", chain)
+                    .max("confirmedThrough", confirmedThrough)
+                    .set("updatedAt", Instant.now()), ScanCursor.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not store the {} block scan cursor, retrying on the next flush: {}", chain, e.getMessage());
+            pendingScanCursors.putIfAbsent(chain, confirmedThrough);
+        }
+    }
+
+    private void writeCursors(List<Map.Entry<String, String>> batch) {
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrackedWallet.class);
+        // Not upserts, so a wallet unregistered meanwhile stays deleted
+        batch.forEach(entry -> bulk.updateOne(Query.query(Criteria.where("_id").is(entry.getKey())),
+                new Update().set("cursor", entry.getValue()).set("updatedAt", now)));
+        try {
+            bulk.execute();
+        } catch (DataAccessException e) {
+            log.warn("Could not store {} wallet cursors, retrying on the next flush: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> pendingCursors.putIfAbsent(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private Map<String, String> newChain(WalletChain chain) {
+        registerGauge(chain);
+        return new ConcurrentHashMap<>();
+    }
+
+    private void registerGauge(WalletChain chain) {
+        Gauge.builder("blockchain_tracked_wallets", wallets, map -> map.getOrDefault(chain, Map.of()).size())
+                .tag("chain", chain.name())
+                .description("Wallets tracked on the chain")
+                .register(meterRegistry);
+    }
+
+    private static String id(WalletChain chain, String walletAddress) {
+        return chain.name() + ":" + Objects.requireNonNull(walletAddress);
+    }
+
+    /**
+     * Wallets of a chain registered or unregistered by another replica
+     */
+    public record WalletChanges(List<String> added, List<String> removed) {
+    }
+
+    @FunctionalInterface
+    private interface WalletConsumer {
+        void accept(WalletChain chain, String walletAddress, String cursor);
+    }
+}
@@ -0,0 +1,159 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.WalletChain;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache of transaction lookups keyed by {@link TransactionKey}.
+ *
+ * <p>A transaction settled deep enough that no reorg moves it is kept until the
+ * size-weighted Caffeine (W-TinyLFU) policy evicts it. A transaction that may still
+ * be reorganized away or into another block goes to a smaller cache with a short
+ * TTL, as do "not found" answers, so that repeated lookups of a hash do not reach
+ * the provider while its answer can still change shortly after.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionCache {
+
+    // Rough per-object costs used by the weigher, in bytes
+    private static final int DTO_OVERHEAD = 160;
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private final MeterRegistry meterRegistry;
+
+    // Approximate upper bound, in bytes, on the memory held by cached transactions
+    @Value("${blockchain.cache.transactions.max-weight:33554432}")
+    private long maxWeight;
+
+    @Value("${blockchain.cache.transactions.recent-max-size:10000}")
+    private long recentMaxSize;
+
+    @Value("${blockchain.cache.transactions.recent-ttl:15000}")
+    private long recentTtlMs;
+
+    @Value("${blockchain.cache.transactions.negative-max-size:10000}")
+    private long negativeMaxSize;
+
+    @Value("${blockchain.cache.transactions.negative-ttl:15000}")
+    private long negativeTtlMs;
+
+    private Cache<TransactionKey, TransactionDTO> transactions;
+    private Cache<TransactionKey, TransactionDTO> recentTransactions;
+    private Cache<TransactionKey, Boolean> notFound;
+
+    @PostConstruct
+    void initCaches() {
+        transactions = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(TransactionCache::weigh)
+                .recordStats()
+                .build();
+        recentTransactions = Caffeine.newBuilder()
+                .maximumSize(recentMaxSize)
+                .expireAfterWrite(Duration.ofMillis(recentTtlMs))
+                .recordStats()
+                .build();
+        notFound = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(Duration.ofMillis(negativeTtlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, transactions, "blockchain_transactions");
+        CaffeineCacheMetrics.monitor(meterRegistry, recentTransactions, "blockchain_transactions_recent");
+        CaffeineCacheMetrics.monitor(meterRegistry, notFound, "blockchain_transactions_not_found");
+    }
+
+    /**
+     * @param chain The blockchain
+     * @param txHash The transaction hash
+     * @return The cached lookup, or null if the hash has to be fetched. A found
+     *         transaction is returned as a copy the caller is free to modify.
+     */
+    public TransactionLookup get(WalletChain chain, String txHash) {
+        TransactionKey key = TransactionKey.of(chain, txHash);
+
+        TransactionDTO transaction = transactions.getIfPresent(key);
+        if (transaction == null) {
+            transaction = recentTransactions.getIfPresent(key);
+        }
+        if (transaction != null) {
+            TransactionDTO copy = copy(transaction);
+            copy.setTxHash(txHash);
+            return TransactionLookup.success(txHash, copy);
+        }
+        if (notFound.getIfPresent(key) != null) {
+            return TransactionLookup.notFound(txHash);
+        }
+        return null;
+    }
+
+    /**
+     * Caches a found transaction, for a short while unless it is settled, or a "not
+     * found" answer for a short while. Other failures are not cached.
+     *
+     * @param settled true if no reorg can change the found transaction any more
+     */
+    public void put(WalletChain chain, TransactionLookup lookup, boolean settled) {
+        TransactionKey key = TransactionKey.of(chain, lookup.getTxHash());
+
+        if (lookup.isSuccess()) {
+            if (settled) {
+                transactions.put(key, copy(lookup.getTransaction()));
+                recentTransactions.invalidate(key);
+            } else {
+                recentTransactions.put(key, copy(lookup.getTransaction()));
+            }
+            notFound.invalidate(key);
+        } else if (lookup.isNotFound()) {
+            notFound.put(key, Boolean.TRUE);
+        }
+    }
+
+    private static TransactionDTO copy(TransactionDTO transaction) {
+        return TransactionDTO.builder()
+                .id(transaction.getId())
+                .blockChain(transaction.getBlockChain())
+                .txHash(transaction.getTxHash())
+                .fromAddress(transaction.getFromAddress())
+                .toAddress(transaction.getToAddress())
+                .walletAddress(transaction.getWalletAddress())
+                .amount(transaction.getAmount())
+                .asset(transaction.getAsset())
+                .timestamp(transaction.getTimestamp())
+                .rawData(transaction.getRawData() != null ? new HashMap<>(transaction.getRawData()) : null)
+                .build();
+    }
+
+    private static int weigh(TransactionKey key, TransactionDTO transaction) {
+        long weight = DTO_OVERHEAD
+                + chars(key.txHash())
+                + chars(transaction.getTxHash())
+                + chars(transaction.getFromAddress())
+                + chars(transaction.getToAddress())
+                + chars(transaction.getWalletAddress());
+        if (transaction.getRawData() != null) {
+            for (Map.Entry<String, Object> entry : transaction.getRawData().entrySet()) {
+                weight += ENTRY_OVERHEAD + chars(entry.getKey()) + chars(String.valueOf(entry.getValue()));
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static long chars(String value) {
+        return value != null ? 2L * value.length() : 0;
+    }
+}
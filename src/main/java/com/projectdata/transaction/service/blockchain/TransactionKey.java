@@ -0,0 +1,17 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.model.WalletChain;
+
+import java.util.Locale;
+
+/**
+ * Identifies a transaction across chains. EVM hashes are hex and compared
+ * case-insensitively; other chains use case-sensitive encodings.
+ */
+public record TransactionKey(WalletChain chain, String txHash) {
+
+    public static TransactionKey of(WalletChain chain, String txHash) {
+        boolean evm = chain == WalletChain.ETH || chain == WalletChain.BSC;
+        return new TransactionKey(chain, evm ? txHash.toLowerCase(Locale.ROOT) : txHash);
+    }
+}
@@ -0,0 +1,39 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of looking up a single transaction hash as part of a batch request.
+ * Exactly one of {@code transaction} or {@code error} is set.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransactionLookup {
+
+    private final String txHash;
+    private final TransactionDTO transaction;
+    private final String error;
+    private final boolean notFound;
+
+    public static TransactionLookup success(String txHash, TransactionDTO transaction) {
+        return new TransactionLookup(txHash, transaction, null, false);
+    }
+
+    public static TransactionLookup failure(String txHash, String error) {
+        return new TransactionLookup(txHash, null, error, false);
+    }
+
+    /**
+     * The provider answered, but does not know the transaction (yet)
+     */
+    public static TransactionLookup notFound(String txHash) {
+        return new TransactionLookup(txHash, null, "Transaction not found: " + txHash, true);
+    }
+
+    public boolean isSuccess() {
+        return transaction != null;
+    }
+}
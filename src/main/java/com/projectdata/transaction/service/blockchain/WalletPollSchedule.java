@@ -0,0 +1,109 @@
+package com.projectdata.transaction.service.blockchain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * When each wallet of a chain is polled next, set from its activity. A wallet that
+ * had new transactions in its last poll is polled again after the minimum interval;
+ * every poll that finds nothing doubles its interval, up to the maximum. Wallets are
+ * timers of a {@link TimingWheel}, so rescheduling one is O(1) however many there are.
+ */
+final class WalletPollSchedule {
+
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final TimingWheel<WalletTimer> wheel;
+    private final Map<String, WalletTimer> timers = new HashMap<>();
+
+    private static final class WalletTimer extends TimingWheel.Node {
+        private final String walletAddress;
+        // Number of polls in a row that found nothing, as far as it still lengthens the interval
+        private int idlePolls;
+
+        private WalletTimer(String walletAddress) {
+            this.walletAddress = walletAddress;
+        }
+    }
+
+    WalletPollSchedule(long tickMs, long minIntervalMs, long maxIntervalMs) {
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = Math.max(minIntervalMs, maxIntervalMs);
+        this.wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    /**
+     * Schedules a wallet's first poll, as a hot wallet. Does nothing if it is scheduled already.
+     */
+    synchronized void add(String walletAddress, long delayMs) {
+        if (!timers.containsKey(walletAddress)) {
+            WalletTimer timer = new WalletTimer(walletAddress);
+            timers.put(walletAddress, timer);
+            wheel.schedule(timer, delayMs);
+        }
+    }
+
+    synchronized void remove(String walletAddress) {
+        WalletTimer timer = timers.remove(walletAddress);
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    /**
+     * @return The wallets due for a poll by now. They are not scheduled again until
+     *         {@link #polled} or {@link #deferred} is called for them.
+     */
+    synchronized List<String> due(long nowMs) {
+        List<String> due = new ArrayList<>();
+        wheel.advance(nowMs, timer -> due.add(timer.walletAddress));
+        return due;
+    }
+
+    /**
+     * Schedules the next poll of polled wallets
+     *
+     * @param wallets The wallets polled
+     * @param active Those of them that had new transactions
+     */
+    synchronized void polled(Collection<String> wallets, Set<String> active) {
+        for (String walletAddress : wallets) {
+            WalletTimer timer = timers.get(walletAddress);
+            if (timer == null) {
+                // Unregistered meanwhile
+                continue;
+            }
+            if (active.contains(walletAddress)) {
+                timer.idlePolls = 0;
+            } else if (interval(timer) < maxIntervalMs) {
+                timer.idlePolls++;
+            }
+            wheel.schedule(timer, interval(timer));
+        }
+    }
+
+    /**
+     * Schedules wallets that were due but not polled again after their current
+     * interval, which stays as it was
+     */
+    synchronized void deferred(Collection<String> wallets) {
+        for (String walletAddress : wallets) {
+            WalletTimer timer = timers.get(walletAddress);
+            if (timer != null) {
+                wheel.schedule(timer, interval(timer));
+            }
+        }
+    }
+
+    synchronized int size() {
+        return timers.size();
+    }
+
+    private long interval(WalletTimer timer) {
+        return Math.min(maxIntervalMs, minIntervalMs << Math.min(timer.idlePolls, 30));
+    }
+}
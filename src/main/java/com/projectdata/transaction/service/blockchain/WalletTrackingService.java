@@ -1,35 +1,107 @@
 package com.projectdata.transaction.service.blockchain;
 
+import com.projectdata.transaction.config.ChainProperties;
 import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.exception.core.ValidationException;
+import com.projectdata.transaction.exception.model.ValidationError;
 import com.projectdata.transaction.model.WalletChain;
 import com.projectdata.transaction.service.OnChainTransactionService;
+import com.projectdata.transaction.service.blockchain.adapter.EvmChainAdapter;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaChainAdapter.SignatureListing;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaChainAdapter.SignatureQuery;
+import com.projectdata.transaction.service.blockchain.adapter.SolanaSignature;
+import com.projectdata.transaction.service.blockchain.adapter.SuiChainAdapter.TransactionBlockPage;
+import com.projectdata.transaction.service.blockchain.adapter.SuiChainAdapter.TransactionBlockQuery;
+import com.projectdata.transaction.service.blockchain.rpc.SingleFlight;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionEvent;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionHandler;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
- * Service for tracking wallet transactions across different blockchains
+ * Service for tracking wallet transactions across different blockchains. Chains
+ * with a subscription endpoint push new transactions as they happen; the others
+ * are polled, each wallet as often as its recent activity calls for.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class WalletTrackingService {
+public class WalletTrackingService implements SubscriptionHandler {
 
     private final BlockchainRpcClient rpcClient;
     private final OnChainTransactionService transactionService;
+    private final SubscriptionManager subscriptionManager;
+    private final EvmBlockScanner blockScanner;
+    private final ConfirmationBuffer confirmationBuffer;
+    private final ChainProperties chainProperties;
+    private final ShardedPoller shardedPoller;
+    private final ProcessedTransactionIndex processedTransactions;
+    private final TrackedWalletRegistry walletRegistry;
+    private final ShardLeaseManager shardLeases;
+    private final MeterRegistry meterRegistry;
     
-    // Map of blockchain -> (wallet address -> last processed transaction hash)
-    private final Map<WalletChain, Map<String, String>> trackedWallets = new ConcurrentHashMap<>();
+    // Runs at most one fetch-and-store per transaction at a time, which makes the
+    // processed check and the mark that follows it atomic per transaction
+    private final SingleFlight<TransactionKey, TransactionDTO> processing = new SingleFlight<>();
     
-    // Set of transaction hashes we've already processed
-    private final Set<String> processedTransactions = ConcurrentHashMap.newKeySet();
+    private static final int SUI_ADDRESS_BYTES = 32;
+    
+    // When each polled wallet is due, per chain; EVM chains are scanned instead
+    private final Map<WalletChain, WalletPollSchedule> pollSchedules = new ConcurrentHashMap<>();
+    
+    // Wallet poll counters, built once per chain rather than looked up on every pass
+    private final Map<WalletChain, PollCounters> pollCounters = new ConcurrentHashMap<>();
+    
+    // Tracked Sui addresses, which the balance changes of every polled page are matched against
+    private final AddressSet suiAddresses = new AddressSet(SUI_ADDRESS_BYTES);
+    
+    // Held while a chain's scan result is processed, so the stored cursor never passes
+    // the transactions of another scan still being stored
+    private final Map<WalletChain, ReentrantLock> chainScans = new ConcurrentHashMap<>();
+    
+    // Block scans started by new heads, at most one pending per chain
+    private final ExecutorService headScans = newHeadScanPool();
+    private final Set<WalletChain> headScansPending = ConcurrentHashMap.newKeySet();
+    
+    @Value("${blockchain.polling.solana.page-size:1000}")
+    private int solanaPageSize;
+    
+    @Value("${blockchain.polling.sui.page-size:50}")
+    private int suiPageSize;
+    
+    @Value("${blockchain.polling.sui.max-pages:10}")
+    private int suiMaxPages;
     
     /**
      * Registers a wallet for tracking
@@ -37,12 +109,22 @@ public class WalletTrackingService {
      * @param chain The blockchain
      * @param walletAddress The wallet address
      * @param lastProcessedTx Optional last processed transaction hash
+     * @throws ValidationException If the address cannot be matched on an EVM chain
      */
     public void registerWallet(WalletChain chain, String walletAddress, String lastProcessedTx) {
         log.info("Registering wallet {} on {} blockchain for tracking", walletAddress, chain);
         
-        trackedWallets.computeIfAbsent(chain, k -> new ConcurrentHashMap<>())
-                .put(walletAddress, lastProcessedTx);
+        if (rpcClient.isEvm(chain) && !EvmChainAdapter.isAddress(walletAddress)) {
+            throw new ValidationException("Invalid wallet address", null, List.of(ValidationError.builder()
+                    .field("walletAddress")
+                    .message("Must be a 0x-prefixed 20-byte hex address on " + chain)
+                    .build()));
+        }
+        walletRegistry.register(chain, walletAddress, Objects.requireNonNullElse(lastProcessedTx, ""));
+        // Polled on the next tick, which finds where a new wallet starts
+        startTracking(chain, walletAddress, 0);
+        subscriptionManager.addWallets(chain, List.of(walletAddress));
+        syncSubscription(chain);
     }
     
     /**
@@ -54,11 +136,108 @@ public class WalletTrackingService {
     public void unregisterWallet(WalletChain chain, String walletAddress) {
         log.info("Unregistering wallet {} on {} blockchain from tracking", walletAddress, chain);
         
-        if (trackedWallets.containsKey(chain)) {
-            trackedWallets.get(chain).remove(walletAddress);
+        if (walletRegistry.unregister(chain, walletAddress)) {
+            stopTracking(chain, walletAddress);
+        }
+    }
+    
+    /**
+     * Resumes tracking the wallets restored by the registry at startup, from their
+     * stored cursors
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeTracking() {
+        walletRegistry.chains().forEach(chain -> {
+            Set<String> wallets = walletRegistry.wallets(chain).keySet();
+            if (wallets.isEmpty()) {
+                return;
+            }
+            log.info("Resuming tracking of {} wallets on {} blockchain", wallets.size(), chain);
+            long interval = minPollInterval(chain);
+            wallets.forEach(walletAddress -> resumeWallet(chain, walletAddress, interval));
+            syncSubscription(chain);
+        });
+    }
+    
+    /**
+     * Picks up the wallets registered or unregistered on other replicas, so that
+     * every replica polls its shards of, and scans for, the same wallets. Only
+     * needed when work is split between replicas.
+     */
+    @Scheduled(fixedDelayString = "${blockchain.registry.sync-interval:60000}",
+            initialDelayString = "${blockchain.registry.sync-interval:60000}")
+    public void syncWallets() {
+        if (!shardLeases.isEnabled()) {
+            return;
+        }
+        walletRegistry.reload().forEach((chain, changes) -> {
+            log.info("{} wallets registered and {} unregistered on {} blockchain by other nodes",
+                    changes.added().size(), changes.removed().size(), chain);
+            long interval = minPollInterval(chain);
+            changes.added().forEach(walletAddress -> resumeWallet(chain, walletAddress, interval));
+            subscriptionManager.addWallets(chain, changes.added());
+            changes.removed().forEach(walletAddress -> stopTracking(chain, walletAddress));
+        });
+    }
+    
+    /**
+     * Opens the subscriptions of the chains this node leads and closes those another
+     * node took over, so that one replica receives each push and sends its alerts
+     */
+    @Scheduled(fixedDelayString = "${blockchain.cluster.heartbeat-interval:5000}")
+    public void syncSubscriptions() {
+        walletRegistry.chains().forEach(this::syncSubscription);
+    }
+    
+    private void syncSubscription(WalletChain chain) {
+        if (!shardLeases.leads(chain)) {
+            subscriptionManager.close(chain);
+        } else if (!subscriptionManager.isSubscribed(chain) && !walletRegistry.wallets(chain).isEmpty()) {
+            subscriptionManager.subscribe(chain, walletRegistry.wallets(chain).keySet(), this);
+        }
+    }
+    
+    /**
+     * Matches a registered wallet in scanned blocks, or schedules its polls
+     * 
+     * @param pollDelayMs When its first poll is due, on a polled chain
+     */
+    private void startTracking(WalletChain chain, String walletAddress, long pollDelayMs) {
+        if (rpcClient.isEvm(chain)) {
+            blockScanner.track(chain, walletAddress);
+        } else {
+            pollSchedule(chain).add(walletAddress, pollDelayMs);
+        }
+        if (chain == WalletChain.SUI) {
+            suiAddresses.add(walletAddress, 0);
+        }
+    }
+    
+    /**
+     * Tracks a stored wallet, polled first at a random point of the interval rather
+     * than all on the first tick. A wallet that cannot be tracked is logged and
+     * left out, without stopping the others.
+     */
+    private void resumeWallet(WalletChain chain, String walletAddress, long interval) {
+        try {
+            startTracking(chain, walletAddress, ThreadLocalRandom.current().nextLong(interval));
+        } catch (RuntimeException e) {
+            log.error("Could not track wallet {} on {} blockchain", walletAddress, chain, e);
         }
     }
     
+    private void stopTracking(WalletChain chain, String walletAddress) {
+        if (rpcClient.isEvm(chain)) {
+            blockScanner.untrack(chain, walletAddress);
+        } else {
+            pollSchedule(chain).remove(walletAddress);
+        }
+        if (chain == WalletChain.SUI) {
+            suiAddresses.remove(walletAddress);
+        }
+        subscriptionManager.removeWallet(chain, walletAddress);
+    }
+    
     /**
      * Gets all tracked wallets
      * 
@@ -67,15 +246,16 @@ public class WalletTrackingService {
     public Map<WalletChain, Set<String>> getTrackedWallets() {
         Map<WalletChain, Set<String>> result = new HashMap<>();
         
-        trackedWallets.forEach((chain, wallets) -> 
-            result.put(chain, new HashSet<>(wallets.keySet()))
+        walletRegistry.chains().forEach(chain -> 
+            result.put(chain, new HashSet<>(walletRegistry.wallets(chain).keySet()))
         );
         
         return result;
     }
     
     /**
-     * Manually fetches and processes a transaction
+     * Manually fetches and processes a transaction. Callers asking for a transaction
+     * that is being processed share that processing instead of storing it twice.
      * 
      * @param chain The blockchain
      * @param txHash The transaction hash
@@ -84,52 +264,660 @@ public class WalletTrackingService {
     public TransactionDTO fetchAndProcessTransaction(WalletChain chain, String txHash) {
         log.info("Manually fetching and processing transaction {} on {} blockchain", txHash, chain);
         
-        // Skip if already processed
-        if (processedTransactions.contains(txHash)) {
-            log.info("Transaction {} already processed, skipping", txHash);
-            return null;
-        }
-        
-        // Fetch the transaction
-        TransactionDTO transaction = rpcClient.getTransaction(chain, txHash);
-        
-        // Process the transaction
-        TransactionDTO processedTx = transactionService.trackTransaction(transaction);
+        return processing.executeBlocking(TransactionKey.of(chain, txHash), () -> {
+            // Skip if already processed
+            if (processedTransactions.isProcessed(chain, txHash, null)) {
+                log.info("Transaction {} already processed, skipping", txHash);
+                return null;
+            }
+            
+            // Fetch the transaction
+            TransactionDTO transaction = rpcClient.getTransaction(chain, txHash);
+            
+            // Process the transaction
+            return store(chain, transaction);
+        });
+    }
+    
+    /**
+     * Fetches and processes a transaction without blocking the calling thread
+     * 
+     * @param chain The blockchain
+     * @param txHash The transaction hash
+     * @return A future completed with the processed transaction, or null if it was already processed
+     */
+    public CompletableFuture<TransactionDTO> fetchAndProcessTransactionAsync(WalletChain chain, String txHash) {
+        return fetchAndProcessAsync(chain, txHash, () -> rpcClient.getTransactionAsync(chain, txHash));
+    }
+    
+    /**
+     * Fetches and processes a transaction pushed for a tracked wallet, recorded from
+     * that wallet's side as polling records it
+     */
+    private CompletableFuture<TransactionDTO> fetchAndProcessPushedAsync(WalletChain chain, String txHash) {
+        Predicate<String> isTracked = chain == WalletChain.SUI
+                ? suiAddresses::contains
+                : walletRegistry.wallets(chain)::containsKey;
+        return fetchAndProcessAsync(chain, txHash,
+                () -> rpcClient.getTrackedTransactionAsync(chain, txHash, isTracked));
+    }
+    
+    private CompletableFuture<TransactionDTO> fetchAndProcessAsync(WalletChain chain, String txHash,
+            Supplier<CompletableFuture<TransactionDTO>> fetch) {
+        return processing.execute(TransactionKey.of(chain, txHash), () -> {
+            if (processedTransactions.isProcessed(chain, txHash, null)) {
+                log.info("Transaction {} already processed, skipping", txHash);
+                return CompletableFuture.completedFuture(null);
+            }
+            
+            return fetch.get().thenApply(transaction -> store(chain, transaction));
+        });
+    }
+    
+    /**
+     * Fetches and processes many transactions concurrently; the RPC client bounds
+     * how many lookups are actually in flight per chain
+     * 
+     * @param chain The blockchain
+     * @param txHashes The transaction hashes
+     * @return A future completed with the newly processed transactions
+     */
+    public CompletableFuture<List<TransactionDTO>> fetchAndProcessTransactionsAsync(
+            WalletChain chain, Collection<String> txHashes) {
+        log.info("Fetching and processing {} transactions on {} blockchain", txHashes.size(), chain);
         
-        // Mark as processed
-        processedTransactions.add(txHash);
+        List<CompletableFuture<TransactionDTO>> futures = txHashes.stream()
+                .distinct()
+                .map(txHash -> fetchAndProcessTransactionAsync(chain, txHash)
+                        .exceptionally(e -> {
+                            log.error("Error processing transaction {} on {} blockchain", txHash, chain, e);
+                            return null;
+                        }))
+                .collect(Collectors.toList());
         
-        return processedTx;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
     }
     
     /**
-     * Scheduled task to poll for new transactions for tracked wallets
-     * In a real implementation, this would use blockchain-specific APIs to efficiently
-     * fetch new transactions, possibly using websockets or other notification mechanisms
+     * Stores a transaction that was already fetched, e.g. by the block scanner, unless
+     * it has been processed before. Token transfers are told apart by their log index,
+     * since one transaction can hold several of them.
+     * 
+     * @return The processed transaction, or null if it was already processed
      */
-    @Scheduled(fixedDelayString = "${blockchain.polling.interval:60000}")
-    public void pollForNewTransactions() {
-        log.info("Polling for new transactions for tracked wallets");
-        
-        trackedWallets.forEach((chain, wallets) -> {
-            wallets.forEach((walletAddress, lastTxHash) -> {
+    private TransactionDTO processTransaction(WalletChain chain, TransactionDTO transaction) {
+        Object logIndex = logIndexOf(transaction);
+        String key = logIndex != null ? transaction.getTxHash() + ":" + logIndex : transaction.getTxHash();
+        return processing.executeBlocking(TransactionKey.of(chain, key), () -> {
+            if (processedTransactions.isProcessed(chain, transaction.getTxHash(), logIndex)) {
+                return null;
+            }
+            return store(chain, transaction);
+        });
+    }
+    
+    /**
+     * Claims a transaction as processed and stores it. Another node, or this one
+     * before a restart, may have claimed it first; the claim then fails. A failed
+     * store gives the claim up again, so the transaction is retried.
+     * 
+     * @return The processed transaction, or null if it was stored already
+     */
+    private TransactionDTO store(WalletChain chain, TransactionDTO transaction) {
+        // Stored as the processed index keys it
+        transaction.setTxHash(TransactionKey.of(chain, transaction.getTxHash()).txHash());
+        Object logIndex = logIndexOf(transaction);
+        if (!processedTransactions.claim(chain, transaction.getTxHash(), logIndex)) {
+            log.info("Transaction {} on {} blockchain was already stored, skipping", transaction.getTxHash(), chain);
+            return null;
+        }
+        try {
+            return transactionService.trackTransaction(transaction);
+        } catch (RuntimeException e) {
+            processedTransactions.release(chain, transaction.getTxHash(), logIndex);
+            throw e;
+        }
+    }
+    
+    private static Object logIndexOf(TransactionDTO transaction) {
+        return transaction.getRawData() != null ? transaction.getRawData().get("logIndex") : null;
+    }
+    
+    /**
+     * Processes a transaction pushed by a chain subscription. A new head of an EVM
+     * chain starts a block scan right away instead of waiting for the scheduled one.
+     */
+    @Override
+    public void onEvent(WalletChain chain, SubscriptionEvent event) {
+        if (event.type() == SubscriptionEvent.Type.NEW_HEAD) {
+            log.debug("New {} block {}", chain, event.blockNumber());
+            if (rpcClient.isEvm(chain)) {
+                scanOnNewHead(chain);
+            }
+            return;
+        }
+        fetchAndProcessPushedAsync(chain, event.txHash())
+                .exceptionally(e -> {
+                    log.error("Error processing pushed transaction {} on {} blockchain", event.txHash(), chain, e);
+                    return null;
+                });
+    }
+
+    /**
+     * Catches up on what was pushed while a subscription was down. EVM chains need
+     * nothing, since the block scanner's cursor still points at the first block it
+     * has not read; on other chains every wallet is polled, whenever it was due.
+     */
+    @Override
+    public void onResubscribed(WalletChain chain, Long lastSeenBlock) {
+        if (rpcClient.isEvm(chain) || walletRegistry.wallets(chain).isEmpty()) {
+            return;
+        }
+        pollShards(chain, walletRegistry.wallets(chain).keySet());
+    }
+    
+    /**
+     * Scheduled task that reads new EVM blocks. Transactions of tracked wallets are
+     * only stored once their block is confirmed; with {@code confirmation.fast-alerts}
+     * they are alerted as provisional when first seen, and withdrawn if their block
+     * is dropped by a reorganization.
+     */
+    @Scheduled(fixedDelayString = "${blockchain.scanner.interval:3000}")
+    public void scanBlocks() {
+        walletRegistry.chains().stream()
+                .filter(rpcClient::isEvm)
+                .forEach(this::scanChain);
+    }
+    
+    /**
+     * Alerts and stores what a scan of the chain found. A confirmed transaction that
+     * cannot be stored is handed back to the confirmation buffer for the next scan,
+     * and the stored cursor stops before its block, so it is read again after a
+     * restart too.
+     */
+    private void scanChain(WalletChain chain) {
+        ReentrantLock lock = chainScans.computeIfAbsent(chain, k -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            ScanResult result = blockScanner.scan(chain);
+            if (!result.provisional().isEmpty() || !result.orphaned().isEmpty()) {
+                log.info("Found {} transactions of tracked wallets in new {} blocks, {} orphaned",
+                        result.provisional().size(), chain, result.orphaned().size());
+            }
+            if (chainProperties.get(chain, "confirmation.fast-alerts", Boolean.class, true)) {
+                result.orphaned().forEach(transaction -> alert(chain, transaction, this::withdrawProvisionalAlert));
+                result.provisional().forEach(transaction -> alert(chain, transaction, this::sendProvisionalAlert));
+            }
+            Long storedThrough = result.confirmedThrough();
+            List<TransactionDTO> unstored = new ArrayList<>();
+            for (TransactionDTO transaction : result.confirmed()) {
                 try {
-                    // In a real implementation, you would use chain-specific APIs to fetch
-                    // new transactions since lastTxHash. This is just a placeholder.
-                    log.info("Checking for new transactions for wallet {} on {} blockchain", 
-                            walletAddress, chain);
-                    
-                    // For demonstration purposes, we're not actually fetching new transactions here
-                    // In a real implementation, you would:
-                    // 1. Fetch new transactions for the wallet since lastTxHash
-                    // 2. Process each transaction
-                    // 3. Update the lastTxHash to the most recent transaction
-                    
-                } catch (Exception e) {
-                    log.error("Error polling for new transactions for wallet {} on {} blockchain", 
-                            walletAddress, chain, e);
+                    processTransaction(chain, transaction);
+                } catch (RuntimeException e) {
+                    log.error("Could not store transaction {} on {} blockchain, retrying next scan",
+                            transaction.getTxHash(), chain, e);
+                    unstored.add(transaction);
+                    Long blockNumber = EvmChainAdapter.blockNumberOf(transaction);
+                    if (storedThrough != null && blockNumber != null) {
+                        storedThrough = Math.min(storedThrough, blockNumber - 1);
+                    }
                 }
+            }
+            if (!unstored.isEmpty()) {
+                confirmationBuffer.requeue(chain, unstored);
+            }
+            if (storedThrough != null) {
+                walletRegistry.updateScanCursor(chain, storedThrough);
+            }
+        } catch (Exception e) {
+            log.error("Error scanning new blocks on {} blockchain", chain, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void alert(WalletChain chain, TransactionDTO transaction, BiConsumer<WalletChain, TransactionDTO> send) {
+        try {
+            send.accept(chain, transaction);
+        } catch (RuntimeException e) {
+            log.error("Could not send alert for transaction {} on {} blockchain", transaction.getTxHash(), chain, e);
+        }
+    }
+
+    /**
+     * Sends a provisional alert once per transaction, across restarts and replicas,
+     * and not at all for one that was already stored
+     */
+    private void sendProvisionalAlert(WalletChain chain, TransactionDTO transaction) {
+        String txHash = transaction.getTxHash();
+        Object logIndex = logIndexOf(transaction);
+        if (processedTransactions.isProcessed(chain, txHash, logIndex)
+                || !processedTransactions.claimProvisionalAlert(chain, txHash, logIndex)) {
+            return;
+        }
+        transactionService.sendProvisionalAlert(transaction);
+    }
+
+    private void withdrawProvisionalAlert(WalletChain chain, TransactionDTO transaction) {
+        processedTransactions.releaseProvisionalAlert(chain, transaction.getTxHash(), logIndexOf(transaction));
+        transactionService.withdrawProvisionalAlert(transaction);
+    }
+    
+    /**
+     * Scans a chain whose subscription announced a new head, on the head-scan pool
+     * rather than the subscription's thread. A chain has at most one such scan
+     * pending; heads announced meanwhile are read by it.
+     */
+    private void scanOnNewHead(WalletChain chain) {
+        if (!headScansPending.add(chain)) {
+            return;
+        }
+        try {
+            headScans.execute(() -> {
+                headScansPending.remove(chain);
+                scanChain(chain);
             });
+        } catch (RejectedExecutionException e) {
+            headScansPending.remove(chain);
+            log.warn("Could not start {} block scan for a new head: {}", chain, e.getMessage());
+        }
+    }
+    
+    private static ExecutorService newHeadScanPool() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("head-scan-");
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+    
+    @PreDestroy
+    void shutdownHeadScans() {
+        headScans.shutdownNow();
+    }
+    
+    /**
+     * Scheduled task to poll for new transactions for tracked wallets. EVM chains are
+     * covered by the block scan. On the others, every tick polls the wallets that are
+     * due: a wallet with new transactions is due again after {@code polling.interval},
+     * and each poll that finds nothing doubles that, up to {@code polling.max-interval}.
+     * Wallets of chains whose subscription connection is up are not polled but kept on
+     * their interval, since their transactions are pushed. The due wallets of each
+     * chain are polled in shards on the chain's own threads, so this returns right away.
+     */
+    @Scheduled(fixedDelayString = "${blockchain.polling.tick:1000}")
+    public void pollForNewTransactions() {
+        long now = System.currentTimeMillis();
+        pollSchedules.forEach((chain, schedule) -> {
+            List<String> due = schedule.due(now);
+            if (due.isEmpty()) {
+                return;
+            }
+            if (subscriptionManager.isConnected(chain)) {
+                log.debug("Skipping poll of {} wallets on {} blockchain, served by subscriptions", due.size(), chain);
+                schedule.deferred(due);
+            } else {
+                log.debug("Polling {} wallets on {} blockchain for new transactions", due.size(), chain);
+                pollShards(chain, due);
+            }
+        });
+    }
+    
+    private void pollShards(WalletChain chain, Collection<String> wallets) {
+        WalletPollSchedule schedule = pollSchedule(chain);
+        Set<String> notPolled = shardedPoller.poll(chain, wallets, shard -> {
+            Set<String> active;
+            try {
+                active = pollChain(chain, shard);
+            } catch (RuntimeException e) {
+                // A failed poll says nothing about the wallets' activity
+                schedule.deferred(shard);
+                throw e;
+            }
+            schedule.polled(shard, active);
+            PollCounters counters = pollCounters(chain);
+            counters.active().increment(active.size());
+            counters.idle().increment(shard.size() - active.size());
+        });
+        schedule.deferred(notPolled);
+    }
+    
+    private PollCounters pollCounters(WalletChain chain) {
+        return pollCounters.computeIfAbsent(chain, k -> new PollCounters(
+                pollCounter(chain, "active"), pollCounter(chain, "idle")));
+    }
+    
+    private Counter pollCounter(WalletChain chain, String activity) {
+        return Counter.builder("blockchain_polling_wallets_total")
+                .tag("chain", chain.name())
+                .tag("activity", activity)
+                .description("Wallet polls by whether they found new transactions")
+                .register(meterRegistry);
+    }
+    
+    private WalletPollSchedule pollSchedule(WalletChain chain) {
+        return pollSchedules.computeIfAbsent(chain, k -> {
+            WalletPollSchedule schedule = new WalletPollSchedule(
+                    Math.max(1, chainProperties.getInt(chain, "polling.tick", 1000)),
+                    minPollInterval(chain),
+                    chainProperties.getInt(chain, "polling.max-interval", 3600000));
+            Gauge.builder("blockchain_polling_scheduled_wallets", schedule, WalletPollSchedule::size)
+                    .tag("chain", chain.name())
+                    .description("Wallets with a poll scheduled on the chain")
+                    .register(meterRegistry);
+            return schedule;
+        });
+    }
+    
+    private long minPollInterval(WalletChain chain) {
+        return Math.max(1, chainProperties.getInt(chain, "polling.interval", 60000));
+    }
+    
+    /**
+     * @param shard The wallets to poll, a subset of the chain's tracked wallets
+     * @return The wallets that had new transactions
+     */
+    private Set<String> pollChain(WalletChain chain, Set<String> shard) {
+        if (chain == WalletChain.SOL) {
+            return pollSolana(shard);
+        }
+        if (chain == WalletChain.SUI) {
+            return pollSui(shard);
+        }
+        shard.forEach(walletAddress -> {
+            try {
+                // In a real implementation, you would use chain-specific APIs to fetch
+                // new transactions since lastTxHash. This is just a placeholder.
+                log.info("Checking for new transactions for wallet {} on {} blockchain", 
+                        walletAddress, chain);
+                
+                // For demonstration purposes, we're not actually fetching new transactions here
+                // In a real implementation, you would:
+                // 1. Fetch new transactions for the wallet since lastTxHash
+                // 2. Process each transaction
+                // 3. Update the lastTxHash to the most recent transaction
+                
+            } catch (Exception e) {
+                log.error("Error polling for new transactions for wallet {} on {} blockchain", 
+                        walletAddress, chain, e);
+            }
+        });
+        return Set.of();
+    }
+    
+    /**
+     * Reads the Solana transactions of a shard's wallets since their cursors: the new
+     * signatures of the wallets are listed in shared batches, and only the ones not
+     * processed yet are fetched. A wallet's cursor moves up to the last transaction
+     * stored in order, so one that could not be fetched is retried on the next poll.
+     *
+     * <p>A wallet with more new signatures than one poll lists has the newest ones
+     * stored, and the range between them and its cursor is kept in the cursor and
+     * read, newest pages first, on the next polls. While such a range is left, new
+     * signatures beyond a poll's listing wait for it, so there is never more than one.
+     *
+     * @return The wallets that had new signatures
+     */
+    private Set<String> pollSolana(Set<String> shard) {
+        Map<String, String> wallets = walletRegistry.wallets(WalletChain.SOL);
+        Map<String, String> values = new HashMap<>();
+        List<String> rangeWallets = new ArrayList<>();
+        List<SignatureQuery> ranges = new ArrayList<>();
+        shard.forEach(walletAddress -> {
+            String value = wallets.get(walletAddress);
+            if (value == null) {
+                return;
+            }
+            values.put(walletAddress, value);
+            SolanaCursor cursor = SolanaCursor.parse(value);
+            rangeWallets.add(walletAddress);
+            ranges.add(new SignatureQuery(walletAddress, cursor != null ? cursor.newest() : null, null,
+                    cursor != null ? solanaPageSize : 1));
+            if (cursor != null && cursor.hasGap()) {
+                rangeWallets.add(walletAddress);
+                ranges.add(new SignatureQuery(walletAddress, cursor.gapUntil(), cursor.gapBefore(), solanaPageSize));
+            }
+        });
+        if (ranges.isEmpty()) {
+            return Set.of();
+        }
+
+        // Failing here fails the shard's poll, which leaves the wallets' intervals alone
+        List<SignatureListing> listings = rpcClient.getSignatures(ranges);
+
+        Map<String, SignatureListing> newSignatures = new HashMap<>();
+        Map<String, SignatureListing> gapSignatures = new HashMap<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            if (listings.get(i) == null) {
+                continue;
+            }
+            if (ranges.get(i).before() == null) {
+                newSignatures.put(rangeWallets.get(i), listings.get(i));
+            } else {
+                gapSignatures.put(rangeWallets.get(i), listings.get(i));
+            }
+        }
+
+        Set<String> active = new HashSet<>();
+        values.forEach((walletAddress, value) -> {
+            SignatureListing added = newSignatures.get(walletAddress);
+            SignatureListing gap = gapSignatures.get(walletAddress);
+            if ((added == null || added.signatures().isEmpty()) && (gap == null || gap.signatures().isEmpty())) {
+                return;
+            }
+            active.add(walletAddress);
+            SolanaCursor cursor = SolanaCursor.parse(value);
+            SolanaCursor next = cursor == null
+                    ? new SolanaCursor(added.signatures().get(added.signatures().size() - 1).signature(), null, null)
+                    : readSolanaRanges(walletAddress, cursor, added, gap);
+            if (!next.equals(cursor)) {
+                // Left alone if the wallet was unregistered or re-registered meanwhile
+                walletRegistry.updateCursor(WalletChain.SOL, walletAddress, value, next.format());
+            }
+        });
+        return active;
+    }
+    
+    /**
+     * Stores the signatures listed for a wallet: first the range left by an earlier
+     * poll, then the new ones
+     *
+     * @param added The listing of the signatures newer than the cursor, or null if it failed
+     * @param gap The listing of the range left, or null if there is none or it failed
+     * @return The wallet's cursor after storing what could be fetched
+     */
+    private SolanaCursor readSolanaRanges(String walletAddress, SolanaCursor cursor, SignatureListing added,
+            SignatureListing gap) {
+        String newest = cursor.newest();
+        String gapBefore = cursor.gapBefore();
+        String gapUntil = cursor.gapUntil();
+        if (gap != null && !gap.signatures().isEmpty()) {
+            List<SolanaSignature> signatures = gap.signatures();
+            String stored = processSolanaSignatures(walletAddress, signatures, gap.complete() ? gapUntil : null);
+            boolean allStored = signatures.get(signatures.size() - 1).signature().equals(stored);
+            if (gap.complete()) {
+                // Read from the bottom of the range up, so whatever was stored closes it from below
+                gapUntil = stored;
+                if (allStored) {
+                    gapBefore = null;
+                    gapUntil = null;
+                }
+            } else if (allStored) {
+                // The top of the range is read; what is left ends below it
+                gapBefore = signatures.get(0).signature();
+            }
+        } else if (gap != null) {
+            gapBefore = null;
+            gapUntil = null;
+        }
+
+        if (added != null && !added.signatures().isEmpty()) {
+            List<SolanaSignature> signatures = added.signatures();
+            if (added.complete()) {
+                newest = processSolanaSignatures(walletAddress, signatures, newest);
+            } else if (gapBefore == null) {
+                String stored = processSolanaSignatures(walletAddress, signatures, null);
+                if (stored != null) {
+                    log.info("Wallet {} on SOL blockchain has more new signatures than one poll lists, "
+                            + "reading the older ones on the next polls", walletAddress);
+                    gapBefore = signatures.get(0).signature();
+                    gapUntil = newest;
+                    newest = stored;
+                }
+            }
+        }
+        return new SolanaCursor(newest, gapBefore, gapUntil);
+    }
+    
+    /**
+     * @param signatures New signatures of the wallet, oldest first
+     * @param cursor The signature below the first one, or null if it was not read
+     * @return The last signature stored in order, or the given cursor if none was
+     */
+    private String processSolanaSignatures(String walletAddress, List<SolanaSignature> signatures, String cursor) {
+        List<String> toFetch = signatures.stream()
+                .filter(signature -> !signature.failed())
+                .map(SolanaSignature::signature)
+                .filter(signature -> !processedTransactions.isProcessed(WalletChain.SOL, signature, null))
+                .toList();
+        log.info("Found {} new transactions for wallet {} on SOL blockchain ({} to fetch)",
+                signatures.size(), walletAddress, toFetch.size());
+
+        Map<String, TransactionLookup> lookups;
+        try {
+            lookups = rpcClient.getWalletTransactions(walletAddress, toFetch);
+        } catch (Exception e) {
+            log.error("Error fetching new transactions for wallet {} on SOL blockchain", walletAddress, e);
+            return cursor;
+        }
+
+        for (SolanaSignature signature : signatures) {
+            TransactionLookup lookup = lookups.get(signature.signature());
+            if (lookup != null) {
+                if (!lookup.isSuccess()) {
+                    log.warn("Could not fetch transaction {} for wallet {} on SOL blockchain: {}",
+                            signature.signature(), walletAddress, lookup.getError());
+                    return cursor;
+                }
+                TransactionDTO transaction = lookup.getTransaction();
+                transaction.setWalletAddress(walletAddress);
+                processTransaction(WalletChain.SOL, transaction);
+            }
+            cursor = signature.signature();
+        }
+        return cursor;
+    }
+    
+    /**
+     * Reads the Sui transactions of a shard's wallets since their cursors. Each wallet
+     * has a sent and a received query stream, and every round reads one page of each
+     * stream in shared batches. Pages come with the balance changes, so they are
+     * stored as they are. A wallet's first poll only finds where its streams start.
+     *
+     * @return The wallets that had new transactions in either stream
+     */
+    private Set<String> pollSui(Set<String> shard) {
+        Map<String, String> wallets = walletRegistry.wallets(WalletChain.SUI);
+        Map<String, String> cursors = new HashMap<>();
+        shard.forEach(walletAddress -> {
+            String cursor = wallets.get(walletAddress);
+            if (cursor != null) {
+                cursors.put(walletAddress, cursor);
+            }
         });
+        if (cursors.isEmpty()) {
+            return Set.of();
+        }
+
+        List<SuiStream> streams = new ArrayList<>();
+        cursors.forEach((walletAddress, value) -> {
+            SuiCursor cursor = SuiCursor.parse(value);
+            streams.add(new SuiStream(walletAddress, "FromAddress", cursor, cursor != null ? cursor.sent() : null));
+            streams.add(new SuiStream(walletAddress, "ToAddress", cursor, cursor != null ? cursor.received() : null));
+        });
+
+        List<SuiStream> pending = streams;
+        for (int page = 0; page < suiMaxPages && !pending.isEmpty(); page++) {
+            List<TransactionBlockQuery> queries = pending.stream().map(stream -> stream.query(suiPageSize)).toList();
+            List<TransactionBlockPage> pages = rpcClient.getTransactionBlockPages(queries, suiAddresses::contains);
+            List<SuiStream> nextPending = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                if (pages.get(i) != null && readSuiPage(pending.get(i), pages.get(i))) {
+                    nextPending.add(pending.get(i));
+                }
+            }
+            pending = nextPending;
+        }
+
+        Set<String> active = new HashSet<>();
+        for (int i = 0; i < streams.size(); i += 2) {
+            SuiStream sent = streams.get(i);
+            SuiStream received = streams.get(i + 1);
+            if (sent.started && received.started) {
+                // Left alone if the wallet was unregistered or re-registered meanwhile
+                walletRegistry.updateCursor(WalletChain.SUI, sent.walletAddress, cursors.get(sent.walletAddress),
+                        new SuiCursor(sent.cursor, received.cursor).format());
+            }
+            if (sent.found || received.found) {
+                active.add(sent.walletAddress);
+            }
+        }
+        return active;
+    }
+    
+    /**
+     * Stores the transactions of a page and moves its stream's cursor past them
+     * 
+     * @return true if the stream has another page to read
+     */
+    private boolean readSuiPage(SuiStream stream, TransactionBlockPage page) {
+        if (stream.started) {
+            try {
+                page.transactions().forEach(transaction -> processTransaction(WalletChain.SUI, transaction));
+                stream.found |= !page.transactions().isEmpty();
+            } catch (Exception e) {
+                log.error("Error processing transactions of wallet {} on SUI blockchain", stream.walletAddress, e);
+                return false;
+            }
+        }
+        boolean hasNextPage = stream.started && page.hasNextPage();
+        if (page.nextCursor() != null) {
+            stream.cursor = page.nextCursor();
+        }
+        stream.started = true;
+        return hasNextPage;
+    }
+    
+    private record PollCounters(Counter active, Counter idle) {
+    }
+    
+    /**
+     * The sent or received transactions of a Sui wallet, read oldest first from a cursor.
+     * A stream that has not started yet first looks up the wallet's newest transaction.
+     */
+    private static final class SuiStream {
+        private final String walletAddress;
+        private final String filter;
+        private String cursor;
+        private boolean started;
+        // Whether this poll read transactions past the cursor it started from
+        private boolean found;
+        
+        private SuiStream(String walletAddress, String filter, SuiCursor walletCursor, String cursor) {
+            this.walletAddress = walletAddress;
+            this.filter = filter;
+            this.cursor = cursor;
+            this.started = walletCursor != null;
+        }
+        
+        private TransactionBlockQuery query(int pageSize) {
+            return started
+                    ? new TransactionBlockQuery(filter, walletAddress, cursor, pageSize, false)
+                    : new TransactionBlockQuery(filter, walletAddress, null, 1, true);
+        }
     }
 }
@@ -0,0 +1,105 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.AssetType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The net change of one owner's balance of one asset within a transaction, for
+ * chains that report balance changes rather than transfers
+ */
+final class BalanceChange {
+
+    private final String owner;
+    private final AssetType asset;
+    private final String coin;
+    private final int decimals;
+    private BigInteger delta = BigInteger.ZERO;
+
+    /**
+     * @param coin The token's mint or coin type, or null for the chain's native asset
+     */
+    BalanceChange(String owner, AssetType asset, String coin, int decimals) {
+        this.owner = owner;
+        this.asset = asset;
+        this.coin = coin;
+        this.decimals = decimals;
+    }
+
+    void add(BigInteger amount) {
+        delta = delta.add(amount);
+    }
+
+    AssetType getAsset() {
+        return asset;
+    }
+
+    String getCoin() {
+        return coin;
+    }
+
+    BigInteger getDelta() {
+        return delta;
+    }
+
+    /**
+     * Records a transaction as one of its balance changes: the first one of a tracked
+     * owner if there is any, the largest increase otherwise. The counterparty is the
+     * largest change of the same asset in the other direction.
+     *
+     * @param changes Non-zero changes grouped by asset, tokens before the native asset,
+     *                since a token transfer also moves small native amounts, e.g. for rent
+     * @return The change recorded, or null if there is none and the transaction was left alone
+     */
+    static BalanceChange record(TransactionDTO transaction, List<BalanceChange> changes, Predicate<String> isTracked) {
+        BalanceChange change = changes.stream()
+                .filter(c -> isTracked.test(c.owner))
+                .findFirst()
+                .orElseGet(() -> largestIncrease(changes));
+        if (change == null) {
+            return null;
+        }
+
+        BalanceChange counterparty = counterparty(changes, change);
+        boolean received = change.delta.signum() > 0;
+        String other = counterparty != null ? counterparty.owner : null;
+        transaction.setFromAddress(received ? other : change.owner);
+        transaction.setToAddress(received ? change.owner : other);
+        transaction.setWalletAddress(change.owner);
+        transaction.setAmount(new BigDecimal(change.delta.abs(), change.decimals).doubleValue());
+        transaction.setAsset(change.asset);
+        return change;
+    }
+
+    private static BalanceChange largestIncrease(List<BalanceChange> changes) {
+        BalanceChange largest = null;
+        for (BalanceChange change : changes) {
+            if (largest != null && largest.asset != change.asset) {
+                break;
+            }
+            if (change.delta.signum() > 0 && (largest == null || change.delta.compareTo(largest.delta) > 0)) {
+                largest = change;
+            }
+        }
+        return largest;
+    }
+
+    private static BalanceChange counterparty(List<BalanceChange> changes, BalanceChange change) {
+        BalanceChange counterparty = null;
+        for (BalanceChange other : changes) {
+            if (other.asset != change.asset || !Objects.equals(other.coin, change.coin)
+                    || other.delta.signum() != -change.delta.signum()) {
+                continue;
+            }
+            if (counterparty == null || other.delta.abs().compareTo(counterparty.delta.abs()) > 0) {
+                counterparty = other;
+            }
+        }
+        return counterparty;
+    }
+}
@@ -0,0 +1,22 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectdata.transaction.model.AssetType;
+import com.projectdata.transaction.model.WalletChain;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * BSC uses the same format as Ethereum
+ */
+@Component
+public class BscChainAdapter extends EvmChainAdapter {
+
+    public BscChainAdapter(ObjectMapper objectMapper) {
+        // Using BTC as a placeholder, would need proper token detection
+        super(objectMapper, WalletChain.BSC, AssetType.BTC, Map.of(
+                // BSC-USD (Binance-Peg USDT) uses 18 decimals, unlike USDT on Ethereum
+                "0x55d398326f99059ff775485246999027b3197955", new Erc20Token(AssetType.USDT, 18)));
+    }
+}
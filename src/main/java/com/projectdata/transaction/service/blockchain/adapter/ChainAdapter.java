@@ -0,0 +1,38 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcRequestTemplate;
+import com.projectdata.transaction.service.blockchain.rpc.JsonValueDecoder;
+
+import java.util.function.Predicate;
+
+/**
+ * Everything chain-specific about looking up a transaction: the JSON-RPC call to
+ * send and how to decode its result. Implementations are Spring components and are
+ * picked up at startup, so supporting a new chain means adding an adapter.
+ */
+public interface ChainAdapter {
+
+    WalletChain getChain();
+
+    /**
+     * @return The call that looks a transaction up, with the hash as its open argument
+     */
+    JsonRpcRequestTemplate getTransactionRequest();
+
+    /**
+     * @return The decoder of that call's result. Decoded transactions carry no hash;
+     *         it is set once the reply is matched to its request.
+     */
+    JsonValueDecoder<TransactionDTO> getTransactionDecoder();
+
+    /**
+     * @param isTracked Tells whether an address belongs to a tracked wallet
+     * @return A decoder of the same call that records a transaction from a tracked
+     *         wallet's side, on chains where that differs from the default decoding
+     */
+    default JsonValueDecoder<TransactionDTO> getTransactionDecoder(Predicate<String> isTracked) {
+        return getTransactionDecoder();
+    }
+}
@@ -0,0 +1,11 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.projectdata.transaction.model.AssetType;
+
+/**
+ * A token contract whose transfers are tracked
+ *
+ * @param decimals The number of decimals the raw amounts are scaled by
+ */
+public record Erc20Token(AssetType asset, int decimals) {
+}
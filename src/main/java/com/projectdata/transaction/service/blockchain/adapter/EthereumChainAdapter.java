@@ -0,0 +1,17 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectdata.transaction.model.AssetType;
+import com.projectdata.transaction.model.WalletChain;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+public class EthereumChainAdapter extends EvmChainAdapter {
+
+    public EthereumChainAdapter(ObjectMapper objectMapper) {
+        super(objectMapper, WalletChain.ETH, AssetType.ETH, Map.of(
+                "0xdac17f958d2ee523a2206206994597c13d831ec7", new Erc20Token(AssetType.USDT, 6)));
+    }
+}
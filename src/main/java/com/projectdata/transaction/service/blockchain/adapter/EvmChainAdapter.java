@@ -0,0 +1,530 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.AssetType;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.BlockHeader;
+import com.projectdata.transaction.service.blockchain.BlockRange;
+import com.projectdata.transaction.service.blockchain.EvmBlock;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcReader;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcRequestTemplate;
+import com.projectdata.transaction.service.blockchain.rpc.JsonValueDecoder;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionEvent;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Base for Ethereum-compatible chains, which share the JSON-RPC API. EVM
+ * transactions carry no timestamp, so this adapter also describes the block
+ * header lookup the time is resolved from.
+ *
+ * <p>Native transfers are found in full blocks and ERC-20 transfers in the
+ * {@code Transfer} logs of those blocks. Subscriptions only follow new heads: the
+ * block scanner reads whatever they announce, and its cursor also covers any
+ * block announced while a connection was down.
+ */
+public abstract class EvmChainAdapter implements SubscriptionAdapter {
+
+    // Native EVM currencies (ETH, BNB) have 18 decimals
+    private static final int NATIVE_DECIMALS = 18;
+
+    // keccak256("Transfer(address,address,uint256)")
+    public static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+
+    private final ObjectMapper objectMapper;
+    private final WalletChain chain;
+    private final AssetType asset;
+    // Known token contracts by lowercase address; transfers of other tokens are skipped
+    private final Map<String, Erc20Token> tokens;
+    // The same contracts, as asked for in eth_getLogs and as set in a block's logs bloom
+    private final List<String> tokenContracts;
+    private final long[] tokenBloomBits;
+    private final JsonRpcRequestTemplate transactionRequest;
+    private final JsonRpcRequestTemplate blockHeaderRequest;
+    private final JsonRpcRequestTemplate blockRequest;
+
+    protected EvmChainAdapter(ObjectMapper objectMapper, WalletChain chain, AssetType asset,
+            Map<String, Erc20Token> tokens) {
+        this.objectMapper = objectMapper;
+        this.chain = chain;
+        this.asset = asset;
+        this.tokens = Map.copyOf(tokens);
+        this.tokenContracts = this.tokens.keySet().stream().sorted().toList();
+        this.tokenBloomBits = tokenContracts.stream().mapToLong(LogsBloom::bitsOfAddress).toArray();
+        this.transactionRequest = JsonRpcRequestTemplate.create(objectMapper, "eth_getTransactionByHash",
+                objectMapper.createArrayNode().add(JsonRpcRequestTemplate.ARGUMENT));
+        // false leaves the block's transaction list out of the response
+        this.blockHeaderRequest = JsonRpcRequestTemplate.create(objectMapper, "eth_getBlockByNumber",
+                objectMapper.createArrayNode().add(JsonRpcRequestTemplate.ARGUMENT).add(false));
+        this.blockRequest = JsonRpcRequestTemplate.create(objectMapper, "eth_getBlockByNumber",
+                objectMapper.createArrayNode().add(JsonRpcRequestTemplate.ARGUMENT).add(true));
+    }
+
+    @Override
+    public WalletChain getChain() {
+        return chain;
+    }
+
+    @Override
+    public JsonRpcRequestTemplate getTransactionRequest() {
+        return transactionRequest;
+    }
+
+    @Override
+    public JsonValueDecoder<TransactionDTO> getTransactionDecoder() {
+        return this::decodeTransaction;
+    }
+
+    /**
+     * @return The {@code eth_getBlockByNumber} call, with the hex block number or a tag
+     *         such as {@code "latest"} as its open argument
+     */
+    public JsonRpcRequestTemplate getBlockHeaderRequest() {
+        return blockHeaderRequest;
+    }
+
+    public JsonValueDecoder<BlockHeader> getBlockHeaderDecoder() {
+        return EvmChainAdapter::decodeBlockHeader;
+    }
+
+    /**
+     * @return The {@code eth_getBlockByNumber} call returning full transactions, with the
+     *         hex block number as its open argument
+     */
+    public JsonRpcRequestTemplate getBlockRequest() {
+        return blockRequest;
+    }
+
+    /**
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return The decoder of a full block that keeps only the transactions from or to
+     *         a tracked wallet
+     */
+    public JsonValueDecoder<EvmBlock> getBlockDecoder(Predicate<String> isTracked) {
+        return parser -> decodeBlock(parser, isTracked);
+    }
+
+    /**
+     * @return The logs bloom bits of each known token contract; a block whose bloom
+     *         has none of them holds no transfer of a known token
+     */
+    public long[] getTokenBloomBits() {
+        return tokenBloomBits.clone();
+    }
+
+    /**
+     * Renders one JSON-RPC batch of {@code eth_getLogs} calls for the Transfer logs
+     * of known tokens in each block range; the request id of each call is the index
+     * of its range. Only worth sending if there are known tokens, since an empty
+     * address list asks for every contract.
+     */
+    public byte[] renderTransferLogsBatch(List<BlockRange> ranges) {
+        ArrayNode batch = objectMapper.createArrayNode();
+        for (int i = 0; i < ranges.size(); i++) {
+            ObjectNode filter = objectMapper.createObjectNode()
+                    .put("fromBlock", HexQuantity.toHex(ranges.get(i).from()))
+                    .put("toBlock", HexQuantity.toHex(ranges.get(i).to()));
+            ArrayNode addresses = filter.putArray("address");
+            tokenContracts.forEach(addresses::add);
+            filter.putArray("topics").add(TRANSFER_TOPIC);
+
+            ObjectNode call = batch.addObject()
+                    .put("jsonrpc", "2.0")
+                    .put("method", "eth_getLogs");
+            call.putArray("params").add(filter);
+            call.put("id", i);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize eth_getLogs batch", e);
+        }
+    }
+
+    /**
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return The decoder of an {@code eth_getLogs} result into the transfers of known
+     *         tokens from or to a tracked wallet. They carry no timestamp yet.
+     */
+    public JsonValueDecoder<List<TransactionDTO>> getTransferLogDecoder(Predicate<String> isTracked) {
+        return parser -> decodeTransferLogs(parser, isTracked);
+    }
+
+    /**
+     * New heads only; what is in the blocks is read by the block scanner
+     */
+    @Override
+    public List<SubscriptionRequest> getSubscriptionRequests(Collection<String> wallets) {
+        return List.of(new SubscriptionRequest("eth_subscribe", objectMapper.createArrayNode().add("newHeads")));
+    }
+
+    @Override
+    public boolean subscribesPerWallet() {
+        return false;
+    }
+
+    @Override
+    public JsonValueDecoder<SubscriptionEvent> getNotificationDecoder() {
+        return EvmChainAdapter::decodeNotification;
+    }
+
+    /**
+     * @return The number of the block the transaction was included in, or null while it is pending
+     */
+    public static Long blockNumberOf(TransactionDTO transaction) {
+        Object blockNumber = transaction.getRawData() != null ? transaction.getRawData().get("blockNumber") : null;
+        if (blockNumber instanceof Number number) {
+            return number.longValue();
+        }
+        return blockNumber != null ? HexQuantity.parseLong(blockNumber.toString()) : null;
+    }
+
+    /**
+     * @return true if the text is a 0x-prefixed 20-byte hex address, in either case
+     */
+    public static boolean isAddress(String address) {
+        if (address == null || address.length() != 42 || !address.startsWith("0x")) {
+            return false;
+        }
+        for (int i = 2; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The address as an indexed log topic: lowercase and left-padded to 32 bytes
+     */
+    public static String addressTopic(String address) {
+        return "0x000000000000000000000000" + address.substring(2).toLowerCase();
+    }
+
+    private TransactionDTO decodeTransaction(JsonParser parser) throws IOException {
+        return toTransaction(readTransactionFields(parser));
+    }
+
+    private static EvmFields readTransactionFields(JsonParser parser) throws IOException {
+        EvmFields fields = new EvmFields();
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "hash":
+                    fields.hash = p.getValueAsString();
+                    return true;
+                case "from":
+                    fields.from = p.getValueAsString();
+                    return true;
+                case "to":
+                    fields.to = p.getValueAsString();
+                    return true;
+                case "value":
+                    fields.value = HexQuantity.read(p);
+                    return true;
+                case "gasPrice":
+                    fields.gasPrice = HexQuantity.read(p);
+                    return true;
+                case "gas":
+                    fields.gas = HexQuantity.read(p);
+                    return true;
+                case "nonce":
+                    fields.nonce = HexQuantity.read(p);
+                    return true;
+                case "blockNumber":
+                    fields.blockNumber = HexQuantity.read(p);
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        return fields;
+    }
+
+    private TransactionDTO toTransaction(EvmFields fields) {
+        // Exact fixed-point amount; only the conversion to the DTO's double rounds
+        BigDecimal value = HexQuantity.toDecimal(
+                Objects.requireNonNull(fields.value, "Transaction has no value"), NATIVE_DECIMALS);
+
+        // Build the DTO
+        TransactionDTO dto = new TransactionDTO();
+        dto.setBlockChain(chain);
+        dto.setTxHash(fields.hash);
+        dto.setFromAddress(fields.from);
+        dto.setToAddress(fields.to);
+        dto.setWalletAddress(fields.to); // Assuming recipient is the wallet we're tracking
+        dto.setAmount(value.doubleValue());
+        dto.setAsset(asset);
+        // EVM transactions carry no timestamp; it is resolved from the block header afterwards
+
+        // Store raw data for reference
+        Map<String, Object> rawData = new HashMap<>();
+        rawData.put("value", fields.value);
+        rawData.put("gasPrice", fields.gasPrice);
+        rawData.put("gasUsed", fields.gas);
+        rawData.put("nonce", fields.nonce);
+        rawData.put("blockNumber", fields.blockNumber);
+        dto.setRawData(rawData);
+
+        return dto;
+    }
+
+    /**
+     * Decodes an {@code eth_getBlockByNumber} result, skipping the transaction list
+     */
+    private static BlockHeader decodeBlockHeader(JsonParser parser) throws IOException {
+        HeaderFields fields = new HeaderFields();
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "number":
+                    fields.number = HexQuantity.read(p);
+                    return true;
+                case "hash":
+                    fields.hash = p.getValueAsString();
+                    return true;
+                case "parentHash":
+                    fields.parentHash = p.getValueAsString();
+                    return true;
+                case "timestamp":
+                    fields.timestamp = HexQuantity.read(p);
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        return toHeader(fields);
+    }
+
+    private static BlockHeader toHeader(HeaderFields fields) {
+        return new BlockHeader(
+                Objects.requireNonNull(fields.number, "Block has no number").longValue(),
+                fields.hash, fields.parentHash,
+                Instant.ofEpochSecond(Objects.requireNonNull(fields.timestamp, "Block has no timestamp").longValue()));
+    }
+
+    /**
+     * Decodes a block with full transactions. Every transaction is read into the same
+     * few fields, and only those from or to a tracked wallet become DTOs; they get
+     * the block's time once the whole block has been read.
+     */
+    private EvmBlock decodeBlock(JsonParser parser, Predicate<String> isTracked) throws IOException {
+        HeaderFields header = new HeaderFields();
+        byte[][] logsBloom = new byte[1][];
+        List<TransactionDTO> matches = new ArrayList<>();
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "number":
+                    header.number = HexQuantity.read(p);
+                    return true;
+                case "hash":
+                    header.hash = p.getValueAsString();
+                    return true;
+                case "parentHash":
+                    header.parentHash = p.getValueAsString();
+                    return true;
+                case "timestamp":
+                    header.timestamp = HexQuantity.read(p);
+                    return true;
+                case "logsBloom":
+                    logsBloom[0] = LogsBloom.parse(p.getValueAsString(""));
+                    return true;
+                case "transactions":
+                    readMatchingTransactions(p, isTracked, matches);
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        BlockHeader blockHeader = toHeader(header);
+        matches.forEach(transaction -> transaction.setTimestamp(blockHeader.getTimestamp()));
+        return new EvmBlock(blockHeader, logsBloom[0], matches);
+    }
+
+    private void readMatchingTransactions(JsonParser parser, Predicate<String> isTracked,
+            List<TransactionDTO> matches) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of block transactions");
+            }
+            EvmFields fields = readTransactionFields(parser);
+            boolean toTracked = fields.to != null && isTracked.test(fields.to);
+            boolean fromTracked = fields.from != null && isTracked.test(fields.from);
+            if (toTracked || fromTracked) {
+                TransactionDTO transaction = toTransaction(fields);
+                transaction.setWalletAddress(toTracked ? fields.to : fields.from);
+                matches.add(transaction);
+            }
+        }
+    }
+
+    /**
+     * Decodes a {@code newHeads} notification
+     */
+    private static SubscriptionEvent decodeNotification(JsonParser parser) throws IOException {
+        Number[] number = new Number[1];
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            if ("number".equals(field)) {
+                number[0] = HexQuantity.read(p);
+                return true;
+            }
+            return false;
+        });
+        return number[0] != null ? SubscriptionEvent.newHead(number[0].longValue()) : null;
+    }
+
+    private List<TransactionDTO> decodeTransferLogs(JsonParser parser, Predicate<String> isTracked)
+            throws IOException {
+        List<TransactionDTO> transfers = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return transfers;
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of eth_getLogs result");
+            }
+            TransactionDTO transfer = toTransfer(readLogFields(parser), isTracked);
+            if (transfer != null) {
+                transfers.add(transfer);
+            }
+        }
+        return transfers;
+    }
+
+    private static LogFields readLogFields(JsonParser parser) throws IOException {
+        LogFields fields = new LogFields();
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "address":
+                    fields.address = p.getValueAsString();
+                    return true;
+                case "topics":
+                    // Transfer has three topics; ERC-721 adds the token id as a fourth
+                    fields.topics = JsonRpcReader.readStrings(p, 4);
+                    return true;
+                case "data":
+                    fields.data = p.getValueAsString();
+                    return true;
+                case "transactionHash":
+                    fields.transactionHash = p.getValueAsString();
+                    return true;
+                case "blockNumber":
+                    fields.blockNumber = HexQuantity.read(p);
+                    return true;
+                case "logIndex":
+                    fields.logIndex = HexQuantity.read(p);
+                    return true;
+                case "removed":
+                    fields.removed = p.getValueAsBoolean();
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        return fields;
+    }
+
+    /**
+     * @return The ERC-20 transfer the log records, or null if it is not one of a known
+     *         token from or to a tracked wallet
+     */
+    private TransactionDTO toTransfer(LogFields fields, Predicate<String> isTracked) {
+        if (fields.removed || fields.address == null || fields.topics == null || fields.topics.size() != 3
+                || !TRANSFER_TOPIC.equalsIgnoreCase(fields.topics.get(0))) {
+            return null;
+        }
+        String from = topicAddress(fields.topics.get(1));
+        String to = topicAddress(fields.topics.get(2));
+        boolean toTracked = to != null && isTracked.test(to);
+        boolean fromTracked = from != null && isTracked.test(from);
+        Erc20Token token = tokens.get(fields.address.toLowerCase());
+        if (!(toTracked || fromTracked) || token == null || fields.data == null) {
+            return null;
+        }
+
+        Number rawAmount;
+        try {
+            rawAmount = HexQuantity.parse(fields.data);
+        } catch (NumberFormatException e) {
+            // Non-standard tokens may leave the amount out of the data
+            return null;
+        }
+
+        TransactionDTO dto = new TransactionDTO();
+        dto.setBlockChain(chain);
+        dto.setTxHash(fields.transactionHash);
+        dto.setFromAddress(from);
+        dto.setToAddress(to);
+        dto.setWalletAddress(toTracked ? to : from);
+        dto.setAmount(HexQuantity.toDecimal(rawAmount, token.decimals()).doubleValue());
+        dto.setAsset(token.asset());
+
+        Map<String, Object> rawData = new HashMap<>();
+        rawData.put("tokenContract", fields.address.toLowerCase());
+        rawData.put("value", rawAmount);
+        rawData.put("logIndex", fields.logIndex);
+        rawData.put("blockNumber", fields.blockNumber);
+        dto.setRawData(rawData);
+
+        return dto;
+    }
+
+    private static String topicAddress(String topic) {
+        return topic != null && topic.length() == 66 ? "0x" + topic.substring(26).toLowerCase() : null;
+    }
+
+    private static final class EvmFields {
+        private String hash;
+        private String from;
+        private String to;
+        private Number value;
+        private Number gasPrice;
+        private Number gas;
+        private Number nonce;
+        private Number blockNumber;
+    }
+
+    private static final class HeaderFields {
+        private Number number;
+        private String hash;
+        private String parentHash;
+        private Number timestamp;
+    }
+
+    private static final class LogFields {
+        private String address;
+        private List<String> topics;
+        private String data;
+        private String transactionHash;
+        private Number blockNumber;
+        private Number logIndex;
+        private boolean removed;
+    }
+}
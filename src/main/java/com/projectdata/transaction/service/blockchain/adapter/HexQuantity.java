@@ -0,0 +1,123 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Decodes EVM hex quantities ({@code "0x1bc16d674ec80000"}). Values that fit in 63
+ * bits are parsed into a {@code long} straight from the parser's character buffer,
+ * without substrings or {@link BigInteger}; only larger values fall back to
+ * {@code BigInteger}. Amounts become exact fixed-point decimals by setting the
+ * scale to the token's decimals instead of dividing.
+ */
+public final class HexQuantity {
+
+    private static final int MAX_LONG_DIGITS = 16;
+
+    private HexQuantity() {
+    }
+
+    /**
+     * Reads the quantity at the parser's current token
+     *
+     * @return A {@link Long} when the value fits, a {@link BigInteger} otherwise, or null for JSON null
+     */
+    public static Number read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberValue();
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            throw new NumberFormatException("Expected a hex quantity, got " + token);
+        }
+        return parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    public static Number parse(CharSequence hex) {
+        char[] chars = new char[hex.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = hex.charAt(i);
+        }
+        return parse(chars, 0, chars.length);
+    }
+
+    /**
+     * @return A {@link Long} when the value fits, a {@link BigInteger} otherwise
+     */
+    public static Number parse(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        if (length >= 2 && chars[start] == '0' && (chars[start + 1] == 'x' || chars[start + 1] == 'X')) {
+            start += 2;
+        }
+        if (start == end) {
+            throw new NumberFormatException("Empty hex quantity");
+        }
+        while (start < end - 1 && chars[start] == '0') {
+            start++;
+        }
+
+        int digits = end - start;
+        if (digits < MAX_LONG_DIGITS || (digits == MAX_LONG_DIGITS && digit(chars[start]) < 8)) {
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                value = (value << 4) | digit(chars[i]);
+            }
+            return value;
+        }
+
+        for (int i = start; i < end; i++) {
+            digit(chars[i]);
+        }
+        return new BigInteger(new String(chars, start, digits), 16);
+    }
+
+    /**
+     * @return The quantity as a long
+     * @throws ArithmeticException if it does not fit
+     */
+    public static long parseLong(CharSequence hex) {
+        Number value = parse(hex);
+        if (value instanceof BigInteger big) {
+            return big.longValueExact();
+        }
+        return value.longValue();
+    }
+
+    /**
+     * Scales a raw integer amount down by the token's decimals, exactly
+     *
+     * @param quantity A {@link Long} or {@link BigInteger}, e.g. wei
+     * @param decimals 18 for ether
+     */
+    public static BigDecimal toDecimal(Number quantity, int decimals) {
+        if (quantity instanceof BigInteger big) {
+            return new BigDecimal(big, decimals);
+        }
+        return BigDecimal.valueOf(quantity.longValue(), decimals);
+    }
+
+    public static String toHex(long quantity) {
+        return "0x" + Long.toHexString(quantity);
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new NumberFormatException("Invalid hex digit: " + c);
+    }
+}
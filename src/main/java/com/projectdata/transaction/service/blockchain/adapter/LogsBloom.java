@@ -0,0 +1,86 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+/**
+ * The 2048-bit {@code logsBloom} of an EVM block header. Every log address and
+ * topic of the block sets three bits, taken from the first six bytes of its
+ * Keccak-256 hash, so a block whose bloom lacks any of an item's bits has no log
+ * with that item.
+ */
+public final class LogsBloom {
+
+    private static final int BYTES = 256;
+
+    private LogsBloom() {
+    }
+
+    /**
+     * @param hex The header's {@code logsBloom}
+     * @return The bloom bytes, or null if the value is not a bloom
+     */
+    public static byte[] parse(String hex) {
+        int start = hex.startsWith("0x") ? 2 : 0;
+        if (hex.length() - start != 2 * BYTES) {
+            return null;
+        }
+        byte[] bloom = new byte[BYTES];
+        for (int i = 0; i < BYTES; i++) {
+            int high = Character.digit(hex.charAt(start + 2 * i), 16);
+            int low = Character.digit(hex.charAt(start + 2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bloom[i] = (byte) ((high << 4) | low);
+        }
+        return bloom;
+    }
+
+    /**
+     * @param item A log address (20 bytes) or topic (32 bytes)
+     * @return The three bit positions the item sets, packed 11 bits each
+     */
+    public static long bitsOf(byte[] item) {
+        byte[] hash = Keccak256.hash(item);
+        long bits = 0;
+        for (int i = 0; i < 6; i += 2) {
+            bits = (bits << 11) | (((hash[i] & 0xff) << 8 | (hash[i + 1] & 0xff)) & 2047);
+        }
+        return bits;
+    }
+
+    /**
+     * @param bits Bit positions from {@link #bitsOf}
+     * @return false if the block has definitely no log with the item
+     */
+    public static boolean mightContain(byte[] bloom, long bits) {
+        for (int i = 0; i < 3; i++, bits >>>= 11) {
+            int bit = (int) (bits & 2047);
+            if ((bloom[BYTES - 1 - bit / 8] & (1 << (bit % 8))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param topic A 32-byte topic as a 0x-prefixed hex string
+     */
+    public static long bitsOfTopic(String topic) {
+        return bitsOfHex(topic, 32);
+    }
+
+    /**
+     * @param address A 20-byte log address, the contract that emitted the log, as a 0x-prefixed hex string
+     */
+    public static long bitsOfAddress(String address) {
+        return bitsOfHex(address, 20);
+    }
+
+    private static long bitsOfHex(String hex, int length) {
+        byte[] bytes = new byte[length];
+        int start = hex.length() - 2 * length;
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(start + 2 * i, start + 2 * i + 2), 16);
+        }
+        return bitsOf(bytes);
+    }
+}
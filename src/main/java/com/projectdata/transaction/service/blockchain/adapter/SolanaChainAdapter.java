@@ -0,0 +1,468 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.AssetType;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcReader;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcRequestTemplate;
+import com.projectdata.transaction.service.blockchain.rpc.JsonValueDecoder;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionEvent;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+@Component
+public class SolanaChainAdapter implements SubscriptionAdapter {
+
+    private static final int LAMPORT_DECIMALS = 9;
+
+    // SPL token mints whose balance changes are recorded; their decimals come with the balances
+    private static final Map<String, AssetType> KNOWN_MINTS = Map.of(
+            "Es9vMFrzaCERmJfrF4H2FYD4KCoNkY11McCe8BenwNYB", AssetType.USDT);
+
+    private final ObjectMapper objectMapper;
+    private final JsonRpcRequestTemplate transactionRequest;
+
+    public SolanaChainAdapter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Versioned transactions are only returned when the client declares it understands them
+        this.transactionRequest = JsonRpcRequestTemplate.create(objectMapper, "getTransaction",
+                objectMapper.createArrayNode()
+                        .add(JsonRpcRequestTemplate.ARGUMENT)
+                        .add(objectMapper.createObjectNode()
+                                .put("encoding", "json")
+                                .put("maxSupportedTransactionVersion", 0)));
+    }
+
+    @Override
+    public WalletChain getChain() {
+        return WalletChain.SOL;
+    }
+
+    @Override
+    public JsonRpcRequestTemplate getTransactionRequest() {
+        return transactionRequest;
+    }
+
+    @Override
+    public JsonValueDecoder<TransactionDTO> getTransactionDecoder() {
+        return SolanaChainAdapter::decodeTransaction;
+    }
+
+    /**
+     * @param isTracked Tells whether an address belongs to a tracked wallet
+     * @return A decoder of the same call that records a transaction as the balance
+     *         change of a tracked wallet when it has one
+     */
+    @Override
+    public JsonValueDecoder<TransactionDTO> getTransactionDecoder(Predicate<String> isTracked) {
+        return parser -> toTransaction(readTransactionFields(parser), isTracked);
+    }
+
+    /**
+     * Renders one JSON-RPC batch of {@code getSignaturesForAddress} calls; the request
+     * id of each call is the index of its query
+     */
+    public byte[] renderSignaturesBatch(List<SignatureQuery> queries) {
+        ArrayNode batch = objectMapper.createArrayNode();
+        for (int i = 0; i < queries.size(); i++) {
+            SignatureQuery query = queries.get(i);
+            ObjectNode options = objectMapper.createObjectNode()
+                    .put("limit", query.limit())
+                    .put("commitment", "confirmed");
+            if (query.until() != null) {
+                options.put("until", query.until());
+            }
+            if (query.before() != null) {
+                options.put("before", query.before());
+            }
+
+            ObjectNode call = batch.addObject()
+                    .put("jsonrpc", "2.0")
+                    .put("method", "getSignaturesForAddress");
+            call.putArray("params").add(query.address()).add(options);
+            call.put("id", i);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize getSignaturesForAddress batch", e);
+        }
+    }
+
+    /**
+     * @return The decoder of a {@code getSignaturesForAddress} result, newest first
+     */
+    public JsonValueDecoder<List<SolanaSignature>> getSignaturesDecoder() {
+        return SolanaChainAdapter::decodeSignatures;
+    }
+
+    /**
+     * {@code logsSubscribe} accepts a single address per subscription, so every wallet
+     * gets its own. Its notifications carry the signature and slot of each
+     * transaction that mentions the wallet.
+     */
+    @Override
+    public List<SubscriptionRequest> getSubscriptionRequests(Collection<String> wallets) {
+        return wallets.stream()
+                .map(wallet -> new SubscriptionRequest("logsSubscribe", objectMapper.createArrayNode()
+                        .add(objectMapper.createObjectNode().set("mentions", objectMapper.createArrayNode().add(wallet)))
+                        .add(objectMapper.createObjectNode().put("commitment", "confirmed"))))
+                .toList();
+    }
+
+    @Override
+    public JsonValueDecoder<SubscriptionEvent> getNotificationDecoder() {
+        return SolanaChainAdapter::decodeNotification;
+    }
+
+    /**
+     * Decodes a {@code logsNotification}; failed transactions moved no funds and are dropped
+     */
+    private static SubscriptionEvent decodeNotification(JsonParser parser) throws IOException {
+        Long[] slot = new Long[1];
+        String[] signature = new String[1];
+        boolean[] failed = new boolean[1];
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            if ("context".equals(field)) {
+                JsonRpcReader.readObject(p, (contextField, cp) -> {
+                    if ("slot".equals(contextField) && cp.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                        slot[0] = cp.getLongValue();
+                        return true;
+                    }
+                    return false;
+                });
+                return true;
+            }
+            if ("value".equals(field)) {
+                JsonRpcReader.readObject(p, (valueField, vp) -> {
+                    if ("signature".equals(valueField)) {
+                        signature[0] = vp.getValueAsString();
+                        return true;
+                    }
+                    if ("err".equals(valueField)) {
+                        failed[0] = vp.currentToken() != JsonToken.VALUE_NULL;
+                    }
+                    return false;
+                });
+                return true;
+            }
+            return false;
+        });
+
+        return signature[0] != null && !failed[0] ? SubscriptionEvent.transaction(signature[0], slot[0]) : null;
+    }
+
+    private static List<SolanaSignature> decodeSignatures(JsonParser parser) throws IOException {
+        List<SolanaSignature> signatures = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return signatures;
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of getSignaturesForAddress result");
+            }
+            String[] signature = new String[1];
+            long[] slot = new long[1];
+            boolean[] failed = new boolean[1];
+            JsonRpcReader.readObject(parser, (field, p) -> {
+                switch (field) {
+                    case "signature":
+                        signature[0] = p.getValueAsString();
+                        return true;
+                    case "slot":
+                        slot[0] = p.getValueAsLong();
+                        return true;
+                    case "err":
+                        failed[0] = p.currentToken() != JsonToken.VALUE_NULL;
+                        return false;
+                    default:
+                        return false;
+                }
+            });
+            if (signature[0] != null) {
+                signatures.add(new SolanaSignature(signature[0], slot[0], failed[0]));
+            }
+        }
+        return signatures;
+    }
+
+    /**
+     * Decodes a Solana transaction into its largest balance change: a known token
+     * moving between owners if there is one, SOL otherwise
+     */
+    private static TransactionDTO decodeTransaction(JsonParser parser) throws IOException {
+        return toTransaction(readTransactionFields(parser), address -> false);
+    }
+
+    private static SolanaFields readTransactionFields(JsonParser parser) throws IOException {
+        SolanaFields fields = new SolanaFields();
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "slot":
+                    if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                        fields.slot = p.getLongValue();
+                    }
+                    return true;
+                case "blockTime":
+                    if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                        fields.blockTime = p.getLongValue();
+                    }
+                    return true;
+                case "meta":
+                    readMeta(p, fields);
+                    return true;
+                case "transaction":
+                    JsonRpcReader.readObject(p, (txField, tp) -> {
+                        if ("message".equals(txField)) {
+                            readMessage(tp, fields);
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        return fields;
+    }
+
+    private static void readMeta(JsonParser parser, SolanaFields fields) throws IOException {
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "fee":
+                    if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                        fields.fee = p.getLongValue();
+                    }
+                    return true;
+                case "preBalances":
+                    fields.preBalances = readLongs(p);
+                    return true;
+                case "postBalances":
+                    fields.postBalances = readLongs(p);
+                    return true;
+                case "preTokenBalances":
+                    fields.preTokenBalances = readTokenBalances(p);
+                    return true;
+                case "postTokenBalances":
+                    fields.postTokenBalances = readTokenBalances(p);
+                    return true;
+                case "loadedAddresses":
+                    // Accounts of address lookup tables, indexed after the message's own keys
+                    JsonRpcReader.readObject(p, (loadedField, lp) -> {
+                        if ("writable".equals(loadedField)) {
+                            fields.loadedWritable = JsonRpcReader.readStrings(lp, Integer.MAX_VALUE);
+                            return true;
+                        }
+                        if ("readonly".equals(loadedField)) {
+                            fields.loadedReadonly = JsonRpcReader.readStrings(lp, Integer.MAX_VALUE);
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                default:
+                    return false;
+            }
+        });
+    }
+
+    private static void readMessage(JsonParser parser, SolanaFields fields) throws IOException {
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            if ("accountKeys".equals(field)) {
+                fields.accountKeys = JsonRpcReader.readStrings(p, Integer.MAX_VALUE);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static List<Long> readLongs(JsonParser parser) throws IOException {
+        List<Long> values = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of JSON array");
+            }
+            values.add(token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : 0L);
+            parser.skipChildren();
+        }
+        return values;
+    }
+
+    private static List<TokenBalance> readTokenBalances(JsonParser parser) throws IOException {
+        List<TokenBalance> balances = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return balances;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of JSON array");
+            }
+            TokenBalance balance = new TokenBalance();
+            JsonRpcReader.readObject(parser, (field, p) -> {
+                switch (field) {
+                    case "mint":
+                        balance.mint = p.getValueAsString();
+                        return true;
+                    case "owner":
+                        balance.owner = p.getValueAsString();
+                        return true;
+                    case "uiTokenAmount":
+                        JsonRpcReader.readObject(p, (amountField, ap) -> {
+                            if ("amount".equals(amountField)) {
+                                balance.amount = new BigInteger(ap.getValueAsString("0"));
+                                return true;
+                            }
+                            if ("decimals".equals(amountField)) {
+                                balance.decimals = ap.getValueAsInt();
+                                return true;
+                            }
+                            return false;
+                        });
+                        return true;
+                    default:
+                        return false;
+                }
+            });
+            if (balance.mint != null && balance.owner != null) {
+                balances.add(balance);
+            }
+        }
+        return balances;
+    }
+
+    private static TransactionDTO toTransaction(SolanaFields fields, Predicate<String> isTracked) {
+        List<BalanceChange> changes = new ArrayList<>(tokenChanges(fields));
+        changes.addAll(solChanges(fields));
+
+        TransactionDTO dto = new TransactionDTO();
+        dto.setBlockChain(WalletChain.SOL);
+        dto.setTimestamp(fields.blockTime != null ? Instant.ofEpochSecond(fields.blockTime) : Instant.now());
+
+        Map<String, Object> rawData = new HashMap<>();
+        rawData.put("fee", fields.fee);
+        rawData.put("slot", fields.slot);
+        dto.setRawData(rawData);
+
+        BalanceChange change = BalanceChange.record(dto, changes, isTracked);
+        if (change == null) {
+            // Nothing but the fee moved
+            dto.setFromAddress(fields.accountKeys.isEmpty() ? null : fields.accountKeys.get(0));
+            dto.setAmount(0.0);
+            dto.setAsset(AssetType.SOL);
+            return dto;
+        }
+        if (change.getCoin() != null) {
+            rawData.put("tokenMint", change.getCoin());
+        }
+        rawData.put("value", change.getDelta().abs());
+        return dto;
+    }
+
+    /**
+     * Net change of each owner's balance of each known token
+     */
+    private static List<BalanceChange> tokenChanges(SolanaFields fields) {
+        Map<String, BalanceChange> byOwnerAndMint = new LinkedHashMap<>();
+        for (TokenBalance balance : fields.postTokenBalances) {
+            tokenChange(byOwnerAndMint, balance).add(balance.amount);
+        }
+        for (TokenBalance balance : fields.preTokenBalances) {
+            tokenChange(byOwnerAndMint, balance).add(balance.amount.negate());
+        }
+        byOwnerAndMint.values().removeIf(change -> change.getAsset() == null || change.getDelta().signum() == 0);
+        return new ArrayList<>(byOwnerAndMint.values());
+    }
+
+    private static BalanceChange tokenChange(Map<String, BalanceChange> byOwnerAndMint, TokenBalance balance) {
+        return byOwnerAndMint.computeIfAbsent(balance.owner + "/" + balance.mint, k -> new BalanceChange(
+                balance.owner, KNOWN_MINTS.get(balance.mint), balance.mint, balance.decimals));
+    }
+
+    /**
+     * Net change of each account's lamports; the fee payer's excludes the fee
+     */
+    private static List<BalanceChange> solChanges(SolanaFields fields) {
+        List<String> accounts = new ArrayList<>(fields.accountKeys);
+        accounts.addAll(fields.loadedWritable);
+        accounts.addAll(fields.loadedReadonly);
+
+        List<BalanceChange> changes = new ArrayList<>();
+        int count = Math.min(accounts.size(), Math.min(fields.preBalances.size(), fields.postBalances.size()));
+        for (int i = 0; i < count; i++) {
+            long delta = fields.postBalances.get(i) - fields.preBalances.get(i);
+            if (i == 0 && fields.fee != null) {
+                delta += fields.fee;
+            }
+            if (delta != 0) {
+                BalanceChange change = new BalanceChange(accounts.get(i), AssetType.SOL, null, LAMPORT_DECIMALS);
+                change.add(BigInteger.valueOf(delta));
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    private static final class SolanaFields {
+        private Long slot;
+        private Long blockTime;
+        private Long fee;
+        private List<String> accountKeys = List.of();
+        private List<String> loadedWritable = List.of();
+        private List<String> loadedReadonly = List.of();
+        private List<Long> preBalances = List.of();
+        private List<Long> postBalances = List.of();
+        private List<TokenBalance> preTokenBalances = List.of();
+        private List<TokenBalance> postTokenBalances = List.of();
+    }
+
+    private static final class TokenBalance {
+        private String mint;
+        private String owner;
+        private BigInteger amount = BigInteger.ZERO;
+        private int decimals;
+    }
+
+    /**
+     * One page of {@code getSignaturesForAddress}: signatures newer than {@code until}
+     * and older than {@code before}, either of which may be null
+     */
+    public record SignatureQuery(String address, String until, String before, int limit) {
+    }
+
+    /**
+     * The signatures of a range, oldest first
+     *
+     * @param complete false if the range holds older signatures that were not listed
+     */
+    public record SignatureListing(List<SolanaSignature> signatures, boolean complete) {
+    }
+}
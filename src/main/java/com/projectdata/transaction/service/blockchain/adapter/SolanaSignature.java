@@ -0,0 +1,9 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+/**
+ * An entry of {@code getSignaturesForAddress}
+ *
+ * @param failed Whether the transaction failed, in which case it moved nothing but its fee
+ */
+public record SolanaSignature(String signature, long slot, boolean failed) {
+}
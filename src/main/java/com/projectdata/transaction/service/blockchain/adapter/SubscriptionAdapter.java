@@ -0,0 +1,35 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.projectdata.transaction.service.blockchain.rpc.JsonValueDecoder;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionEvent;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionRequest;
+
+/**
+ * The push side of a chain's API: which WebSocket subscriptions cover a set of
+ * tracked wallets and how their notifications are decoded
+ */
+public interface SubscriptionAdapter extends ChainAdapter {
+
+    /**
+     * @param wallets The tracked wallets; may be empty
+     * @return The subscribe calls to send on a fresh connection
+     */
+    List<SubscriptionRequest> getSubscriptionRequests(Collection<String> wallets);
+
+    /**
+     * @return false if the subscriptions cover the whole chain, so adding or removing
+     *         a wallet needs no resubscribe
+     */
+    default boolean subscribesPerWallet() {
+        return true;
+    }
+
+    /**
+     * @return The decoder of a notification's {@code params.result}. A null event
+     *         means the notification is of no interest, e.g. a log removed by a reorg.
+     */
+    JsonValueDecoder<SubscriptionEvent> getNotificationDecoder();
+}
@@ -0,0 +1,423 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.AssetType;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcReader;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcRequestTemplate;
+import com.projectdata.transaction.service.blockchain.rpc.JsonValueDecoder;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionEvent;
+import com.projectdata.transaction.service.blockchain.subscription.SubscriptionRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+@Component
+public class SuiChainAdapter implements SubscriptionAdapter {
+
+    private static final String SUI_COIN_SUFFIX = "::sui::SUI";
+    private static final int MIST_DECIMALS = 9;
+
+    private final ObjectMapper objectMapper;
+    private final JsonRpcRequestTemplate transactionRequest;
+
+    public SuiChainAdapter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.transactionRequest = JsonRpcRequestTemplate.create(objectMapper, "sui_getTransactionBlock",
+                objectMapper.createArrayNode()
+                        .add(JsonRpcRequestTemplate.ARGUMENT)
+                        .add(responseOptions()));
+    }
+
+    @Override
+    public WalletChain getChain() {
+        return WalletChain.SUI;
+    }
+
+    @Override
+    public JsonRpcRequestTemplate getTransactionRequest() {
+        return transactionRequest;
+    }
+
+    @Override
+    public JsonValueDecoder<TransactionDTO> getTransactionDecoder() {
+        return SuiChainAdapter::decodeTransaction;
+    }
+
+    /**
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return A decoder of the same call that records a transaction as the SUI balance
+     *         change of a tracked wallet when it has one
+     */
+    @Override
+    public JsonValueDecoder<TransactionDTO> getTransactionDecoder(Predicate<String> isTracked) {
+        return parser -> toTransaction(readTransactionFields(parser), isTracked);
+    }
+
+    /**
+     * Renders one JSON-RPC batch of {@code suix_queryTransactionBlocks} calls, each
+     * returning its transactions with the balance changes; the request id of each
+     * call is the index of its query
+     */
+    public byte[] renderTransactionBlocksBatch(List<TransactionBlockQuery> queries) {
+        ArrayNode batch = objectMapper.createArrayNode();
+        for (int i = 0; i < queries.size(); i++) {
+            TransactionBlockQuery query = queries.get(i);
+            ObjectNode filter = objectMapper.createObjectNode().put(query.filter(), query.address());
+            ObjectNode transactionQuery = objectMapper.createObjectNode();
+            transactionQuery.set("filter", filter);
+            transactionQuery.set("options", responseOptions());
+
+            ObjectNode call = batch.addObject()
+                    .put("jsonrpc", "2.0")
+                    .put("method", "suix_queryTransactionBlocks");
+            call.putArray("params")
+                    .add(transactionQuery)
+                    .add(query.cursor())
+                    .add(query.limit())
+                    .add(query.descending());
+            call.put("id", i);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize suix_queryTransactionBlocks batch", e);
+        }
+    }
+
+    /**
+     * @param isTracked Tells whether an address, in any case, belongs to a tracked wallet
+     * @return The decoder of a {@code suix_queryTransactionBlocks} page. Failed
+     *         transactions are left out of it, but still move its cursor.
+     */
+    public JsonValueDecoder<TransactionBlockPage> getTransactionBlocksDecoder(Predicate<String> isTracked) {
+        return parser -> decodeTransactionBlocks(parser, isTracked);
+    }
+
+    private ObjectNode responseOptions() {
+        return objectMapper.createObjectNode()
+                .put("showInput", true)
+                .put("showEffects", true)
+                .put("showBalanceChanges", true);
+    }
+
+    /**
+     * Move events only cover transfers a package chose to emit, so wallets are
+     * followed through transaction subscriptions, which match sender and recipient
+     */
+    @Override
+    public List<SubscriptionRequest> getSubscriptionRequests(Collection<String> wallets) {
+        return wallets.stream()
+                .map(wallet -> new SubscriptionRequest("suix_subscribeTransaction", objectMapper.createArrayNode()
+                        .add(objectMapper.createObjectNode().set("FromOrToAddress",
+                                objectMapper.createObjectNode().put("addr", wallet)))))
+                .toList();
+    }
+
+    @Override
+    public JsonValueDecoder<SubscriptionEvent> getNotificationDecoder() {
+        return SuiChainAdapter::decodeNotification;
+    }
+
+    /**
+     * Decodes the transaction effects pushed for a matching transaction
+     */
+    private static SubscriptionEvent decodeNotification(JsonParser parser) throws IOException {
+        String[] digest = new String[1];
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            if ("transactionDigest".equals(field)) {
+                digest[0] = p.getValueAsString();
+                return true;
+            }
+            return false;
+        });
+        return digest[0] != null ? SubscriptionEvent.transaction(digest[0], null) : null;
+    }
+
+    private static TransactionBlockPage decodeTransactionBlocks(JsonParser parser, Predicate<String> isTracked)
+            throws IOException {
+        List<TransactionDTO> transactions = new ArrayList<>();
+        String[] nextCursor = new String[1];
+        boolean[] hasNextPage = new boolean[1];
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "data":
+                    if (p.currentToken() != JsonToken.START_ARRAY) {
+                        return false;
+                    }
+                    JsonToken token;
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token == null) {
+                            throw new EOFException("Unexpected end of suix_queryTransactionBlocks result");
+                        }
+                        SuiFields fields = readTransactionFields(p);
+                        if (fields.status == null || "success".equals(fields.status)) {
+                            transactions.add(toTransaction(fields, isTracked));
+                        }
+                    }
+                    return true;
+                case "nextCursor":
+                    nextCursor[0] = p.currentToken() == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+                    return true;
+                case "hasNextPage":
+                    hasNextPage[0] = p.getValueAsBoolean();
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        return new TransactionBlockPage(transactions, nextCursor[0], hasNextPage[0]);
+    }
+
+    /**
+     * Decodes a SUI transaction into its largest SUI balance change. Of the effects
+     * only the execution status and gas costs are kept; the rest is skipped rather
+     * than stored as a string.
+     */
+    private static TransactionDTO decodeTransaction(JsonParser parser) throws IOException {
+        return toTransaction(readTransactionFields(parser), address -> false);
+    }
+
+    private static SuiFields readTransactionFields(JsonParser parser) throws IOException {
+        SuiFields fields = new SuiFields();
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "digest":
+                    fields.digest = p.getValueAsString();
+                    return true;
+                case "timestampMs":
+                    // Encoded as a string by current nodes, as a number by older ones
+                    if (p.currentToken() != JsonToken.VALUE_NULL) {
+                        fields.timestampMs = p.getValueAsLong();
+                    }
+                    return true;
+                case "checkpoint":
+                    if (p.currentToken() != JsonToken.VALUE_NULL) {
+                        fields.checkpoint = p.getValueAsLong();
+                    }
+                    return true;
+                case "transaction":
+                    readTransactionBlock(p, fields);
+                    return true;
+                case "effects":
+                    readEffects(p, fields);
+                    return true;
+                case "balanceChanges":
+                    readBalanceChanges(p, fields);
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        return fields;
+    }
+
+    /**
+     * Records a transaction as the SUI balance change of a tracked wallet when it has
+     * one. The sender's change leaves out the gas it paid.
+     */
+    private static TransactionDTO toTransaction(SuiFields fields, Predicate<String> isTracked) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setBlockChain(WalletChain.SUI);
+        dto.setTxHash(fields.digest);
+        dto.setTimestamp(fields.timestampMs != null ? Instant.ofEpochMilli(fields.timestampMs) : Instant.now());
+
+        Map<String, Object> rawData = new HashMap<>();
+        rawData.put("digest", fields.digest);
+        rawData.put("checkpoint", fields.checkpoint);
+        rawData.put("status", fields.status);
+        rawData.put("gasUsed", fields.gasUsed);
+        dto.setRawData(rawData);
+
+        BigInteger gas = netGas(fields.gasUsed);
+        List<BalanceChange> changes = new ArrayList<>();
+        for (SuiBalanceChange balanceChange : fields.balanceChanges) {
+            BigInteger amount = balanceChange.amount;
+            if (balanceChange.owner.equalsIgnoreCase(fields.sender)) {
+                amount = amount.add(gas);
+            }
+            if (amount.signum() != 0) {
+                BalanceChange change = new BalanceChange(balanceChange.owner, AssetType.SUI, null, MIST_DECIMALS);
+                change.add(amount);
+                changes.add(change);
+            }
+        }
+
+        BalanceChange change = BalanceChange.record(dto, changes, isTracked);
+        if (change == null) {
+            // Nothing but gas moved, e.g. an object transfer
+            dto.setFromAddress(fields.sender);
+            dto.setAmount(0.0);
+            dto.setAsset(AssetType.SUI);
+            return dto;
+        }
+        rawData.put("value", change.getDelta().abs());
+        return dto;
+    }
+
+    private static BigInteger netGas(Map<String, String> gasUsed) {
+        try {
+            return parseCost(gasUsed.get("computationCost"))
+                    .add(parseCost(gasUsed.get("storageCost")))
+                    .subtract(parseCost(gasUsed.get("storageRebate")));
+        } catch (NumberFormatException e) {
+            return BigInteger.ZERO;
+        }
+    }
+
+    private static BigInteger parseCost(String cost) {
+        return cost != null ? new BigInteger(cost) : BigInteger.ZERO;
+    }
+
+    /**
+     * Reads the SUI balance changes of addresses; other coins and object owners are skipped
+     */
+    private static void readBalanceChanges(JsonParser parser, SuiFields fields) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of balance changes");
+            }
+            SuiBalanceChange change = new SuiBalanceChange();
+            JsonRpcReader.readObject(parser, (field, p) -> {
+                switch (field) {
+                    case "owner":
+                        JsonRpcReader.readObject(p, (ownerField, op) -> {
+                            if ("AddressOwner".equals(ownerField)) {
+                                change.owner = op.getValueAsString();
+                                return true;
+                            }
+                            return false;
+                        });
+                        return true;
+                    case "coinType":
+                        change.coinType = p.getValueAsString();
+                        return true;
+                    case "amount":
+                        change.amount = new BigInteger(p.getValueAsString("0"));
+                        return true;
+                    default:
+                        return false;
+                }
+            });
+            if (change.owner != null && isSui(change.coinType)) {
+                fields.balanceChanges.add(change);
+            }
+        }
+    }
+
+    /**
+     * The framework address 0x2 is written short by nodes and zero-padded to 32 bytes
+     * by some indexers
+     */
+    private static boolean isSui(String coinType) {
+        if (coinType == null || !coinType.startsWith("0x") || !coinType.endsWith(SUI_COIN_SUFFIX)) {
+            return false;
+        }
+        String address = coinType.substring(2, coinType.length() - SUI_COIN_SUFFIX.length());
+        return address.replaceFirst("^0+", "").equals("2");
+    }
+
+    private static void readTransactionBlock(JsonParser parser, SuiFields fields) throws IOException {
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "digest":
+                    // Older nodes nest the digest inside the transaction
+                    if (fields.digest == null) {
+                        fields.digest = p.getValueAsString();
+                    }
+                    return true;
+                case "data":
+                    JsonRpcReader.readObject(p, (dataField, dp) -> {
+                        if ("sender".equals(dataField)) {
+                            fields.sender = dp.getValueAsString();
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                default:
+                    return false;
+            }
+        });
+    }
+
+    private static void readEffects(JsonParser parser, SuiFields fields) throws IOException {
+        JsonRpcReader.readObject(parser, (field, p) -> {
+            switch (field) {
+                case "status":
+                    JsonRpcReader.readObject(p, (statusField, sp) -> {
+                        if ("status".equals(statusField)) {
+                            fields.status = sp.getValueAsString();
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                case "gasUsed":
+                    JsonRpcReader.readObject(p, (costField, cp) -> {
+                        if (!cp.currentToken().isScalarValue()) {
+                            return false;
+                        }
+                        fields.gasUsed.put(costField, cp.getValueAsString());
+                        return true;
+                    });
+                    return true;
+                default:
+                    return false;
+            }
+        });
+    }
+
+    private static final class SuiFields {
+        private String digest;
+        private Long timestampMs;
+        private Long checkpoint;
+        private String sender;
+        private String status;
+        private final Map<String, String> gasUsed = new HashMap<>();
+        private final List<SuiBalanceChange> balanceChanges = new ArrayList<>();
+    }
+
+    private static final class SuiBalanceChange {
+        private String owner;
+        private String coinType;
+        private BigInteger amount = BigInteger.ZERO;
+    }
+
+    /**
+     * One page of {@code suix_queryTransactionBlocks}
+     *
+     * @param filter {@code FromAddress} or {@code ToAddress}; nodes do not serve
+     *               {@code FromOrToAddress} queries
+     * @param cursor The digest to continue after, or null to start at either end
+     */
+    public record TransactionBlockQuery(String filter, String address, String cursor, int limit,
+            boolean descending) {
+    }
+
+    /**
+     * @param nextCursor The digest of the page's last transaction, or null if it is empty
+     */
+    public record TransactionBlockPage(List<TransactionDTO> transactions, String nextCursor, boolean hasNextPage) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking call against one RPC endpoint
+ */
+@FunctionalInterface
+public interface AsyncRpcCall<T> {
+
+    CompletableFuture<T> call(RpcEndpoint endpoint);
+}
@@ -0,0 +1,119 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-endpoint circuit breaker. After {@code failureThreshold} consecutive provider
+ * failures the circuit opens and calls fail fast; once {@code openDuration} has
+ * passed a limited number of probe calls are let through (half-open), and the
+ * first probe decides whether the circuit closes again or re-opens.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenMaxCalls;
+    private final BiConsumer<State, State> transitionListener;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int halfOpenCalls;
+
+    /**
+     * @param transitionListener Notified with the old and new state on every transition
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMs, int halfOpenMaxCalls,
+            BiConsumer<State, State> transitionListener) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+        this.transitionListener = transitionListener;
+    }
+
+    /**
+     * Asks to make a call; in the half-open state this takes one of the probe slots
+     *
+     * @return true if the call may proceed
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (halfOpenCalls >= halfOpenMaxCalls) {
+                    return false;
+                }
+                halfOpenCalls++;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks whether a call would currently be permitted, without taking a probe slot
+     */
+    public synchronized boolean isCallPermitted() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                return halfOpenCalls < halfOpenMaxCalls;
+            default:
+                return System.nanoTime() - openedAt >= openDurationNanos;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Releases a probe slot for a call whose failure says nothing about the endpoint
+     */
+    public synchronized void onIgnoredFailure() {
+        if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+            halfOpenCalls--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State newState) {
+        State oldState = state;
+        if (oldState == newState) {
+            return;
+        }
+        state = newState;
+        consecutiveFailures = 0;
+        halfOpenCalls = 0;
+        transitionListener.accept(oldState, newState);
+    }
+}
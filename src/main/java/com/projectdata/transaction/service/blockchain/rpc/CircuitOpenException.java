@@ -0,0 +1,12 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+/**
+ * Raised without contacting the provider when the circuit breakers of every
+ * candidate endpoint are open
+ */
+public class CircuitOpenException extends RpcException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,200 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of asynchronous calls in flight at once. Calls over the limit
+ * are queued rather than blocking the caller, and start as earlier calls complete.
+ *
+ * <p>The limit adapts with AIMD: every successful call grows it by roughly one
+ * per round trip's worth of calls, and a throttled call or a latency spike well
+ * above the baseline halves it (at most once per round trip), always staying
+ * within {@code [minLimit, maxLimit]}. Spikes feed the baseline too, more slowly,
+ * so latency that stays higher, e.g. under provider load or with larger batches,
+ * becomes the new baseline and the limit grows back.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double BASELINE_ALPHA = 0.05;
+    private static final double SPIKE_BASELINE_ALPHA = 0.01;
+    private static final long MIN_DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    // Drain requests not yet served; only the caller that raises it from zero drains
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    private volatile double limit;
+    private double baselineNanos = Double.NaN;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param initialLimit The limit to start from
+     * @param minLimit The lowest the limit can be cut to
+     * @param maxLimit The highest the limit can grow to
+     * @param backoffRatio Multiplier applied to the limit on overload
+     * @param latencyTolerance A latency above this multiple of the baseline counts as overload
+     */
+    public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+            double backoffRatio, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits for " + name + ": " + minLimit + ".." + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Runs the task as soon as a slot is free
+     *
+     * @param task Starts the asynchronous call
+     * @return A future completed with the outcome of the call
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        waiting.add(() -> {
+            CompletableFuture<T> call;
+            try {
+                call = task.get();
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+
+        return result;
+    }
+
+    /**
+     * Feeds the latency of a successful call into the limit
+     */
+    public void onSuccess(long latencyNanos) {
+        boolean spike;
+        synchronized (this) {
+            spike = !Double.isNaN(baselineNanos) && latencyNanos > baselineNanos * latencyTolerance;
+            if (spike) {
+                decrease();
+                baselineNanos = SPIKE_BASELINE_ALPHA * latencyNanos + (1 - SPIKE_BASELINE_ALPHA) * baselineNanos;
+            } else {
+                baselineNanos = Double.isNaN(baselineNanos)
+                        ? latencyNanos
+                        : BASELINE_ALPHA * latencyNanos + (1 - BASELINE_ALPHA) * baselineNanos;
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+        if (!spike) {
+            drain();
+        }
+    }
+
+    /**
+     * Records that the provider throttled or timed out a call
+     */
+    public synchronized void onOverload() {
+        decrease();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return waiting.size();
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        long interval = Double.isNaN(baselineNanos)
+                ? MIN_DECREASE_INTERVAL_NANOS
+                : Math.max(MIN_DECREASE_INTERVAL_NANOS, (long) baselineNanos);
+        // Calls already in flight report the same overload; only react once per round trip
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < interval) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Starts queued calls while slots are free. Only one caller drains at a time, and
+     * a drain requested meanwhile, e.g. by a call that completed synchronously and gave
+     * its slot back, makes it go round once more instead of recursing, so a long queue
+     * of calls that fail right away cannot overflow the stack.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        do {
+            startQueued();
+            requests = drainRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    /**
+     * Checking the queue again after giving a slot back closes the race with a
+     * concurrent submit
+     */
+    private void startQueued() {
+        while (!waiting.isEmpty()) {
+            if (!tryAcquire()) {
+                return;
+            }
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            next.run();
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming reader for JSON-RPC responses. Only {@code id}, {@code error} and the
+ * parts of {@code result} a {@link JsonValueDecoder} asks for are materialized;
+ * everything else is skipped token by token without building a tree.
+ */
+public final class JsonRpcReader {
+
+    /**
+     * Handles one field of an object; the parser is positioned on the field's value
+     */
+    @FunctionalInterface
+    public interface FieldHandler {
+
+        /**
+         * @return true if the value was consumed, false to have it skipped
+         */
+        boolean handle(String field, JsonParser parser) throws IOException;
+    }
+
+    private JsonRpcReader() {
+    }
+
+    /**
+     * Reads the response to a single JSON-RPC call
+     */
+    public static <T> JsonRpcReply<T> readSingle(JsonFactory jsonFactory, InputStream body,
+            JsonValueDecoder<T> decoder) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RpcException("Unexpected JSON-RPC response: expected an object");
+            }
+            return readReply(parser, decoder);
+        }
+    }
+
+    /**
+     * Reads the response to a JSON-RPC batch. A provider that rejects the whole batch
+     * answers with a single error object, which is returned as one reply with an
+     * unknown id.
+     */
+    public static <T> List<JsonRpcReply<T>> readBatch(JsonFactory jsonFactory, InputStream body,
+            JsonValueDecoder<T> decoder) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                return List.of(readReply(parser, decoder));
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new RpcException("Unexpected JSON-RPC batch response: expected an array");
+            }
+
+            List<JsonRpcReply<T>> replies = new ArrayList<>();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new EOFException("Unexpected end of JSON-RPC batch response");
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    replies.add(readReply(parser, decoder));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return replies;
+        }
+    }
+
+    /**
+     * Reads one response object; the parser must be on its {@code START_OBJECT}.
+     * If the decoder fails on a result, the rest of that result is skipped and the
+     * failure is reported on the reply, so one bad item does not break a batch.
+     */
+    public static <T> JsonRpcReply<T> readReply(JsonParser parser, JsonValueDecoder<T> decoder) throws IOException {
+        JsonStreamContext replyContext = parser.getParsingContext();
+        int id = JsonRpcReply.UNKNOWN_ID;
+        T result = null;
+        String error = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "id":
+                    if (value == JsonToken.VALUE_NUMBER_INT) {
+                        id = parser.getIntValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "result":
+                    if (value != JsonToken.VALUE_NULL) {
+                        try {
+                            result = decoder.decode(parser);
+                        } catch (RuntimeException e) {
+                            skipTo(parser, replyContext);
+                            error = "Failed to decode result: " + e.getMessage();
+                        }
+                    }
+                    break;
+                case "error":
+                    if (value != JsonToken.VALUE_NULL) {
+                        error = readError(parser);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return new JsonRpcReply<>(id, error != null ? null : result, error);
+    }
+
+    /**
+     * Walks the fields of the object the parser is on, skipping every value the
+     * handler does not consume. Anything other than an object is skipped entirely.
+     */
+    public static void readObject(JsonParser parser, FieldHandler handler) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (!handler.handle(field, parser)) {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} leading string elements of the array the parser is on
+     * and skips the rest
+     */
+    public static List<String> readStrings(JsonParser parser, int limit) throws IOException {
+        List<String> values = new ArrayList<>(Math.min(limit, 16));
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new EOFException("Unexpected end of JSON array");
+            }
+            if (values.size() < limit && token == JsonToken.VALUE_STRING) {
+                values.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static String readError(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            String text = parser.getValueAsString();
+            parser.skipChildren();
+            return text != null ? text : "RPC error";
+        }
+
+        String[] codeAndMessage = new String[2];
+        readObject(parser, (field, p) -> {
+            if ("code".equals(field)) {
+                codeAndMessage[0] = p.getValueAsString();
+                return true;
+            }
+            if ("message".equals(field)) {
+                codeAndMessage[1] = p.getValueAsString();
+                return true;
+            }
+            return false;
+        });
+        return "RPC error " + codeAndMessage[0] + ": " + codeAndMessage[1];
+    }
+
+    private static void skipTo(JsonParser parser, JsonStreamContext context) throws IOException {
+        while (parser.getParsingContext() != context) {
+            if (parser.nextToken() == null) {
+                throw new EOFException("Unexpected end of JSON-RPC response");
+            }
+        }
+    }
+}
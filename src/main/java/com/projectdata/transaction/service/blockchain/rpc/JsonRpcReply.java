@@ -0,0 +1,41 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+/**
+ * One decoded JSON-RPC response object
+ */
+public class JsonRpcReply<T> {
+
+    public static final int UNKNOWN_ID = -1;
+
+    private final int id;
+    private final T result;
+    private final String error;
+
+    JsonRpcReply(int id, T result, String error) {
+        this.id = id;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * @return The request id, or {@link #UNKNOWN_ID} when it was missing or not an integer
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The decoded result, or null when the result was JSON null or an error was returned
+     */
+    public T getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+}
@@ -0,0 +1,156 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A JSON-RPC call serialized once at startup, with a single string parameter left
+ * open. Rendering copies the fixed bytes around the spliced-in argument and the
+ * request id into one exactly sized array, so no tree or intermediate string is
+ * built per call.
+ */
+public final class JsonRpcRequestTemplate {
+
+    /**
+     * Stands in for the open parameter when building the template
+     */
+    public static final String ARGUMENT = "\u0000argument\u0000";
+
+    private final byte[] head;
+    private final byte[] tail;
+
+    private JsonRpcRequestTemplate(byte[] head, byte[] tail) {
+        this.head = head;
+        this.tail = tail;
+    }
+
+    /**
+     * @param method The JSON-RPC method
+     * @param params The parameters, with {@link #ARGUMENT} in place of the open one
+     */
+    public static JsonRpcRequestTemplate create(ObjectMapper objectMapper, String method, ArrayNode params) {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("jsonrpc", "2.0");
+        request.put("method", method);
+        request.set("params", params);
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize JSON-RPC template for " + method, e);
+        }
+
+        String marker = new String(JsonStringEncoder.getInstance().quoteAsString(ARGUMENT));
+        int at = json.indexOf(marker);
+        if (at < 0 || json.indexOf(marker, at + 1) >= 0) {
+            throw new IllegalArgumentException("JSON-RPC template for " + method + " needs exactly one argument");
+        }
+
+        // The id goes last so that it can be appended after the parameters
+        String head = json.substring(0, at);
+        String tail = json.substring(at + marker.length(), json.length() - 1) + ",\"id\":";
+        return new JsonRpcRequestTemplate(head.getBytes(StandardCharsets.UTF_8), tail.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Renders a single call
+     */
+    public byte[] render(String argument, int id) {
+        byte[] encoded = encode(argument);
+        byte[] request = new byte[size(encoded, argument, id)];
+        write(argument, encoded, id, request, 0);
+        return request;
+    }
+
+    /**
+     * Renders a batch array whose request ids are the indices of the arguments
+     */
+    public byte[] renderBatch(List<String> arguments) {
+        byte[][] encoded = new byte[arguments.size()][];
+        int size = 2 + Math.max(0, arguments.size() - 1);
+        for (int i = 0; i < arguments.size(); i++) {
+            encoded[i] = encode(arguments.get(i));
+            size += size(encoded[i], arguments.get(i), i);
+        }
+
+        byte[] batch = new byte[size];
+        int position = 0;
+        batch[position++] = '[';
+        for (int i = 0; i < arguments.size(); i++) {
+            if (i > 0) {
+                batch[position++] = ',';
+            }
+            position = write(arguments.get(i), encoded[i], i, batch, position);
+        }
+        batch[position] = ']';
+        return batch;
+    }
+
+    private int size(byte[] encoded, String argument, int id) {
+        return head.length + (encoded != null ? encoded.length : argument.length()) + tail.length + digits(id) + 1;
+    }
+
+    private int write(String argument, byte[] encoded, int id, byte[] target, int position) {
+        System.arraycopy(head, 0, target, position, head.length);
+        position += head.length;
+
+        if (encoded != null) {
+            System.arraycopy(encoded, 0, target, position, encoded.length);
+            position += encoded.length;
+        } else {
+            for (int i = 0; i < argument.length(); i++) {
+                target[position++] = (byte) argument.charAt(i);
+            }
+        }
+
+        System.arraycopy(tail, 0, target, position, tail.length);
+        position += tail.length;
+
+        int end = position + digits(id);
+        for (int i = end - 1, value = id; i >= position; i--, value /= 10) {
+            target[i] = (byte) ('0' + value % 10);
+        }
+        target[end] = '}';
+        return end + 1;
+    }
+
+    /**
+     * Hashes and hex quantities are plain ASCII and are copied as they are; only
+     * anything needing JSON escaping goes through Jackson's encoder
+     *
+     * @return The escaped UTF-8 bytes, or null when the argument can be copied as is
+     */
+    private static byte[] encode(String argument) {
+        for (int i = 0; i < argument.length(); i++) {
+            char c = argument.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return JsonStringEncoder.getInstance().quoteAsUTF8(argument);
+            }
+        }
+        return null;
+    }
+
+    private static int digits(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Request ids must not be negative: " + id);
+        }
+        int digits = 1;
+        for (int value = id; value >= 10; value /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    @Override
+    public String toString() {
+        return new String(head, StandardCharsets.UTF_8) + "<argument>" + new String(tail, StandardCharsets.UTF_8)
+                + "<id>}";
+    }
+}
@@ -0,0 +1,15 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Decodes one JSON value straight off a streaming parser. The parser is positioned
+ * on the first token of the value and must be left on its last token.
+ */
+@FunctionalInterface
+public interface JsonValueDecoder<T> {
+
+    T decode(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,13 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes an HTTP response body as it streams in
+ */
+@FunctionalInterface
+public interface ResponseReader<T> {
+
+    T read(InputStream body) throws IOException;
+}
@@ -0,0 +1,39 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: the n-th retry waits a random time between
+ * zero and {@code min(maxDelay, baseDelay * 2^(n-1))}, which keeps clients that
+ * failed together from retrying together.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param attempt The number of the attempt that just failed, starting at 1
+     * @param error The failure
+     * @return true if another attempt should be made
+     */
+    public boolean shouldRetry(int attempt, Throwable error) {
+        return attempt < maxAttempts && RpcException.isRetryable(error);
+    }
+
+    /**
+     * @param attempt The number of the attempt that just failed, starting at 1
+     * @return How long to wait before the next attempt, in milliseconds
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,10 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+/**
+ * A blocking call against one RPC endpoint
+ */
+@FunctionalInterface
+public interface RpcCall<T> {
+
+    T call(RpcEndpoint endpoint) throws Exception;
+}
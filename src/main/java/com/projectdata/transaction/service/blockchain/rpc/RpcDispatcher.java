@@ -0,0 +1,390 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.projectdata.transaction.config.ChainProperties;
+import com.projectdata.transaction.model.WalletChain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes RPC calls to the best endpoint of a chain. When the primary endpoint has
+ * not answered by its recent p95 latency, or fails outright, the same call is sent
+ * to the next best endpoint and whichever succeeds first wins.
+ *
+ * <p>Every attempt passes through the chain's adaptive token bucket and AIMD
+ * concurrency limiter, which back off on HTTP 429s, timeouts and latency spikes
+ * and ramp back up while the provider keeps up. Endpoints with an open circuit
+ * are skipped, and transient failures are retried with jittered backoff.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RpcDispatcher {
+
+    private final RpcEndpointPool endpointPool;
+    private final ChainProperties chainProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<WalletChain, ConcurrencyLimiter> concurrencyLimiters = new EnumMap<>(WalletChain.class);
+    private final Map<WalletChain, TokenBucket> rateLimiters = new EnumMap<>(WalletChain.class);
+    private final Map<WalletChain, Counter> retryCounters = new EnumMap<>(WalletChain.class);
+    // Built on the first 429 of each endpoint rather than looked up on every one
+    private final Map<RpcEndpoint, Counter> throttledCounters = new ConcurrentHashMap<>();
+
+    @Value("${blockchain.rpc.hedge.enabled:true}")
+    private boolean hedgingEnabled;
+
+    // Deadline used until an endpoint has enough samples for a p95
+    @Value("${blockchain.rpc.hedge.default-delay:500}")
+    private long defaultHedgeDelayMs;
+
+    @Value("${blockchain.rpc.hedge.min-delay:50}")
+    private long minHedgeDelayMs;
+
+    @Value("${blockchain.rpc.hedge.max-delay:3000}")
+    private long maxHedgeDelayMs;
+
+    @Value("${blockchain.rpc.hedge.min-samples:20}")
+    private int minHedgeSamples;
+
+    // Threads that run blocking HTTP calls on behalf of synchronous callers
+    @Value("${blockchain.rpc.blocking-threads:32}")
+    private int blockingThreads;
+
+    // Calls that would wait longer than this for a rate-limit token fail fast instead
+    @Value("${blockchain.rpc.rate-limit.max-wait:5000}")
+    private long maxRateLimitWaitMs;
+
+    @Value("${blockchain.rpc.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${blockchain.rpc.retry.base-delay:200}")
+    private long retryBaseDelayMs;
+
+    @Value("${blockchain.rpc.retry.max-delay:5000}")
+    private long retryMaxDelayMs;
+
+    private RetryPolicy retryPolicy;
+    private ExecutorService blockingExecutor;
+    // Fires hedges and delayed retries
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void initLimiters() {
+        for (WalletChain chain : WalletChain.values()) {
+            int maxLimit = chainProperties.getInt(chain, "rpc.concurrency.max", 64);
+            int minLimit = chainProperties.getInt(chain, "rpc.concurrency.min", 2);
+            int initialLimit = chainProperties.getInt(chain, "rpc.concurrency.initial", Math.max(minLimit, maxLimit / 4));
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(chain.name(), initialLimit, minLimit, maxLimit,
+                    chainProperties.get(chain, "rpc.concurrency.backoff-ratio", Double.class, 0.5),
+                    chainProperties.get(chain, "rpc.concurrency.latency-tolerance", Double.class, 3.0));
+            concurrencyLimiters.put(chain, limiter);
+
+            Gauge.builder("blockchain_rpc_concurrency_limit", limiter, ConcurrencyLimiter::getLimit)
+                    .tag("chain", chain.name())
+                    .description("Current adaptive limit on RPC calls in flight")
+                    .register(meterRegistry);
+            Gauge.builder("blockchain_rpc_in_flight", limiter, ConcurrencyLimiter::getInFlight)
+                    .tag("chain", chain.name())
+                    .description("RPC calls currently in flight")
+                    .register(meterRegistry);
+            Gauge.builder("blockchain_rpc_queued", limiter, ConcurrencyLimiter::getQueued)
+                    .tag("chain", chain.name())
+                    .description("RPC calls waiting for a concurrency slot")
+                    .register(meterRegistry);
+            retryCounters.put(chain, Counter.builder("blockchain_rpc_retries_total")
+                    .tag("chain", chain.name())
+                    .description("RPC calls retried after a transient failure")
+                    .register(meterRegistry));
+
+            // A rate of 0 disables rate limiting for the chain
+            double requestsPerSecond = chainProperties.get(chain, "rpc.rate-limit.requests-per-second", Double.class, 25.0);
+            if (requestsPerSecond > 0) {
+                TokenBucket bucket = new TokenBucket(requestsPerSecond,
+                        chainProperties.get(chain, "rpc.rate-limit.burst", Double.class, requestsPerSecond),
+                        chainProperties.get(chain, "rpc.rate-limit.min-requests-per-second", Double.class, 1.0),
+                        chainProperties.get(chain, "rpc.rate-limit.backoff-ratio", Double.class, 0.5));
+                rateLimiters.put(chain, bucket);
+
+                Gauge.builder("blockchain_rpc_rate_limit", bucket, TokenBucket::getRate)
+                        .tag("chain", chain.name())
+                        .description("Current adaptive RPC rate limit in requests per second")
+                        .register(meterRegistry);
+            }
+
+            log.info("RPC limits for {} blockchain: concurrency {} ({}..{}), rate {} req/s", chain,
+                    initialLimit, minLimit, maxLimit, requestsPerSecond > 0 ? requestsPerSecond : "unlimited");
+        }
+    }
+
+    @PostConstruct
+    void initExecutors() {
+        retryPolicy = new RetryPolicy(maxAttempts, retryBaseDelayMs, retryMaxDelayMs);
+
+        CustomizableThreadFactory blockingThreadFactory = new CustomizableThreadFactory("rpc-blocking-");
+        blockingThreadFactory.setDaemon(true);
+        blockingExecutor = Executors.newFixedThreadPool(blockingThreads, blockingThreadFactory);
+
+        CustomizableThreadFactory schedulerThreadFactory = new CustomizableThreadFactory("rpc-scheduler-");
+        schedulerThreadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory);
+    }
+
+    @PreDestroy
+    void shutdownExecutors() {
+        blockingExecutor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Runs a blocking call against the chain's endpoints and waits for the outcome
+     *
+     * @param chain The blockchain
+     * @param call The call to run against the chosen endpoint
+     * @return The result of the first successful attempt
+     */
+    public <T> T execute(WalletChain chain, RpcCall<T> call) {
+        CompletableFuture<T> result = executeAsync(chain, endpoint -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call(endpoint);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, blockingExecutor));
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Runs a non-blocking call against the chain's endpoints, retrying transient
+     * failures with jittered exponential backoff
+     *
+     * @param chain The blockchain
+     * @param call The call to run against the chosen endpoint
+     * @return A future completed by the first successful attempt, or by the last failure
+     */
+    public <T> CompletableFuture<T> executeAsync(WalletChain chain, AsyncRpcCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executeWithRetry(chain, call, 1, result);
+        return result;
+    }
+
+    private <T> void executeWithRetry(WalletChain chain, AsyncRpcCall<T> call, int attempt,
+            CompletableFuture<T> result) {
+        executeHedged(chain, call).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            if (!retryPolicy.shouldRetry(attempt, cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            long delayMs = retryPolicy.backoffMillis(attempt);
+            log.debug("Retrying {} RPC call in {} ms after attempt {} failed: {}",
+                    chain, delayMs, attempt, cause.getMessage());
+            retryCounters.get(chain).increment();
+            try {
+                scheduler.schedule(() -> executeWithRetry(chain, call, attempt + 1, result),
+                        delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Sends the call to the best endpoint and hedges it on the next best one when
+     * the first is slow or fails
+     */
+    private <T> CompletableFuture<T> executeHedged(WalletChain chain, AsyncRpcCall<T> call) {
+        List<RpcEndpoint> ranked = endpointPool.rank(chain);
+        if (ranked.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new CircuitOpenException("All RPC endpoints for " + chain + " blockchain are unavailable"));
+        }
+        RpcEndpoint primary = ranked.get(0);
+
+        if (!hedgingEnabled || ranked.size() < 2) {
+            return attempt(primary, call);
+        }
+
+        RpcEndpoint secondary = ranked.get(1);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean hedged = new AtomicBoolean();
+
+        Runnable hedge = () -> {
+            // Counted under the lock, so a primary failing meanwhile sees the secondary pending
+            synchronized (hedged) {
+                if (result.isDone() || !hedged.compareAndSet(false, true)) {
+                    return;
+                }
+                pending.incrementAndGet();
+            }
+            endpointPool.recordHedge(chain);
+            log.debug("Hedging {} RPC call from {} to {}", chain, primary.getLabel(), secondary.getLabel());
+            attempt(secondary, call).whenComplete((value, error) -> settle(result, pending, value, error));
+        };
+
+        attempt(primary, call).whenComplete((value, error) -> {
+            if (error != null) {
+                // Fail over straight away rather than waiting for the deadline
+                hedge.run();
+            }
+            settle(result, pending, value, error);
+        });
+
+        if (!result.isDone()) {
+            ScheduledFuture<?> timer = scheduler.schedule(hedge, hedgeDelayMs(primary), TimeUnit.MILLISECONDS);
+            result.whenComplete((value, error) -> timer.cancel(false));
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs one attempt against an endpoint once the chain's limiters admit it
+     */
+    private <T> CompletableFuture<T> attempt(RpcEndpoint endpoint, AsyncRpcCall<T> call) {
+        WalletChain chain = endpoint.getChain();
+        ConcurrencyLimiter limiter = concurrencyLimiters.get(chain);
+        TokenBucket bucket = rateLimiters.get(chain);
+
+        return limiter.submit(() -> {
+            long waitNanos = bucket != null ? bucket.reserve(TimeUnit.MILLISECONDS.toNanos(maxRateLimitWaitMs)) : 0;
+            if (waitNanos < 0) {
+                return CompletableFuture.failedFuture(
+                        new RpcException("Rate limit for " + chain + " blockchain exceeded, call rejected"));
+            }
+            if (waitNanos == 0) {
+                return timedAttempt(endpoint, call, limiter, bucket);
+            }
+            return CompletableFuture
+                    .runAsync(() -> { }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> timedAttempt(endpoint, call, limiter, bucket));
+        });
+    }
+
+    private <T> CompletableFuture<T> timedAttempt(RpcEndpoint endpoint, AsyncRpcCall<T> call,
+            ConcurrencyLimiter limiter, TokenBucket bucket) {
+        if (!endpoint.getCircuitBreaker().tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException(
+                    "Circuit for " + endpoint.getChain() + " endpoint " + endpoint.getLabel() + " is open"));
+        }
+
+        long start = System.nanoTime();
+
+        CompletableFuture<T> future;
+        try {
+            future = call.call(endpoint);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        return future.whenComplete((value, error) -> {
+            long elapsed = System.nanoTime() - start;
+            if (error == null) {
+                endpointPool.recordSuccess(endpoint, elapsed);
+                limiter.onSuccess(elapsed);
+                if (bucket != null) {
+                    bucket.onSuccess();
+                }
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            endpointPool.recordFailure(endpoint, elapsed, cause);
+            if (isThrottled(cause)) {
+                throttledCounters.computeIfAbsent(endpoint, this::throttledCounter).increment();
+                limiter.onOverload();
+                if (bucket != null) {
+                    bucket.onThrottled();
+                }
+            } else if (isTimeout(cause)) {
+                limiter.onOverload();
+            }
+        });
+    }
+
+    private static boolean isThrottled(Throwable error) {
+        return error instanceof RpcException && ((RpcException) error).isThrottled();
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Counter throttledCounter(RpcEndpoint endpoint) {
+        return Counter.builder("blockchain_rpc_throttled_total")
+                .tag("chain", endpoint.getChain().name())
+                .tag("endpoint", endpoint.getLabel())
+                .description("RPC calls rejected by the provider with HTTP 429")
+                .register(meterRegistry);
+    }
+
+    private static <T> void settle(CompletableFuture<T> result, AtomicInteger pending, T value, Throwable error) {
+        if (error == null) {
+            result.complete(value);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(unwrap(error));
+        }
+    }
+
+    private long hedgeDelayMs(RpcEndpoint endpoint) {
+        if (endpoint.getSampleCount() < minHedgeSamples) {
+            return defaultHedgeDelayMs;
+        }
+        long p95Ms = TimeUnit.NANOSECONDS.toMillis(endpoint.getP95Nanos());
+        return Math.max(minHedgeDelayMs, Math.min(maxHedgeDelayMs, p95Ms));
+    }
+
+    static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,139 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.projectdata.transaction.model.WalletChain;
+
+/**
+ * A single JSON-RPC provider URL for a chain, together with its recent latency
+ * (an exponentially weighted moving average plus a window of samples for the
+ * p95) and the circuit breaker that tracks its health.
+ */
+public class RpcEndpoint {
+
+    private static final int SAMPLE_WINDOW = 128;
+    private static final int P95_REFRESH_INTERVAL = 16;
+    // A failed call counts as at least this slow in the latency EWMA
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final WalletChain chain;
+    private final String url;
+    private final String label;
+    private final double ewmaAlpha;
+    private final CircuitBreaker circuitBreaker;
+
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private int sampleCount;
+    private int nextSample;
+    private int samplesSinceRefresh;
+    private long p95Nanos;
+
+    private double ewmaNanos = Double.NaN;
+
+    public RpcEndpoint(WalletChain chain, String url, String label, double ewmaAlpha, CircuitBreaker circuitBreaker) {
+        this.chain = chain;
+        this.url = url;
+        this.label = label;
+        this.ewmaAlpha = ewmaAlpha;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public WalletChain getChain() {
+        return chain;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Metric-safe name of the endpoint; never contains the path, which often carries an API key
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        recordLatency(latencyNanos);
+        circuitBreaker.onSuccess();
+    }
+
+    /**
+     * Counts the failure against the endpoint's latency EWMA as a slow call, whatever
+     * its cause, so that an endpoint that keeps failing without tripping its circuit
+     * (e.g. one answering 404) sinks in the ranking instead of staying untried
+     *
+     * @param latencyNanos Time until the call failed
+     * @param providerFault Whether the failure counts against the endpoint's health
+     */
+    public void recordFailure(long latencyNanos, boolean providerFault) {
+        penalize(latencyNanos);
+        if (providerFault) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onIgnoredFailure();
+        }
+    }
+
+    public boolean isHealthy() {
+        return circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * @return true unless the circuit is open, or half-open with every probe slot taken
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        ewmaNanos = Double.isNaN(ewmaNanos)
+                ? latencyNanos
+                : ewmaAlpha * latencyNanos + (1 - ewmaAlpha) * ewmaNanos;
+
+        samples[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % SAMPLE_WINDOW;
+        sampleCount = Math.min(sampleCount + 1, SAMPLE_WINDOW);
+        if (++samplesSinceRefresh >= P95_REFRESH_INTERVAL) {
+            refreshP95();
+        }
+    }
+
+    private synchronized void penalize(long latencyNanos) {
+        double penalty = Math.max(latencyNanos, FAILURE_PENALTY_NANOS);
+        ewmaNanos = Double.isNaN(ewmaNanos)
+                ? penalty
+                : ewmaAlpha * penalty + (1 - ewmaAlpha) * ewmaNanos;
+    }
+
+    /**
+     * @return The latency EWMA in nanoseconds, failures counted as slow calls, or NaN
+     *         before the first completed call
+     */
+    public synchronized double getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    /**
+     * @return The p95 of the recent latency window in nanoseconds, or 0 until enough samples exist
+     */
+    public synchronized long getP95Nanos() {
+        return p95Nanos;
+    }
+
+    public synchronized int getSampleCount() {
+        return sampleCount;
+    }
+
+    private void refreshP95() {
+        long[] window = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(window);
+        samplesSinceRefresh = 0;
+        p95Nanos = window[(int) Math.ceil(window.length * 0.95) - 1];
+    }
+}
@@ -0,0 +1,238 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.projectdata.transaction.model.WalletChain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the configured JSON-RPC endpoints of every chain and ranks them by health
+ * and recent latency. Each {@code blockchain.rpc.<chain>} property accepts a
+ * comma-separated list of URLs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RpcEndpointPool {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<WalletChain, List<RpcEndpoint>> endpoints = new EnumMap<>(WalletChain.class);
+
+    // Meters of the hot paths, built once when the endpoints are registered
+    private final Map<RpcEndpoint, RequestTimers> requestTimers = new IdentityHashMap<>();
+    private final Map<WalletChain, Counter> hedgeCounters = new EnumMap<>(WalletChain.class);
+
+    @Value("${blockchain.rpc.ethereum}")
+    private List<String> ethereumRpcUrls;
+
+    @Value("${blockchain.rpc.solana}")
+    private List<String> solanaRpcUrls;
+
+    @Value("${blockchain.rpc.bsc}")
+    private List<String> bscRpcUrls;
+
+    @Value("${blockchain.rpc.sui}")
+    private List<String> suiRpcUrls;
+
+    @Value("${blockchain.rpc.endpoint.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    // Consecutive provider failures that open an endpoint's circuit
+    @Value("${blockchain.rpc.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${blockchain.rpc.circuit-breaker.open-duration:30000}")
+    private long openDurationMs;
+
+    @Value("${blockchain.rpc.circuit-breaker.half-open-max-calls:1}")
+    private int halfOpenMaxCalls;
+
+    // Share of calls routed to a random healthy endpoint to keep its latency estimate fresh
+    @Value("${blockchain.rpc.endpoint.explore-ratio:0.02}")
+    private double exploreRatio;
+
+    @PostConstruct
+    void initEndpoints() {
+        register(WalletChain.ETH, ethereumRpcUrls);
+        register(WalletChain.SOL, solanaRpcUrls);
+        register(WalletChain.BSC, bscRpcUrls);
+        register(WalletChain.SUI, suiRpcUrls);
+    }
+
+    /**
+     * Orders the endpoints of a chain for the next call by latency EWMA, untried
+     * ones first; failed calls count as slow ones. Endpoints whose circuit is open
+     * are left out.
+     *
+     * @param chain The blockchain
+     * @return The endpoints, best candidate first; empty if every circuit is open
+     */
+    public List<RpcEndpoint> rank(WalletChain chain) {
+        List<RpcEndpoint> chainEndpoints = endpoints.get(chain);
+        if (chainEndpoints == null || chainEndpoints.isEmpty()) {
+            throw new IllegalStateException("No RPC endpoint configured for blockchain: " + chain);
+        }
+
+        // Snapshot the latencies so concurrent updates cannot reorder the list mid-sort
+        Map<RpcEndpoint, Double> latencies = new IdentityHashMap<>();
+        List<RpcEndpoint> available = new ArrayList<>(chainEndpoints.size());
+        for (RpcEndpoint endpoint : chainEndpoints) {
+            if (endpoint.isAvailable()) {
+                latencies.put(endpoint, rankingLatency(endpoint));
+                available.add(endpoint);
+            }
+        }
+        if (available.size() < 2) {
+            return available;
+        }
+        available.sort(Comparator.comparingDouble(latencies::get));
+
+        if (ThreadLocalRandom.current().nextDouble() < exploreRatio) {
+            Collections.swap(available, 0, 1 + ThreadLocalRandom.current().nextInt(available.size() - 1));
+        }
+
+        return available;
+    }
+
+    public List<RpcEndpoint> getEndpoints(WalletChain chain) {
+        return endpoints.getOrDefault(chain, List.of());
+    }
+
+    public void recordSuccess(RpcEndpoint endpoint, long latencyNanos) {
+        endpoint.recordSuccess(latencyNanos);
+        requestTimers.get(endpoint).success().record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(RpcEndpoint endpoint, long latencyNanos, Throwable error) {
+        endpoint.recordFailure(latencyNanos, RpcException.isProviderFault(error));
+        requestTimers.get(endpoint).failure().record(latencyNanos, TimeUnit.NANOSECONDS);
+        log.warn("RPC call to {} endpoint {} failed: {}", endpoint.getChain(), endpoint.getLabel(), error.getMessage());
+    }
+
+    public void recordHedge(WalletChain chain) {
+        hedgeCounters.get(chain).increment();
+    }
+
+    private void onCircuitTransition(WalletChain chain, String label, CircuitBreaker.State from,
+            CircuitBreaker.State to) {
+        if (to == CircuitBreaker.State.OPEN) {
+            log.warn("Circuit for {} endpoint {} opened ({} -> {})", chain, label, from, to);
+        } else {
+            log.info("Circuit for {} endpoint {} moved from {} to {}", chain, label, from, to);
+        }
+        Counter.builder("blockchain_rpc_circuit_transitions_total")
+                .tag("chain", chain.name())
+                .tag("endpoint", label)
+                .tag("from", from.name())
+                .tag("to", to.name())
+                .description("Circuit breaker state transitions per endpoint")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer requestTimer(RpcEndpoint endpoint, String outcome) {
+        return Timer.builder("blockchain_rpc_endpoint_request_latency")
+                .tag("chain", endpoint.getChain().name())
+                .tag("endpoint", endpoint.getLabel())
+                .tag("outcome", outcome)
+                .description("Latency of RPC calls per endpoint")
+                .register(meterRegistry);
+    }
+
+    private void register(WalletChain chain, List<String> urls) {
+        List<RpcEndpoint> chainEndpoints = new ArrayList<>();
+        Set<String> labels = new HashSet<>();
+        hedgeCounters.put(chain, Counter.builder("blockchain_rpc_hedged_requests_total")
+                .tag("chain", chain.name())
+                .description("Duplicate RPC requests sent because the primary endpoint was slow or failed")
+                .register(meterRegistry));
+
+        for (String url : urls) {
+            if (url == null || url.isBlank()) {
+                continue;
+            }
+            String label = labelOf(url.trim());
+            if (!labels.add(label)) {
+                label = label + "-" + chainEndpoints.size();
+                labels.add(label);
+            }
+
+            String endpointLabel = label;
+            CircuitBreaker circuitBreaker = new CircuitBreaker(failureThreshold, openDurationMs, halfOpenMaxCalls,
+                    (from, to) -> onCircuitTransition(chain, endpointLabel, from, to));
+            RpcEndpoint endpoint = new RpcEndpoint(chain, url.trim(), label, ewmaAlpha, circuitBreaker);
+            chainEndpoints.add(endpoint);
+            requestTimers.put(endpoint, new RequestTimers(requestTimer(endpoint, "success"),
+                    requestTimer(endpoint, "failure")));
+
+            Gauge.builder("blockchain_rpc_endpoint_latency_ewma_ms", endpoint,
+                            e -> Double.isNaN(e.getEwmaNanos()) ? 0 : e.getEwmaNanos() / 1_000_000)
+                    .tag("chain", chain.name())
+                    .tag("endpoint", label)
+                    .description("Exponentially weighted moving average of RPC latency per endpoint")
+                    .register(meterRegistry);
+            Gauge.builder("blockchain_rpc_endpoint_latency_p95_ms", endpoint, e -> e.getP95Nanos() / 1_000_000.0)
+                    .tag("chain", chain.name())
+                    .tag("endpoint", label)
+                    .description("p95 of recent RPC latency per endpoint, used as the hedging deadline")
+                    .register(meterRegistry);
+            Gauge.builder("blockchain_rpc_endpoint_healthy", endpoint, e -> e.isHealthy() ? 1 : 0)
+                    .tag("chain", chain.name())
+                    .tag("endpoint", label)
+                    .description("1 while the endpoint's circuit is closed, 0 otherwise")
+                    .register(meterRegistry);
+            Gauge.builder("blockchain_rpc_circuit_state", circuitBreaker, b -> b.getState().ordinal())
+                    .tag("chain", chain.name())
+                    .tag("endpoint", label)
+                    .description("Circuit breaker state per endpoint: 0 closed, 1 half-open, 2 open")
+                    .register(meterRegistry);
+        }
+
+        endpoints.put(chain, List.copyOf(chainEndpoints));
+        log.info("Registered {} RPC endpoint(s) for {} blockchain: {}", chainEndpoints.size(), chain,
+                chainEndpoints.stream().map(RpcEndpoint::getLabel).toList());
+    }
+
+    /**
+     * Untried endpoints sort first so that every endpoint gets a latency estimate;
+     * the first call, even a failed one, gives it one
+     */
+    private static double rankingLatency(RpcEndpoint endpoint) {
+        double ewma = endpoint.getEwmaNanos();
+        return Double.isNaN(ewma) ? -1 : ewma;
+    }
+
+    private static String labelOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "endpoint";
+        } catch (IllegalArgumentException e) {
+            return "endpoint";
+        }
+    }
+
+    private record RequestTimers(Timer success, Timer failure) {
+    }
+}
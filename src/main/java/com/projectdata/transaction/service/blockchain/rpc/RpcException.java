@@ -0,0 +1,74 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.io.IOException;
+
+/**
+ * Failure of a call to a JSON-RPC provider, carrying the HTTP status when there was one
+ */
+public class RpcException extends RuntimeException {
+
+    public static final int NO_STATUS = 0;
+
+    private final int statusCode;
+
+    public RpcException(String message) {
+        this(message, NO_STATUS, null);
+    }
+
+    public RpcException(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+
+    public RpcException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true if the provider rejected the call because we exceeded its rate limit
+     */
+    public boolean isThrottled() {
+        return statusCode == 429;
+    }
+
+    /**
+     * Transient failures worth retrying: I/O errors and timeouts, HTTP 408, 429 and 5xx.
+     * Other 4xx answers and failures raised locally (rate-limit rejections, open
+     * circuits, malformed responses) would fail the same way again.
+     */
+    public static boolean isRetryable(Throwable error) {
+        if (error instanceof RpcException) {
+            int status = ((RpcException) error).getStatusCode();
+            return status == 408 || status == 429 || status >= 500;
+        }
+        return hasIoCause(error);
+    }
+
+    /**
+     * Failures that say the endpoint itself is unhealthy and should count towards its
+     * circuit breaker: I/O errors, timeouts, throttling, auth rejections and 5xx
+     */
+    public static boolean isProviderFault(Throwable error) {
+        if (error instanceof CircuitOpenException) {
+            return false;
+        }
+        if (error instanceof RpcException) {
+            int status = ((RpcException) error).getStatusCode();
+            return status == 401 || status == 403 || status == 408 || status == 429 || status >= 500;
+        }
+        return hasIoCause(error);
+    }
+
+    private static boolean hasIoCause(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
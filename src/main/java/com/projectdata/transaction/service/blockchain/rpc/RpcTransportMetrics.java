@@ -0,0 +1,127 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Wire-level metrics of the RPC transports: payload bytes sent and received
+ * (before decompression) and whether requests went over a new or a reused
+ * connection. Also unwraps gzip-encoded response bodies, since compression is
+ * negotiated by the client code rather than left to each HTTP library.
+ */
+@Component
+@RequiredArgsConstructor
+public class RpcTransportMetrics {
+
+    public static final String BLOCKING = "blocking";
+    public static final String ASYNC = "async";
+
+    private final MeterRegistry meterRegistry;
+
+    // Counters of each transport, built on its first request rather than looked up on every one
+    private final Map<String, TransportCounters> counters = new ConcurrentHashMap<>();
+
+    public void recordSent(String transport, int bytes) {
+        counters(transport).sent().increment(bytes);
+    }
+
+    public void recordExchange(String transport, boolean connectionReused) {
+        TransportCounters transportCounters = counters(transport);
+        (connectionReused ? transportCounters.reused() : transportCounters.opened()).increment();
+    }
+
+    /**
+     * Wraps a response body so its wire size is counted when the body is closed
+     *
+     * @param contentEncoding The response's Content-Encoding header, may be null
+     * @return The decoded body
+     */
+    public InputStream wrapResponse(String transport, InputStream body, String contentEncoding) throws IOException {
+        InputStream counted = new CountingInputStream(body, counters(transport).received());
+        return "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(counted) : counted;
+    }
+
+    private TransportCounters counters(String transport) {
+        return counters.computeIfAbsent(transport, k -> new TransportCounters(
+                Counter.builder("blockchain_rpc_transport_bytes_sent_total")
+                        .tag("transport", transport)
+                        .description("Request payload bytes sent to RPC providers")
+                        .register(meterRegistry),
+                Counter.builder("blockchain_rpc_transport_bytes_received_total")
+                        .tag("transport", transport)
+                        .description("Response payload bytes received from RPC providers, before decompression")
+                        .register(meterRegistry),
+                exchangeCounter(transport, "new"),
+                exchangeCounter(transport, "reused")));
+    }
+
+    private Counter exchangeCounter(String transport, String connection) {
+        return Counter.builder("blockchain_rpc_transport_exchanges_total")
+                .tag("transport", transport)
+                .tag("connection", connection)
+                .description("HTTP exchanges with RPC providers by whether a pooled connection was reused")
+                .register(meterRegistry);
+    }
+
+    private record TransportCounters(Counter sent, Counter received, Counter opened, Counter reused) {
+    }
+
+    /**
+     * Counts locally and publishes once on close, so the counter is not touched per read
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final Counter counter;
+        private long count;
+        private boolean closed;
+
+        CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                counter.increment(count);
+            }
+            super.close();
+        }
+    }
+}
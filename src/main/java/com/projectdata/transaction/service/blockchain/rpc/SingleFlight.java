@@ -0,0 +1,107 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the call and
+ * everyone arriving while it is in flight shares its outcome. Nothing is kept once
+ * the call completes, so failures are not remembered and the next caller starts a
+ * fresh call.
+ *
+ * <p>Callers sharing a call receive the same result instance.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param key Identifies the call
+     * @param call Starts the asynchronous call; only invoked if none is in flight for the key
+     * @return A future completed with the outcome of the shared call
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        CompletableFuture<V> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        } catch (Error e) {
+            settle(key, promise, null, e);
+            throw e;
+        }
+        result.whenComplete((value, error) -> settle(key, promise, value, error));
+
+        return promise.copy();
+    }
+
+    /**
+     * Blocking variant of {@link #execute}: the first caller runs the call on its own
+     * thread, the others wait for its outcome
+     */
+    public V executeBlocking(K key, Supplier<V> call) {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        V value;
+        try {
+            value = call.get();
+        } catch (Throwable e) {
+            // Errors too, or the key would stay in flight and block every later caller
+            settle(key, promise, null, e);
+            throw e;
+        }
+        settle(key, promise, value, null);
+        return value;
+    }
+
+    /**
+     * @return How many callers joined a call that was already in flight
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Removes the call before completing it, so a caller arriving afterwards starts
+     * a new call instead of joining a finished one
+     */
+    private void settle(K key, CompletableFuture<V> promise, V value, Throwable error) {
+        inFlight.remove(key, promise);
+        if (error != null) {
+            promise.completeExceptionally(error);
+        } else {
+            promise.complete(value);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket whose refill rate adapts to the provider: it is cut multiplicatively
+ * when the provider throttles us and recovers additively towards the configured
+ * rate while calls succeed. Callers reserve a token and wait for the returned
+ * delay, so a burst is spread out instead of rejected.
+ */
+public class TokenBucket {
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final double decreaseFactor;
+    private final double recoveryStep;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param maxRate The configured rate in permits per second
+     * @param burst The number of permits that can be taken at once after an idle period
+     * @param minRate The floor the rate never drops below
+     * @param decreaseFactor Multiplier applied to the rate when throttled
+     */
+    public TokenBucket(double maxRate, double burst, double minRate, double decreaseFactor) {
+        this.maxRate = maxRate;
+        this.minRate = Math.min(minRate, maxRate);
+        this.burst = Math.max(1, burst);
+        this.decreaseFactor = decreaseFactor;
+        this.recoveryStep = maxRate / 100;
+        this.rate = maxRate;
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes one token, going into debt if none is left
+     *
+     * @param maxWaitNanos The longest the caller is prepared to wait
+     * @return How long the caller must wait before using the token, in nanoseconds,
+     *         or -1 without taking a token if that would exceed {@code maxWaitNanos}
+     */
+    public synchronized long reserve(long maxWaitNanos) {
+        refill();
+        double remaining = tokens - 1;
+        long waitNanos = remaining >= 0 ? 0 : (long) (-remaining / rate * TimeUnit.SECONDS.toNanos(1));
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens = remaining;
+        return waitNanos;
+    }
+
+    public synchronized void onThrottled() {
+        refill();
+        rate = Math.max(minRate, rate * decreaseFactor);
+    }
+
+    public synchronized void onSuccess() {
+        if (rate < maxRate) {
+            refill();
+            rate = Math.min(maxRate, rate + recoveryStep);
+        }
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,418 @@
+package com.projectdata.transaction.service.blockchain.subscription;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.adapter.SubscriptionAdapter;
+import com.projectdata.transaction.service.blockchain.rpc.JsonRpcReader;
+import com.projectdata.transaction.service.blockchain.rpc.RetryPolicy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One persistent WebSocket connection to a chain's provider carrying the
+ * subscriptions for its tracked wallets. The chain counts as served only once the
+ * provider has accepted every subscribe call; one it rejects drops the connection
+ * like any other failure. A dropped or silent connection is replaced with
+ * exponential backoff, and once a replacement is subscribed the handler is told
+ * the last block seen so it can catch up on what was pushed in between. A
+ * reconnect that only applies a change of wallets skips that catch-up.
+ *
+ * <p>Each connection attempt gets a new generation number; callbacks from an older
+ * socket are ignored, so a late close or error cannot tear down its replacement.
+ */
+@Slf4j
+class ChainSubscriber {
+
+    private final WalletChain chain;
+    private final URI uri;
+    private final SubscriptionAdapter adapter;
+    private final SubscriptionHandler handler;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private final RetryPolicy reconnectPolicy;
+    private final Duration connectTimeout;
+    private final long idleTimeoutMs;
+    private final long resubscribeDelayMs;
+    private final Counter reconnects;
+    private final Map<SubscriptionEvent.Type, Counter> events = new EnumMap<>(SubscriptionEvent.Type.class);
+
+    // Concurrent, so a wallet is added or removed without copying the others
+    private final Set<String> wallets = ConcurrentHashMap.newKeySet();
+    private volatile Long lastSeenBlock;
+    private volatile long lastMessageAt;
+
+    // Guarded by this
+    private WebSocket webSocket;
+    private int generation;
+    private int failedAttempts;
+    private boolean subscribedBefore;
+    // Subscribe calls of the current connection not answered yet
+    private int awaitingAcks;
+    // Set by a reconnect that loses no pushes, cleared by any other
+    private boolean skipCatchUp;
+    private boolean resuming;
+    private Long resumeFrom;
+    private boolean closed;
+    private ScheduledFuture<?> pendingResubscribe;
+
+    ChainSubscriber(WalletChain chain, URI uri, SubscriptionAdapter adapter, SubscriptionHandler handler,
+            HttpClient httpClient, ObjectMapper objectMapper, ScheduledExecutorService scheduler,
+            MeterRegistry meterRegistry, RetryPolicy reconnectPolicy, Duration connectTimeout,
+            long idleTimeoutMs, long resubscribeDelayMs) {
+        this.chain = chain;
+        this.uri = uri;
+        this.adapter = adapter;
+        this.handler = handler;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.scheduler = scheduler;
+        this.reconnectPolicy = reconnectPolicy;
+        this.connectTimeout = connectTimeout;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.resubscribeDelayMs = resubscribeDelayMs;
+        this.reconnects = Counter.builder("blockchain_subscription_reconnects_total")
+                .tag("chain", chain.name())
+                .description("WebSocket subscription connections re-established after a drop")
+                .register(meterRegistry);
+        for (SubscriptionEvent.Type type : SubscriptionEvent.Type.values()) {
+            events.put(type, Counter.builder("blockchain_subscription_events_total")
+                    .tag("chain", chain.name())
+                    .tag("type", type.name().toLowerCase())
+                    .description("Events pushed by blockchain WebSocket subscriptions")
+                    .register(meterRegistry));
+        }
+    }
+
+    synchronized void start(Collection<String> initialWallets) {
+        wallets.addAll(initialWallets);
+        connect();
+    }
+
+    void addWallets(Collection<String> added) {
+        if (wallets.addAll(added)) {
+            walletsChanged();
+        }
+    }
+
+    void removeWallet(String walletAddress) {
+        if (wallets.remove(walletAddress)) {
+            walletsChanged();
+        }
+    }
+
+    /**
+     * Subscriptions cannot be edited in place on every chain, so the connection is
+     * re-established with the new set; changes arriving close together, e.g. from a
+     * bulk import, share one reconnect. Chains whose subscriptions do not name the
+     * wallets need none.
+     */
+    private synchronized void walletsChanged() {
+        if (!adapter.subscribesPerWallet() || closed || pendingResubscribe != null) {
+            return;
+        }
+        pendingResubscribe = scheduler.schedule(() -> {
+            synchronized (this) {
+                pendingResubscribe = null;
+            }
+            synchronized (this) {
+                skipCatchUp = true;
+            }
+            reconnectNow("tracked wallets changed");
+        }, resubscribeDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true once the provider has accepted every subscribe call of the connection
+     */
+    synchronized boolean isConnected() {
+        return webSocket != null && awaitingAcks == 0;
+    }
+
+    /**
+     * Sends a ping on a healthy connection and replaces one that has been silent
+     * for longer than the idle timeout. Called periodically by the manager.
+     */
+    void checkLiveness() {
+        WebSocket current;
+        synchronized (this) {
+            current = webSocket;
+        }
+        if (current == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastMessageAt > idleTimeoutMs) {
+            reconnectNow("no message for " + idleTimeoutMs + " ms");
+        } else {
+            current.sendPing(ByteBuffer.allocate(0));
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        generation++;
+        if (pendingResubscribe != null) {
+            pendingResubscribe.cancel(false);
+        }
+        if (webSocket != null) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+            webSocket = null;
+        }
+    }
+
+    private synchronized void connect() {
+        if (closed) {
+            return;
+        }
+        int attempt = ++generation;
+        log.info("Opening {} subscription connection to {}", chain, uri.getHost());
+
+        httpClient.newWebSocketBuilder()
+                .connectTimeout(connectTimeout)
+                .buildAsync(uri, new Listener(attempt))
+                .whenComplete((socket, error) -> {
+                    if (error != null) {
+                        onDisconnected(attempt, error);
+                    } else {
+                        onConnected(attempt, socket);
+                    }
+                });
+    }
+
+    private void onConnected(int attempt, WebSocket socket) {
+        List<SubscriptionRequest> requests = adapter.getSubscriptionRequests(wallets);
+        synchronized (this) {
+            if (attempt != generation || closed) {
+                socket.abort();
+                return;
+            }
+            webSocket = socket;
+            lastMessageAt = System.currentTimeMillis();
+            awaitingAcks = requests.size();
+            resuming = subscribedBefore && !skipCatchUp;
+            resumeFrom = lastSeenBlock;
+            subscribedBefore = true;
+            skipCatchUp = false;
+        }
+
+        // Frames must not be sent while a previous send is still pending
+        CompletableFuture<WebSocket> sending = CompletableFuture.completedFuture(socket);
+        for (int i = 0; i < requests.size(); i++) {
+            String message = render(requests.get(i), i + 1);
+            sending = sending.thenCompose(s -> s.sendText(message, true));
+        }
+
+        sending.whenComplete((s, error) -> {
+            if (error != null) {
+                onDisconnected(attempt, error);
+            } else if (requests.isEmpty()) {
+                onSubscribed(attempt);
+            }
+        });
+    }
+
+    /**
+     * Counts an accepted subscribe call; once all of them are, the chain is served
+     */
+    private void onSubscribed(int attempt) {
+        boolean catchUp;
+        Long from;
+        synchronized (this) {
+            if (attempt != generation || webSocket == null) {
+                return;
+            }
+            if (awaitingAcks > 0 && --awaitingAcks > 0) {
+                return;
+            }
+            catchUp = resuming;
+            from = resumeFrom;
+            resuming = false;
+        }
+        log.info("Subscribed to {} updates for {} wallets", chain, wallets.size());
+        if (catchUp) {
+            handler.onResubscribed(chain, from);
+        }
+    }
+
+    private void onDisconnected(int attempt, Throwable error) {
+        long delay;
+        synchronized (this) {
+            if (attempt != generation || closed) {
+                return;
+            }
+            generation++;
+            if (webSocket != null) {
+                webSocket.abort();
+                webSocket = null;
+            }
+            skipCatchUp = false;
+            delay = reconnectPolicy.backoffMillis(++failedAttempts);
+        }
+
+        log.warn("{} subscription connection lost ({}), reconnecting in {} ms", chain, error.getMessage(), delay);
+        reconnects.increment();
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnectNow(String reason) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            generation++;
+            if (webSocket != null) {
+                webSocket.abort();
+                webSocket = null;
+            }
+        }
+        log.info("Reconnecting {} subscriptions: {}", chain, reason);
+        scheduler.execute(this::connect);
+    }
+
+    private void onMessage(int attempt, String message) {
+        synchronized (this) {
+            if (attempt != generation) {
+                return;
+            }
+        }
+        lastMessageAt = System.currentTimeMillis();
+
+        SubscriptionEvent[] event = new SubscriptionEvent[1];
+        boolean[] failed = new boolean[1];
+        boolean[] response = new boolean[1];
+        try (JsonParser parser = objectMapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            JsonRpcReader.readObject(parser, (field, p) -> {
+                if ("error".equals(field)) {
+                    failed[0] = p.currentToken() != JsonToken.VALUE_NULL;
+                    return false;
+                }
+                if ("id".equals(field)) {
+                    // Only replies to calls carry an id; notifications do not
+                    response[0] = p.currentToken() != JsonToken.VALUE_NULL;
+                    return false;
+                }
+                if ("params".equals(field)) {
+                    JsonRpcReader.readObject(p, (paramsField, pp) -> {
+                        if ("result".equals(paramsField)) {
+                            event[0] = adapter.getNotificationDecoder().decode(pp);
+                            return true;
+                        }
+                        return false;
+                    });
+                    return true;
+                }
+                return false;
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not decode {} subscription message: {}", chain, e.getMessage());
+            return;
+        }
+
+        if (failed[0]) {
+            // Subscribe calls are the only requests sent on this connection. Its wallets
+            // would go unserved, so it is dropped and retried with backoff, and polled meanwhile.
+            log.warn("{} subscription rejected: {}", chain, message);
+            onDisconnected(attempt, new IOException("subscription rejected"));
+            return;
+        }
+        synchronized (this) {
+            // An accepted call or a pushed event proves the subscriptions work, so the
+            // next drop starts the backoff over
+            failedAttempts = 0;
+        }
+        if (response[0]) {
+            onSubscribed(attempt);
+        }
+        if (event[0] != null) {
+            dispatch(event[0]);
+        }
+    }
+
+    private void dispatch(SubscriptionEvent event) {
+        if (event.blockNumber() != null && (lastSeenBlock == null || event.blockNumber() > lastSeenBlock)) {
+            lastSeenBlock = event.blockNumber();
+        }
+        events.get(event.type()).increment();
+
+        try {
+            handler.onEvent(chain, event);
+        } catch (RuntimeException e) {
+            log.error("Error handling {} subscription event {}", chain, event, e);
+        }
+    }
+
+    private String render(SubscriptionRequest request, int id) {
+        ObjectNode call = objectMapper.createObjectNode();
+        call.put("jsonrpc", "2.0");
+        call.put("id", id);
+        call.put("method", request.method());
+        call.set("params", request.params());
+        return call.toString();
+    }
+
+    private final class Listener implements WebSocket.Listener {
+
+        private final int attempt;
+        private final StringBuilder text = new StringBuilder();
+
+        private Listener(int attempt) {
+            this.attempt = attempt;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                String message = text.toString();
+                text.setLength(0);
+                onMessage(attempt, message);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket socket, ByteBuffer message) {
+            lastMessageAt = System.currentTimeMillis();
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            onDisconnected(attempt, new IOException("closed by provider with status " + statusCode + " " + reason));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            onDisconnected(attempt, error);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.projectdata.transaction.service.blockchain.subscription;
+
+/**
+ * Something a chain pushed over a subscription: a new block, or a transaction that
+ * touches a tracked wallet
+ *
+ * @param blockNumber The block (EVM) or slot (Solana) the event belongs to, null if the chain does not say
+ * @param txHash The transaction hash, set for {@link Type#TRANSACTION} events
+ */
+public record SubscriptionEvent(Type type, Long blockNumber, String txHash) {
+
+    public enum Type {
+        NEW_HEAD, TRANSACTION
+    }
+
+    public static SubscriptionEvent newHead(long blockNumber) {
+        return new SubscriptionEvent(Type.NEW_HEAD, blockNumber, null);
+    }
+
+    public static SubscriptionEvent transaction(String txHash, Long blockNumber) {
+        return new SubscriptionEvent(Type.TRANSACTION, blockNumber, txHash);
+    }
+}
@@ -0,0 +1,20 @@
+package com.projectdata.transaction.service.blockchain.subscription;
+
+import com.projectdata.transaction.model.WalletChain;
+
+/**
+ * Receives what the chain subscriptions deliver
+ */
+public interface SubscriptionHandler {
+
+    void onEvent(WalletChain chain, SubscriptionEvent event);
+
+    /**
+     * Called after a connection was re-established and the subscriptions were sent
+     * again. Events pushed while it was down are lost, so the handler has to catch up
+     * from the last block seen before the drop.
+     *
+     * @param lastSeenBlock The last block or slot received before the drop, null if none was
+     */
+    void onResubscribed(WalletChain chain, Long lastSeenBlock);
+}
@@ -0,0 +1,228 @@
+package com.projectdata.transaction.service.blockchain.subscription;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.service.blockchain.adapter.SubscriptionAdapter;
+import com.projectdata.transaction.service.blockchain.rpc.RetryPolicy;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Push ingestion over persistent WebSocket connections, one per chain that has a
+ * {@code blockchain.subscriptions.<chain>} endpoint configured. Chains without one
+ * are left to polling.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionManager {
+
+    private final HttpClient blockchainHttpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<SubscriptionAdapter> subscriptionAdapters;
+
+    private final Map<WalletChain, ChainSubscriber> subscribers = new EnumMap<>(WalletChain.class);
+
+    @Value("${blockchain.subscriptions.ethereum:}")
+    private String ethereumUrl;
+
+    @Value("${blockchain.subscriptions.solana:}")
+    private String solanaUrl;
+
+    @Value("${blockchain.subscriptions.bsc:}")
+    private String bscUrl;
+
+    @Value("${blockchain.subscriptions.sui:}")
+    private String suiUrl;
+
+    @Value("${blockchain.subscriptions.connect-timeout:10000}")
+    private long connectTimeoutMs;
+
+    @Value("${blockchain.subscriptions.ping-interval:15000}")
+    private long pingIntervalMs;
+
+    // A connection that delivered neither a message nor a pong for this long is replaced
+    @Value("${blockchain.subscriptions.idle-timeout:60000}")
+    private long idleTimeoutMs;
+
+    @Value("${blockchain.subscriptions.resubscribe-delay:1000}")
+    private long resubscribeDelayMs;
+
+    @Value("${blockchain.subscriptions.reconnect.base-delay:500}")
+    private long reconnectBaseDelayMs;
+
+    @Value("${blockchain.subscriptions.reconnect.max-delay:30000}")
+    private long reconnectMaxDelayMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void initScheduler() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blockchain-subscriptions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::checkLiveness, pingIntervalMs, pingIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (subscribers) {
+            subscribers.values().forEach(ChainSubscriber::close);
+            subscribers.clear();
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Subscribes to a chain's updates for the given wallets, opening its connection on
+     * the first call and adding them to the subscribed ones on later calls
+     *
+     * @param chain The blockchain
+     * @param wallets The wallets to add
+     * @param handler Receives the chain's events
+     * @return true if the chain is served by subscriptions, false if it has no endpoint configured
+     */
+    public boolean subscribe(WalletChain chain, Collection<String> wallets, SubscriptionHandler handler) {
+        synchronized (subscribers) {
+            ChainSubscriber subscriber = subscribers.get(chain);
+            if (subscriber != null) {
+                subscriber.addWallets(wallets);
+                return true;
+            }
+
+            String url = endpointUrl(chain);
+            SubscriptionAdapter adapter = adapter(chain);
+            if (url == null || url.isBlank() || adapter == null) {
+                return false;
+            }
+
+            subscriber = new ChainSubscriber(chain, URI.create(url.trim()), adapter, handler,
+                    blockchainHttpClient, objectMapper, scheduler, meterRegistry,
+                    new RetryPolicy(Integer.MAX_VALUE, reconnectBaseDelayMs, reconnectMaxDelayMs),
+                    Duration.ofMillis(connectTimeoutMs), idleTimeoutMs, resubscribeDelayMs);
+            subscribers.put(chain, subscriber);
+
+            // Registered once per chain, so it asks for whichever subscriber is current
+            Gauge.builder("blockchain_subscription_connected", () -> isConnected(chain) ? 1 : 0)
+                    .tag("chain", chain.name())
+                    .description("Whether the chain's WebSocket subscription connection is up")
+                    .register(meterRegistry);
+
+            subscriber.start(wallets);
+            return true;
+        }
+    }
+
+    /**
+     * Adds wallets to a chain's subscriptions; does nothing if the chain has none open
+     */
+    public void addWallets(WalletChain chain, Collection<String> wallets) {
+        ChainSubscriber subscriber = subscriber(chain);
+        if (subscriber != null) {
+            subscriber.addWallets(wallets);
+        }
+    }
+
+    /**
+     * Drops a wallet from a chain's subscriptions; the connection stays open
+     */
+    public void removeWallet(WalletChain chain, String walletAddress) {
+        ChainSubscriber subscriber = subscriber(chain);
+        if (subscriber != null) {
+            subscriber.removeWallet(walletAddress);
+        }
+    }
+
+    /**
+     * Closes a chain's connection, e.g. once another node holds its subscriptions
+     */
+    public void close(WalletChain chain) {
+        ChainSubscriber subscriber;
+        synchronized (subscribers) {
+            subscriber = subscribers.remove(chain);
+        }
+        if (subscriber != null) {
+            log.info("Closing {} subscriptions", chain);
+            subscriber.close();
+        }
+    }
+
+    /**
+     * @return true if the chain has a connection, up or being re-established
+     */
+    public boolean isSubscribed(WalletChain chain) {
+        return subscriber(chain) != null;
+    }
+
+    /**
+     * @return true if the chain's subscription connection is currently up
+     */
+    public boolean isConnected(WalletChain chain) {
+        ChainSubscriber subscriber = subscriber(chain);
+        return subscriber != null && subscriber.isConnected();
+    }
+
+    private ChainSubscriber subscriber(WalletChain chain) {
+        synchronized (subscribers) {
+            return subscribers.get(chain);
+        }
+    }
+
+    private void checkLiveness() {
+        List<ChainSubscriber> current;
+        synchronized (subscribers) {
+            current = List.copyOf(subscribers.values());
+        }
+        for (ChainSubscriber subscriber : current) {
+            try {
+                subscriber.checkLiveness();
+            } catch (RuntimeException e) {
+                log.warn("Subscription liveness check failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private SubscriptionAdapter adapter(WalletChain chain) {
+        return subscriptionAdapters.stream()
+                .filter(adapter -> adapter.getChain() == chain)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String endpointUrl(WalletChain chain) {
+        switch (chain) {
+            case ETH:
+                return ethereumUrl;
+            case SOL:
+                return solanaUrl;
+            case BSC:
+                return bscUrl;
+            case SUI:
+                return suiUrl;
+            default:
+                return null;
+        }
+    }
+}
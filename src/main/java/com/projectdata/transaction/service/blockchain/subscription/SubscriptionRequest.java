@@ -0,0 +1,9 @@
+package com.projectdata.transaction.service.blockchain.subscription;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * One subscribe call sent when a WebSocket connection is opened
+ */
+public record SubscriptionRequest(String method, ArrayNode params) {
+}
@@ -0,0 +1,191 @@
+package com.projectdata.transaction.benchmark;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.WalletChain;
+import com.projectdata.transaction.model.mongo.AlertMessage;
+import com.projectdata.transaction.model.mongo.RawTransaction;
+import com.projectdata.transaction.service.OnChainTransactionService;
+import com.projectdata.transaction.service.blockchain.BlockchainRpcClient;
+import com.projectdata.transaction.service.blockchain.TransactionLookup;
+import com.projectdata.transaction.service.blockchain.WalletTrackingService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures end-to-end ingestion throughput, from the RPC fetch through the Mongo
+ * write to the Kafka alert, against the {@link RpcReplayServer}. Each chain is run
+ * through the per-transaction async path and the batched path, after a warm-up
+ * round that is not counted.
+ *
+ * <p>Needs a Mongo and a Kafka broker ({@code MONGO_URI}, {@code KAFKA_SERVER})
+ * and only runs when asked for:
+ * <pre>
+ * mvn test -Dtest=IngestionBenchmarkTests -Dbenchmark=true \
+ *     -Dbenchmark.profile=TYPICAL -Dbenchmark.transactions=2000
+ * </pre>
+ * Profiles are {@code FAST}, {@code TYPICAL}, {@code DEGRADED} and {@code THROTTLED};
+ * {@code benchmark.chains} limits the run to some of {@code eth,bsc,sol,sui}.
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@ActiveProfiles({"test", "benchmark"})
+class IngestionBenchmarkTests {
+
+    private static final int TRANSACTIONS = Integer.getInteger("benchmark.transactions", 2000);
+    private static final int WARMUP = Integer.getInteger("benchmark.warmup", 200);
+
+    private static RpcReplayServer replayServer;
+    private static int runs;
+
+    @Autowired
+    private WalletTrackingService walletTrackingService;
+
+    @Autowired
+    private BlockchainRpcClient rpcClient;
+
+    @Autowired
+    private OnChainTransactionService transactionService;
+
+    @Autowired
+    private KafkaTemplate<String, AlertMessage> kafkaTemplate;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final List<String> written = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void replayEndpoints(DynamicPropertyRegistry registry) {
+        replayServer = new RpcReplayServer(
+                RpcReplayServer.Profile.named(System.getProperty("benchmark.profile", "TYPICAL")),
+                "eth", "bsc", "sol", "sui").start();
+        registry.add("blockchain.rpc.ethereum", () -> replayServer.url("eth"));
+        registry.add("blockchain.rpc.bsc", () -> replayServer.url("bsc"));
+        registry.add("blockchain.rpc.solana", () -> replayServer.url("sol"));
+        registry.add("blockchain.rpc.sui", () -> replayServer.url("sui"));
+    }
+
+    @AfterAll
+    static void stopReplayServer() {
+        if (replayServer != null) {
+            replayServer.close();
+        }
+    }
+
+    @AfterEach
+    void removeWrittenDocuments() {
+        Query written = Query.query(Criteria.where("txHash").in(this.written));
+        mongoTemplate.remove(written, RawTransaction.class);
+        mongoTemplate.remove(written, AlertMessage.class);
+        this.written.clear();
+    }
+
+    static Stream<WalletChain> chains() {
+        return Arrays.stream(System.getProperty("benchmark.chains", "eth,bsc,sol,sui").split(","))
+                .map(String::trim)
+                .map(chain -> WalletChain.valueOf(chain.toUpperCase()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("chains")
+    void asyncIngestion(WalletChain chain) {
+        ingestAsync(chain, hashes(chain, WARMUP));
+        report(chain, "async", () -> ingestAsync(chain, hashes(chain, TRANSACTIONS)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("chains")
+    void batchIngestion(WalletChain chain) {
+        ingestBatch(chain, hashes(chain, WARMUP));
+        report(chain, "batch", () -> ingestBatch(chain, hashes(chain, TRANSACTIONS)));
+    }
+
+    private int ingestAsync(WalletChain chain, List<String> txHashes) {
+        List<TransactionDTO> stored = walletTrackingService.fetchAndProcessTransactionsAsync(chain, txHashes).join();
+        kafkaTemplate.flush();
+        return stored.size();
+    }
+
+    private int ingestBatch(WalletChain chain, List<String> txHashes) {
+        int stored = 0;
+        for (TransactionLookup lookup : rpcClient.getTransactions(chain, txHashes).values()) {
+            if (lookup.isSuccess()) {
+                transactionService.trackTransaction(lookup.getTransaction());
+                stored++;
+            }
+        }
+        kafkaTemplate.flush();
+        return stored;
+    }
+
+    private void report(WalletChain chain, String path, Ingestion ingestion) {
+        long requests = replayServer.getRequests();
+        long calls = replayServer.getCalls();
+        long failed = replayServer.getFailed();
+        long throttled = replayServer.getThrottled();
+
+        long start = System.nanoTime();
+        int stored = ingestion.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("{} {} ingestion with {}: {}/{} transactions stored in {} s, {} tx/s; "
+                        + "{} HTTP requests, {} calls, {} failed, {} throttled",
+                chain, path, replayServer.getProfile(), stored, TRANSACTIONS,
+                String.format("%.2f", seconds), String.format("%.1f", stored / seconds),
+                replayServer.getRequests() - requests, replayServer.getCalls() - calls,
+                replayServer.getFailed() - failed, replayServer.getThrottled() - throttled);
+        assertTrue(stored > 0, "No " + chain + " transaction made it through the " + path + " path");
+    }
+
+    /**
+     * Hashes never fetched before, so neither the transaction cache nor the
+     * processed set can answer them
+     */
+    private List<String> hashes(WalletChain chain, int count) {
+        int run = ++runs;
+        List<String> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = String.format("%08x%08x", run, i);
+            switch (chain) {
+                case ETH:
+                case BSC:
+                    hashes.add("0x" + "be".repeat(24) + id);
+                    break;
+                default:
+                    hashes.add("bench" + chain.name().toLowerCase() + id);
+                    break;
+            }
+        }
+        written.addAll(hashes);
+        return hashes;
+    }
+
+    @FunctionalInterface
+    private interface Ingestion {
+        int run();
+    }
+}
@@ -0,0 +1,273 @@
+package com.projectdata.transaction.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local JSON-RPC server that answers from recorded replies instead of a
+ * provider, so the RPC client and the ingestion path can be loaded without
+ * rate limits or cost.
+ *
+ * <p>Each chain is served under {@code /<chain>} from the fixture
+ * {@code rpc-fixtures/<chain>.json} on the classpath. A fixture maps a method
+ * to its results, keyed by the call's first parameter with {@code "*"} as the
+ * fallback. Every {@code {{param0}}} in a result is replaced by that parameter,
+ * so one recorded reply serves any number of distinct hashes. Batch arrays are
+ * answered in order, and methods without a fixture get a JSON-RPC error.
+ *
+ * <p>A {@link Profile} adds latency, failed requests and throttling per HTTP
+ * request, the way a provider would.
+ */
+public class RpcReplayServer implements AutoCloseable {
+
+    private static final String PARAM_PLACEHOLDER = "{{param0}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Profile profile;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * Latency and faults applied to every HTTP request
+     *
+     * @param latencyMs Fixed delay before replying
+     * @param jitterMs Up to this much random extra delay
+     * @param errorRate Share of requests answered with HTTP 503
+     * @param requestsPerSecond Requests let through per second per chain before
+     *        HTTP 429 is returned, or 0 for no limit
+     */
+    public record Profile(long latencyMs, long jitterMs, double errorRate, int requestsPerSecond) {
+
+        public static final Profile FAST = new Profile(0, 0, 0, 0);
+        public static final Profile TYPICAL = new Profile(40, 40, 0.01, 0);
+        public static final Profile DEGRADED = new Profile(250, 250, 0.05, 0);
+        public static final Profile THROTTLED = new Profile(40, 40, 0.01, 50);
+
+        public static Profile named(String name) {
+            switch (name.toUpperCase()) {
+                case "FAST":
+                    return FAST;
+                case "TYPICAL":
+                    return TYPICAL;
+                case "DEGRADED":
+                    return DEGRADED;
+                case "THROTTLED":
+                    return THROTTLED;
+                default:
+                    throw new IllegalArgumentException("Unknown replay profile " + name);
+            }
+        }
+    }
+
+    public RpcReplayServer(Profile profile, String... chains) {
+        this.profile = profile;
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String chain : chains) {
+            Map<String, JsonNode> fixture = loadFixture(chain);
+            RateLimit rateLimit = new RateLimit(profile.requestsPerSecond());
+            server.createContext("/" + chain, exchange -> handle(exchange, fixture, rateLimit));
+        }
+        server.setExecutor(executor);
+    }
+
+    public RpcReplayServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return The endpoint URL to configure for the chain
+     */
+    public String url(String chain) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + chain;
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private Map<String, JsonNode> loadFixture(String chain) {
+        String resource = "rpc-fixtures/" + chain + ".json";
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No replay fixture " + resource);
+            }
+            Map<String, JsonNode> methods = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = objectMapper.readTree(in).fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> method = fields.next();
+                methods.put(method.getKey(), method.getValue());
+            }
+            return methods;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read replay fixture " + resource, e);
+        }
+    }
+
+    private void handle(HttpExchange exchange, Map<String, JsonNode> fixture, RateLimit rateLimit)
+            throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+
+            delay();
+            if (!rateLimit.tryAcquire()) {
+                throttled.incrementAndGet();
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() < profile.errorRate()) {
+                failed.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            JsonNode reply;
+            if (request.isArray()) {
+                ArrayNode replies = objectMapper.createArrayNode();
+                request.forEach(call -> replies.add(reply(call, fixture)));
+                reply = replies;
+            } else {
+                reply = reply(request, fixture);
+            }
+
+            byte[] response = objectMapper.writeValueAsBytes(reply);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+    }
+
+    private ObjectNode reply(JsonNode call, Map<String, JsonNode> fixture) {
+        calls.incrementAndGet();
+        ObjectNode reply = objectMapper.createObjectNode().put("jsonrpc", "2.0");
+        reply.set("id", call.get("id"));
+
+        String method = call.path("method").asText();
+        JsonNode results = fixture.get(method);
+        if (results == null) {
+            reply.putObject("error").put("code", -32601).put("message", "Method not recorded: " + method);
+            return reply;
+        }
+
+        JsonNode param = call.path("params").path(0);
+        String param0 = param.isValueNode() ? param.asText() : param.toString();
+        JsonNode result = results.has(param0) ? results.get(param0) : results.get("*");
+        if (result == null) {
+            reply.putObject("error").put("code", -32602).put("message", "No recorded result for " + param0);
+            return reply;
+        }
+        reply.set("result", substitute(result, param0));
+        return reply;
+    }
+
+    private JsonNode substitute(JsonNode result, String param0) {
+        String json = result.toString();
+        if (!json.contains(PARAM_PLACEHOLDER)) {
+            return result;
+        }
+        try {
+            // Quoting then unquoting escapes the parameter as JSON string content
+            String quoted = objectMapper.writeValueAsString(param0);
+            return objectMapper.readTree(json.replace(PARAM_PLACEHOLDER, quoted.substring(1, quoted.length() - 1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delay() {
+        long delayMs = profile.latencyMs();
+        if (profile.jitterMs() > 0) {
+            delayMs += ThreadLocalRandom.current().nextLong(profile.jitterMs() + 1);
+        }
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A token bucket refilled continuously, holding at most one second of requests
+     */
+    private static final class RateLimit {
+        private final int perSecond;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private RateLimit(int perSecond) {
+            this.perSecond = perSecond;
+            this.tokens = perSecond;
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (perSecond <= 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(perSecond, tokens + (now - refilledAt) * perSecond / (double) TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
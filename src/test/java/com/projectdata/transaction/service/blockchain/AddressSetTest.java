@@ -0,0 +1,147 @@
+package com.projectdata.transaction.service.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AddressSetTest {
+
+	private static final String ADDRESS = "0x52908400098527886E0F7030069857D2E4169EE7";
+
+	private final AddressSet set = new AddressSet(20);
+
+	@Test
+	void matchesAddressInAnyCaseWithOrWithoutPrefix() {
+		assertTrue(set.add(ADDRESS, 1));
+
+		assertTrue(set.contains(ADDRESS));
+		assertTrue(set.contains(ADDRESS.toLowerCase()));
+		assertTrue(set.contains("0X52908400098527886e0f7030069857d2e4169ee7"));
+		assertTrue(set.contains("52908400098527886e0f7030069857d2e4169ee7"));
+		assertFalse(set.contains("0x52908400098527886e0f7030069857d2e4169ee8"));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void addressWithoutPrefixIsTheSameAddress() {
+		assertTrue(set.add("52908400098527886e0f7030069857d2e4169ee7", 1));
+		assertTrue(set.add(ADDRESS, 2));
+
+		assertEquals(1, set.size());
+		assertTrue(set.contains(ADDRESS));
+	}
+
+	@Test
+	void readsShorterHexAsLeftPadded() {
+		assertTrue(set.add("0x1", 1));
+
+		assertTrue(set.contains("0x0000000000000000000000000000000000000001"));
+		assertTrue(set.contains("01"));
+		assertFalse(set.contains("0x10"));
+	}
+
+	@Test
+	void rejectsTextThatIsNotAnAddress() {
+		assertFalse(set.add("", 1));
+		assertFalse(set.add("0x", 1));
+		assertFalse(set.add("0x5290840009852788zE0F7030069857D2E4169EE7", 1));
+		assertFalse(set.add(ADDRESS + "00", 1));
+
+		assertFalse(set.contains(""));
+		assertFalse(set.contains("0x"));
+		assertFalse(set.contains(ADDRESS + "00"));
+		assertTrue(set.isEmpty());
+	}
+
+	@Test
+	void addingAgainReplacesTheValue() {
+		set.add(ADDRESS, 1);
+		set.add(ADDRESS.toLowerCase(), 2);
+
+		assertEquals(1, set.size());
+		assertFalse(set.anyValueMatches(value -> value == 1));
+		assertTrue(set.anyValueMatches(value -> value == 2));
+	}
+
+	@Test
+	void removedAddressIsGoneAndCanBeAddedBack() {
+		set.add(ADDRESS, 1);
+		set.remove(ADDRESS.toLowerCase());
+
+		assertFalse(set.contains(ADDRESS));
+		assertTrue(set.isEmpty());
+		assertFalse(set.anyValueMatches(value -> true));
+		// Removing what is not there changes nothing
+		set.remove(ADDRESS);
+		set.remove("not an address");
+		assertEquals(0, set.size());
+
+		assertTrue(set.add(ADDRESS, 3));
+		assertTrue(set.contains(ADDRESS));
+		assertTrue(set.anyValueMatches(value -> value == 3));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void keepsTheRightAddressesAcrossGrowingAndShrinkingRebuilds() {
+		List<String> addresses = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			String address = address(i);
+			addresses.add(address);
+			assertTrue(set.add(address, i));
+		}
+		assertEquals(10_000, set.size());
+
+		// Leaves one address in a hundred, shrinking the table on the way
+		for (int i = 0; i < addresses.size(); i++) {
+			if (i % 100 != 0) {
+				set.remove(addresses.get(i));
+			}
+		}
+		assertEquals(100, set.size());
+		for (int i = 0; i < addresses.size(); i++) {
+			assertEquals(i % 100 == 0, set.contains(addresses.get(i)), addresses.get(i));
+		}
+		assertTrue(set.anyValueMatches(value -> value == 9_900));
+		assertFalse(set.anyValueMatches(value -> value == 9_901));
+	}
+
+	@Test
+	void churnOfAddressesDoesNotFillTheTableWithRemovedSlots() {
+		set.add(ADDRESS, 0);
+		// Every insert uses a fresh slot; without rebuilds the table would run out of empty ones
+		for (int i = 0; i < 100_000; i++) {
+			String address = address(i);
+			set.add(address, i);
+			set.remove(address);
+		}
+
+		assertEquals(1, set.size());
+		assertTrue(set.contains(ADDRESS));
+		assertFalse(set.contains(address(99_999)));
+	}
+
+	@Test
+	void holdsAddressesOf32Bytes() {
+		AddressSet suiAddresses = new AddressSet(32);
+		String address = "0x" + "ab".repeat(31) + "cd";
+
+		assertTrue(suiAddresses.add(address, 0));
+		assertTrue(suiAddresses.add("0x2", 0));
+
+		assertTrue(suiAddresses.contains(address.toUpperCase().replace("0X", "0x")));
+		assertTrue(suiAddresses.contains("0x" + "0".repeat(63) + "2"));
+		assertFalse(suiAddresses.contains("0x" + "ab".repeat(31) + "ce"));
+		assertFalse(suiAddresses.add(address + "00", 0));
+		assertEquals(2, suiAddresses.size());
+	}
+
+	private static String address(int i) {
+		return String.format("0x%040x", i * 0x9e3779b1L);
+	}
+}
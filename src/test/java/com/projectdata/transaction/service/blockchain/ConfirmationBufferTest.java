@@ -0,0 +1,117 @@
+package com.projectdata.transaction.service.blockchain;
+
+import com.projectdata.transaction.dto.common.TransactionDTO;
+import com.projectdata.transaction.model.WalletChain;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfirmationBufferTest {
+
+	private final ConfirmationBuffer buffer = new ConfirmationBuffer(new SimpleMeterRegistry());
+
+	@Test
+	void confirmsBlocksUpToTheGivenOneInOrder() {
+		TransactionDTO first = transaction("0x01");
+		TransactionDTO second = transaction("0x02");
+		assertTrue(buffer.append(WalletChain.ETH, header(100, "a100", "a99"), List.of(first)));
+		assertTrue(buffer.append(WalletChain.ETH, header(101, "a101", "a100"), List.of(second)));
+		assertTrue(buffer.append(WalletChain.ETH, header(102, "a102", "a101"), List.of(transaction("0x03"))));
+
+		assertEquals(List.of(first, second), buffer.confirm(WalletChain.ETH, 101));
+		assertEquals(List.of(), buffer.confirm(WalletChain.ETH, 101));
+	}
+
+	@Test
+	void rejectsBlockWhoseParentHashDoesNotMatch() {
+		assertTrue(buffer.append(WalletChain.ETH, header(100, "a100", "a99"), List.of()));
+		assertTrue(buffer.append(WalletChain.ETH, header(101, "a101", "a100"), List.of(transaction("0x01"))));
+
+		assertFalse(buffer.append(WalletChain.ETH, header(102, "b102", "b101"), List.of(transaction("0x02"))));
+		// Nothing was added for the rejected block
+		assertEquals(1, buffer.confirm(WalletChain.ETH, 102).size());
+	}
+
+	@Test
+	void parentHashIsComparedIgnoringCase() {
+		assertTrue(buffer.append(WalletChain.ETH, header(100, "0xABCD", "a99"), List.of()));
+		assertTrue(buffer.append(WalletChain.ETH, header(101, "a101", "0xabcd"), List.of()));
+	}
+
+	@Test
+	void rollsBackFromTheForkAfterParentHashMismatch() {
+		TransactionDTO kept = transaction("0x01");
+		TransactionDTO orphanedAt101 = transaction("0x02");
+		TransactionDTO orphanedAt102 = transaction("0x03");
+		buffer.append(WalletChain.ETH, header(100, "a100", "a99"), List.of(kept));
+		buffer.append(WalletChain.ETH, header(101, "a101", "a100"), List.of(orphanedAt101));
+		buffer.append(WalletChain.ETH, header(102, "a102", "a101"), List.of(orphanedAt102));
+
+		// The new chain's block 103 builds on a different 102, whose parent is a different 101
+		assertFalse(buffer.append(WalletChain.ETH, header(103, "b103", "b102"), List.of()));
+		assertEquals(List.of(orphanedAt102), buffer.rollBack(WalletChain.ETH, 102));
+		assertFalse(buffer.append(WalletChain.ETH, header(102, "b102", "b101"), List.of()));
+		assertEquals(List.of(orphanedAt101), buffer.rollBack(WalletChain.ETH, 101));
+
+		TransactionDTO replacement = transaction("0x04");
+		assertTrue(buffer.append(WalletChain.ETH, header(101, "b101", "a100"), List.of(replacement)));
+		assertTrue(buffer.append(WalletChain.ETH, header(102, "b102", "b101"), List.of()));
+		assertTrue(buffer.append(WalletChain.ETH, header(103, "b103", "b102"), List.of()));
+
+		assertEquals(List.of(kept, replacement), buffer.confirm(WalletChain.ETH, 103));
+	}
+
+	@Test
+	void firstBlockAfterRollBackOrClearIsAlwaysAccepted() {
+		buffer.append(WalletChain.ETH, header(100, "a100", "a99"), List.of(transaction("0x01")));
+		buffer.clear(WalletChain.ETH);
+
+		assertTrue(buffer.append(WalletChain.ETH, header(101, "b101", "b100"), List.of()));
+		assertEquals(List.of(), buffer.confirm(WalletChain.ETH, 101));
+	}
+
+	@Test
+	void keepsChainsApart() {
+		buffer.append(WalletChain.ETH, header(100, "a100", "a99"), List.of(transaction("0x01")));
+
+		assertTrue(buffer.append(WalletChain.BSC, header(101, "b101", "b100"), List.of()));
+		assertEquals(List.of(), buffer.rollBack(WalletChain.BSC, 100));
+		assertEquals(1, buffer.confirm(WalletChain.ETH, 100).size());
+	}
+
+	@Test
+	void releasesHandedBackTransactionsAgainFirst() {
+		TransactionDTO unstored = transaction("0x01");
+		TransactionDTO next = transaction("0x02");
+		buffer.append(WalletChain.ETH, header(100, "a100", "a99"), List.of(unstored));
+		assertEquals(List.of(unstored), buffer.confirm(WalletChain.ETH, 100));
+
+		buffer.requeue(WalletChain.ETH, List.of(unstored));
+		buffer.append(WalletChain.ETH, header(101, "a101", "a100"), List.of(next));
+
+		assertEquals(List.of(unstored, next), buffer.confirm(WalletChain.ETH, 101));
+		assertEquals(List.of(), buffer.confirm(WalletChain.ETH, 101));
+	}
+
+	@Test
+	void clearDropsHandedBackTransactions() {
+		buffer.requeue(WalletChain.ETH, List.of(transaction("0x01")));
+		buffer.clear(WalletChain.ETH);
+
+		assertEquals(List.of(), buffer.confirm(WalletChain.ETH, 100));
+	}
+
+	private static BlockHeader header(long number, String hash, String parentHash) {
+		return new BlockHeader(number, hash, parentHash, Instant.EPOCH);
+	}
+
+	private static TransactionDTO transaction(String txHash) {
+		return TransactionDTO.builder().blockChain(WalletChain.ETH).txHash(txHash).build();
+	}
+}
@@ -0,0 +1,36 @@
+package com.projectdata.transaction.service.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolanaCursorTest {
+
+	@Test
+	void walletNotPolledYetHasNoCursor() {
+		assertNull(SolanaCursor.parse(null));
+		assertNull(SolanaCursor.parse(""));
+	}
+
+	@Test
+	void singleSignatureIsTheNewestWithNothingLeft() {
+		SolanaCursor cursor = SolanaCursor.parse("5VERv8NMvzbJMEkV8xnrLkEaWRtSz9CosKDYjCJjBRnb");
+
+		assertEquals("5VERv8NMvzbJMEkV8xnrLkEaWRtSz9CosKDYjCJjBRnb", cursor.newest());
+		assertFalse(cursor.hasGap());
+		assertEquals("5VERv8NMvzbJMEkV8xnrLkEaWRtSz9CosKDYjCJjBRnb", cursor.format());
+	}
+
+	@Test
+	void rangeLeftSurvivesFormatAndParse() {
+		SolanaCursor cursor = new SolanaCursor("newest", "gapBefore", "gapUntil");
+
+		assertEquals("newest:gapBefore:gapUntil", cursor.format());
+		SolanaCursor parsed = SolanaCursor.parse(cursor.format());
+		assertTrue(parsed.hasGap());
+		assertEquals(cursor, parsed);
+	}
+}
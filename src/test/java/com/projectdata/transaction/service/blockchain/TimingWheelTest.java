@@ -0,0 +1,117 @@
+package com.projectdata.transaction.service.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+	private final TimingWheel<Timer> wheel = new TimingWheel<>(1, 0);
+
+	@Test
+	void timerIsDueOnItsTickAndNotBefore() {
+		Timer timer = new Timer("a");
+		wheel.schedule(timer, 10);
+
+		assertEquals(List.of(), advance(9));
+		assertEquals(List.of(timer), advance(10));
+		assertFalse(timer.isScheduled());
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void zeroDelayIsDueOnTheNextTick() {
+		Timer timer = new Timer("a");
+		wheel.schedule(timer, 0);
+
+		assertEquals(List.of(), advance(0));
+		assertEquals(List.of(timer), advance(1));
+	}
+
+	@Test
+	void timersCascadeDownEveryLevelOnTime() {
+		long[] delays = {63, 64, 65, 64 * 64 + 5, 64 * 64 * 64 + 7, 64L * 64 * 64 * 64 + 3};
+		List<Timer> timers = new ArrayList<>();
+		for (long delay : delays) {
+			Timer timer = new Timer(String.valueOf(delay));
+			timers.add(timer);
+			wheel.schedule(timer, delay);
+		}
+
+		for (int i = 0; i < delays.length; i++) {
+			assertEquals(List.of(), advance(delays[i] - 1), "early before " + delays[i]);
+			assertEquals(List.of(timers.get(i)), advance(delays[i]), "not due at " + delays[i]);
+		}
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void timerScheduledAcrossASlotBoundaryCascades() {
+		advance(60);
+		Timer timer = new Timer("a");
+		wheel.schedule(timer, 10);
+
+		assertEquals(List.of(), advance(69));
+		assertEquals(List.of(timer), advance(70));
+	}
+
+	@Test
+	void dueTimersAreHandedOverInDeadlineOrder() {
+		Timer late = new Timer("late");
+		Timer early = new Timer("early");
+		Timer middle = new Timer("middle");
+		wheel.schedule(late, 300);
+		wheel.schedule(early, 10);
+		wheel.schedule(middle, 70);
+
+		assertEquals(List.of(early, middle, late), advance(1000));
+	}
+
+	@Test
+	void cancelledTimerIsNeverDue() {
+		Timer cancelled = new Timer("cancelled");
+		Timer kept = new Timer("kept");
+		wheel.schedule(cancelled, 100);
+		wheel.schedule(kept, 100);
+
+		assertTrue(wheel.cancel(cancelled));
+		assertFalse(wheel.cancel(cancelled));
+		assertEquals(1, wheel.size());
+		assertEquals(List.of(kept), advance(200));
+	}
+
+	@Test
+	void schedulingAgainMovesTheTimer() {
+		Timer timer = new Timer("a");
+		wheel.schedule(timer, 10);
+		wheel.schedule(timer, 5000);
+
+		assertEquals(1, wheel.size());
+		assertEquals(List.of(), advance(4999));
+		assertEquals(List.of(timer), advance(5000));
+	}
+
+	private List<Timer> advance(long nowMs) {
+		List<Timer> due = new ArrayList<>();
+		wheel.advance(nowMs, due::add);
+		return due;
+	}
+
+	private static final class Timer extends TimingWheel.Node {
+		private final String name;
+
+		private Timer(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.projectdata.transaction.service.blockchain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WalletPollScheduleTest {
+
+	private static final long TICK_MS = 1000;
+
+	private WalletPollSchedule schedule;
+	private long start;
+
+	@BeforeEach
+	void setUp() {
+		schedule = new WalletPollSchedule(TICK_MS, 1000, 8000);
+		start = System.currentTimeMillis();
+	}
+
+	@Test
+	void newWalletIsDueAfterItsDelayAndOnlyOnce() {
+		schedule.add("w", 3000);
+
+		assertEquals(List.of(), schedule.due(at(2)));
+		assertEquals(List.of("w"), schedule.due(at(3)));
+		// Not scheduled again until it is polled or deferred
+		assertEquals(List.of(), schedule.due(at(100)));
+		assertEquals(1, schedule.size());
+	}
+
+	@Test
+	void addingAScheduledWalletKeepsItsDeadline() {
+		schedule.add("w", 5000);
+		schedule.add("w", 1000);
+
+		assertEquals(List.of(), schedule.due(at(4)));
+		assertEquals(List.of("w"), schedule.due(at(5)));
+	}
+
+	@Test
+	void idlePollsDoubleTheIntervalUpToTheMaximum() {
+		schedule.add("w", 0);
+		assertEquals(List.of("w"), schedule.due(at(1)));
+
+		long tick = 1;
+		for (long interval : new long[] {2, 4, 8, 8}) {
+			schedule.polled(List.of("w"), Set.of());
+			assertEquals(List.of(), schedule.due(at(tick + interval - 1)), "early for interval " + interval);
+			assertEquals(List.of("w"), schedule.due(at(tick + interval)), "late for interval " + interval);
+			tick += interval;
+		}
+	}
+
+	@Test
+	void activePollResetsTheInterval() {
+		schedule.add("w", 0);
+		schedule.due(at(1));
+		schedule.polled(List.of("w"), Set.of());
+		schedule.due(at(3));
+		schedule.polled(List.of("w"), Set.of());
+		schedule.due(at(7));
+
+		schedule.polled(List.of("w"), Set.of("w"));
+		assertEquals(List.of("w"), schedule.due(at(8)));
+	}
+
+	@Test
+	void deferredWalletKeepsItsInterval() {
+		schedule.add("w", 0);
+		schedule.due(at(1));
+		schedule.polled(List.of("w"), Set.of());
+		assertEquals(List.of("w"), schedule.due(at(3)));
+
+		schedule.deferred(List.of("w"));
+		assertEquals(List.of(), schedule.due(at(4)));
+		assertEquals(List.of("w"), schedule.due(at(5)));
+	}
+
+	@Test
+	void removedWalletIsNeitherDueNorRescheduled() {
+		schedule.add("w", 0);
+		schedule.add("other", 0);
+		schedule.remove("other");
+		assertEquals(List.of("w"), schedule.due(at(1)));
+
+		schedule.remove("w");
+		schedule.polled(List.of("w"), Set.of());
+		schedule.deferred(List.of("w"));
+		assertEquals(List.of(), schedule.due(at(100)));
+		assertEquals(0, schedule.size());
+	}
+
+	/**
+	 * @return A time in the middle of the given tick of the schedule's wheel
+	 */
+	private long at(long tick) {
+		return start + tick * TICK_MS + TICK_MS / 2;
+	}
+}
@@ -0,0 +1,77 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HexQuantityTest {
+
+	@Test
+	void parsesQuantitiesThatFitIntoLongs() {
+		assertEquals(0L, HexQuantity.parse("0x0"));
+		assertEquals(2_000_000_000_000_000_000L, HexQuantity.parse("0x1bc16d674ec80000"));
+		assertEquals(255L, HexQuantity.parse("0X00FF"));
+		assertEquals(Long.MAX_VALUE, HexQuantity.parse("0x7fffffffffffffff"));
+	}
+
+	@Test
+	void fallsBackToBigIntegerAbove63Bits() {
+		assertEquals(new BigInteger("8000000000000000", 16), HexQuantity.parse("0x8000000000000000"));
+		assertEquals(new BigInteger("ffffffffffffffffffffffff", 16), HexQuantity.parse("0xffffffffffffffffffffffff"));
+		// Leading zeros do not count towards the size
+		assertEquals(1L, HexQuantity.parse("0x00000000000000000000000000000001"));
+	}
+
+	@Test
+	void parsesFromAnOffsetIntoACharacterBuffer() {
+		char[] buffer = "{\"value\":\"0x2a\"}".toCharArray();
+		assertEquals(42L, HexQuantity.parse(buffer, 10, 4));
+	}
+
+	@Test
+	void rejectsMalformedQuantities() {
+		assertThrows(NumberFormatException.class, () -> HexQuantity.parse("0x"));
+		assertThrows(NumberFormatException.class, () -> HexQuantity.parse("0x12g4"));
+		assertThrows(NumberFormatException.class, () -> HexQuantity.parse("0x12345678901234567890z"));
+	}
+
+	@Test
+	void parseLongRefusesValuesThatDoNotFit() {
+		assertEquals(0x10L, HexQuantity.parseLong("0x10"));
+		assertThrows(ArithmeticException.class, () -> HexQuantity.parseLong("0x10000000000000000"));
+	}
+
+	@Test
+	void scalesAmountsExactly() {
+		assertEquals(new BigDecimal("2.000000000000000000"), HexQuantity.toDecimal(2_000_000_000_000_000_000L, 18));
+		assertEquals(new BigDecimal("123456789012345678901.234567"),
+				HexQuantity.toDecimal(new BigInteger("123456789012345678901234567"), 6));
+	}
+
+	@Test
+	void readsTheParsersCurrentToken() throws IOException {
+		try (JsonParser parser = new JsonFactory().createParser("[\"0xff\", 7, null]")) {
+			parser.nextToken();
+			parser.nextToken();
+			assertEquals(255L, HexQuantity.read(parser));
+			parser.nextToken();
+			assertEquals(7, HexQuantity.read(parser));
+			parser.nextToken();
+			assertNull(HexQuantity.read(parser));
+		}
+	}
+
+	@Test
+	void formatsQuantities() {
+		assertEquals("0x0", HexQuantity.toHex(0));
+		assertEquals("0x12d687", HexQuantity.toHex(1_234_567));
+	}
+}
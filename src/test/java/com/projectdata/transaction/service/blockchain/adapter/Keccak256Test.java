@@ -0,0 +1,34 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Keccak256Test {
+
+	@Test
+	void hashesKnownVectors() {
+		assertEquals("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470", keccak(""));
+		assertEquals("4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45", keccak("abc"));
+	}
+
+	@Test
+	void hashesTheTransferEventSignatureToItsTopic() {
+		assertEquals(EvmChainAdapter.TRANSFER_TOPIC, "0x" + keccak("Transfer(address,address,uint256)"));
+	}
+
+	@Test
+	void padsInputsAroundTheRateBoundary() {
+		// The rate is 136 bytes: one byte short of it, exactly it, and more than one block
+		assertEquals("34367dc248bbd832f4e3e69dfaac2f92638bd0bbd18f2912ba4ef454919cf446", keccak("a".repeat(135)));
+		assertEquals("a6c4d403279fe3e0af03729caada8374b5ca54d8065329a3ebcaeb4b60aa386e", keccak("a".repeat(136)));
+		assertEquals("96ea54061def936c4be90b518992fdc6f12f535068a256229aca54267b4d084d", keccak("a".repeat(200)));
+	}
+
+	private static String keccak(String input) {
+		return HexFormat.of().formatHex(Keccak256.hash(input.getBytes(StandardCharsets.UTF_8)));
+	}
+}
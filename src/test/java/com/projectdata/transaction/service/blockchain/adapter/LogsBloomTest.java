@@ -0,0 +1,64 @@
+package com.projectdata.transaction.service.blockchain.adapter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogsBloomTest {
+
+	// The low 11 bits of the first three byte pairs of keccak(topic)
+	private static final int[] TRANSFER_TOPIC_BITS = {1443, 481, 1060};
+	private static final String VITALIK = "0xd8da6bf26964af9d7eed9e03e53415d37aa96045";
+	private static final int[] VITALIK_TOPIC_BITS = {215, 998, 895};
+
+	@Test
+	void bitsOfTopicMatchKnownPositions() {
+		assertEquals(packed(TRANSFER_TOPIC_BITS), LogsBloom.bitsOfTopic(EvmChainAdapter.TRANSFER_TOPIC));
+		assertEquals(packed(VITALIK_TOPIC_BITS), LogsBloom.bitsOfTopic(EvmChainAdapter.addressTopic(VITALIK)));
+	}
+
+	@Test
+	void bitsOfAddressHashTheTwentyAddressBytes() {
+		String usdt = "0xdAC17F958D2ee523a2206206994597C13D831ec7";
+		assertEquals(LogsBloom.bitsOf(HexFormat.of().parseHex(usdt.substring(2))), LogsBloom.bitsOfAddress(usdt));
+	}
+
+	@Test
+	void bloomWithTheTopicsBitsMightContainIt() {
+		byte[] bloom = bloom(TRANSFER_TOPIC_BITS);
+		assertTrue(LogsBloom.mightContain(bloom, LogsBloom.bitsOfTopic(EvmChainAdapter.TRANSFER_TOPIC)));
+		assertFalse(LogsBloom.mightContain(bloom, LogsBloom.bitsOfTopic(EvmChainAdapter.addressTopic(VITALIK))));
+		// Two of the three bits are not enough
+		assertFalse(LogsBloom.mightContain(bloom(new int[] {1443, 481}), packed(TRANSFER_TOPIC_BITS)));
+	}
+
+	@Test
+	void parsesTheHeaderField() {
+		byte[] bloom = bloom(TRANSFER_TOPIC_BITS);
+		String hex = "0x" + HexFormat.of().formatHex(bloom);
+		byte[] parsed = LogsBloom.parse(hex);
+		assertTrue(LogsBloom.mightContain(parsed, packed(TRANSFER_TOPIC_BITS)));
+		assertNull(LogsBloom.parse("0x1234"));
+		assertNull(LogsBloom.parse("0x" + "zz".repeat(256)));
+	}
+
+	private static long packed(int[] bits) {
+		return ((long) bits[0] << 22) | ((long) bits[1] << 11) | bits[2];
+	}
+
+	/**
+	 * Sets the bits the way a block header's bloom does: bit 0 is the lowest bit of the last byte
+	 */
+	private static byte[] bloom(int[] bits) {
+		byte[] bloom = new byte[256];
+		for (int bit : bits) {
+			bloom[255 - bit / 8] |= (byte) (1 << (bit % 8));
+		}
+		return bloom;
+	}
+}
@@ -0,0 +1,75 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import com.projectdata.transaction.service.blockchain.rpc.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+	private final List<String> transitions = new ArrayList<>();
+
+	@Test
+	void opensAfterConsecutiveFailuresAndFailsFast() {
+		CircuitBreaker breaker = breaker(3, 60_000, 1);
+		breaker.onFailure();
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+		breaker.onFailure();
+		assertEquals(State.CLOSED, breaker.getState());
+
+		breaker.onFailure();
+		assertEquals(State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+		assertFalse(breaker.isCallPermitted());
+		assertEquals(List.of("CLOSED->OPEN"), transitions);
+	}
+
+	@Test
+	void halfOpenLetsLimitedProbesThroughAndClosesOnSuccess() {
+		CircuitBreaker breaker = breaker(1, 0, 2);
+		breaker.onFailure();
+		assertTrue(breaker.isCallPermitted());
+
+		assertTrue(breaker.tryAcquirePermission());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+		assertFalse(breaker.tryAcquirePermission());
+
+		breaker.onSuccess();
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+	}
+
+	@Test
+	void failedProbeReopensTheCircuit() {
+		CircuitBreaker breaker = breaker(1, 0, 1);
+		breaker.onFailure();
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onFailure();
+		assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN"), transitions);
+	}
+
+	@Test
+	void ignoredFailureGivesBackTheProbeSlot() {
+		CircuitBreaker breaker = breaker(1, 0, 1);
+		breaker.onFailure();
+		assertTrue(breaker.tryAcquirePermission());
+		assertFalse(breaker.tryAcquirePermission());
+
+		breaker.onIgnoredFailure();
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+	}
+
+	private CircuitBreaker breaker(int failureThreshold, long openDurationMs, int halfOpenMaxCalls) {
+		return new CircuitBreaker(failureThreshold, openDurationMs, halfOpenMaxCalls,
+				(from, to) -> transitions.add(from + "->" + to));
+	}
+}
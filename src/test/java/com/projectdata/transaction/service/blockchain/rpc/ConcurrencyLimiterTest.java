@@ -0,0 +1,97 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+	@Test
+	void drainsLongQueueOfSynchronouslyFailingTasks() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1, 0.5, 2.0);
+		CompletableFuture<Void> blocker = new CompletableFuture<>();
+		CompletableFuture<Void> first = limiter.submit(() -> blocker);
+
+		List<CompletableFuture<Object>> queued = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			queued.add(limiter.submit(() -> CompletableFuture.failedFuture(new IllegalStateException("circuit open"))));
+		}
+		assertEquals(100_000, limiter.getQueued());
+
+		blocker.complete(null);
+
+		assertTrue(first.isDone());
+		assertTrue(queued.stream().allMatch(CompletableFuture::isCompletedExceptionally));
+		assertEquals(0, limiter.getQueued());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void queuesCallsOverTheLimitUntilSlotsFree() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, 1, 2, 0.5, 2.0);
+		List<CompletableFuture<Integer>> calls = new ArrayList<>();
+		AtomicInteger started = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			CompletableFuture<Integer> call = new CompletableFuture<>();
+			calls.add(call);
+			limiter.submit(() -> {
+				started.incrementAndGet();
+				return call;
+			});
+		}
+		assertEquals(2, started.get());
+		assertEquals(2, limiter.getInFlight());
+		assertEquals(3, limiter.getQueued());
+
+		calls.get(0).complete(0);
+		assertEquals(3, started.get());
+		assertEquals(2, limiter.getInFlight());
+	}
+
+	@Test
+	void taskThatThrowsFailsItsFutureAndFreesItsSlot() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1, 0.5, 2.0);
+		CompletableFuture<Object> failed = limiter.submit(() -> {
+			throw new IllegalStateException("rejected");
+		});
+		assertTrue(failed.isCompletedExceptionally());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void overloadCutsTheLimitButNotBelowTheMinimum() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 16, 4, 32, 0.5, 2.0);
+		limiter.onOverload();
+		assertEquals(8, limiter.getLimit());
+		// A second overload in the same round trip is the same one
+		limiter.onOverload();
+		assertEquals(8, limiter.getLimit());
+		assertFalse(limiter.getLimit() < 4);
+	}
+
+	@Test
+	void limitRecoversOnceHigherLatencyBecomesTheBaseline() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 16, 1, 32, 0.5, 2.0);
+		for (int i = 0; i < 100; i++) {
+			limiter.onSuccess(1_000_000);
+		}
+		int before = limiter.getLimit();
+
+		// Latency steps up for good, e.g. once the calls are larger batches
+		limiter.onSuccess(10_000_000);
+		int cut = limiter.getLimit();
+		assertTrue(cut < before);
+		for (int i = 0; i < 2_000; i++) {
+			limiter.onSuccess(10_000_000);
+		}
+
+		assertEquals(32, limiter.getLimit());
+	}
+}
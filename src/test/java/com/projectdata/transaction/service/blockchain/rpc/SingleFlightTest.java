@@ -0,0 +1,32 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+	private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+	@Test
+	void completedCallLeavesNothingInFlight() {
+		assertEquals("value", flight.executeBlocking("key", () -> "value"));
+		assertEquals("value", flight.execute("key", () -> CompletableFuture.completedFuture("value")).join());
+
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	@Test
+	void callThrowingAnErrorDoesNotStayInFlight() {
+		assertThrows(StackOverflowError.class,
+				() -> flight.executeBlocking("key", () -> { throw new StackOverflowError(); }));
+		assertThrows(OutOfMemoryError.class,
+				() -> flight.execute("key", () -> { throw new OutOfMemoryError(); }));
+
+		assertEquals(0, flight.getInFlightCount());
+		assertEquals("value", flight.executeBlocking("key", () -> "value"));
+	}
+}
@@ -0,0 +1,58 @@
+package com.projectdata.transaction.service.blockchain.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+	private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void burstIsAvailableWithoutWaiting() {
+		TokenBucket bucket = new TokenBucket(10, 5, 1, 0.5);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.reserve(0));
+		}
+	}
+
+	@Test
+	void callsBeyondTheBurstWaitForTheRefill() {
+		TokenBucket bucket = new TokenBucket(10, 1, 1, 0.5);
+		assertEquals(0, bucket.reserve(ONE_SECOND));
+		long wait = bucket.reserve(ONE_SECOND);
+		// One token at 10 per second, less whatever refilled since the first call
+		assertTrue(wait > 0 && wait <= ONE_SECOND / 10, "waited " + wait);
+		long nextWait = bucket.reserve(ONE_SECOND);
+		assertTrue(nextWait > wait, "debt piles up: " + nextWait);
+	}
+
+	@Test
+	void reservationOverTheMaximumWaitTakesNoToken() {
+		TokenBucket bucket = new TokenBucket(1, 1, 1, 0.5);
+		assertEquals(0, bucket.reserve(0));
+		assertEquals(-1, bucket.reserve(ONE_SECOND / 10));
+		assertEquals(-1, bucket.reserve(ONE_SECOND / 10));
+		long wait = bucket.reserve(2 * ONE_SECOND);
+		assertTrue(wait > ONE_SECOND / 2 && wait <= ONE_SECOND, "waited " + wait);
+	}
+
+	@Test
+	void throttlingCutsTheRateDownToTheFloorAndSuccessRecoversIt() {
+		TokenBucket bucket = new TokenBucket(100, 10, 30, 0.5);
+		bucket.onThrottled();
+		assertEquals(50, bucket.getRate(), 1e-9);
+		bucket.onThrottled();
+		assertEquals(30, bucket.getRate(), 1e-9);
+
+		bucket.onSuccess();
+		assertEquals(31, bucket.getRate(), 1e-9);
+		for (int i = 0; i < 1000; i++) {
+			bucket.onSuccess();
+		}
+		assertEquals(100, bucket.getRate(), 1e-9);
+	}
+}